@@ -7,6 +7,7 @@ plugins {
   `maven-publish`
   signing
   id("com.diffplug.spotless") version "6.25.0"
+  id("me.champeau.jmh") version "0.6.8"
 }
 
 ///////////////////////////////////////////////////////////////////////////////
@@ -24,6 +25,8 @@ dependencies {
   testImplementation("org.junit.jupiter:junit-jupiter")
   testImplementation("org.junit.vintage:junit-vintage-engine")
   testImplementation("org.assertj:assertj-core:3.25.3")
+
+  jmh("org.slf4j:slf4j-simple:1.7.36")
 }
 
 ///////////////////////////////////////////////////////////////////////////////
@@ -48,6 +51,15 @@ java {
   withSourcesJar()
 }
 
+jmh {
+  jmhVersion.set("1.37")
+  fork.set(1)
+  warmupIterations.set(3)
+  iterations.set(5)
+  resultFormat.set("JSON")
+  resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+}
+
 fun copyLicenseFiles() {
   val metaInfDir = File(layout.buildDirectory.get().asFile, "resources/main/META-INF")
   val licenseFile = File(project.rootDir, "LICENSE")
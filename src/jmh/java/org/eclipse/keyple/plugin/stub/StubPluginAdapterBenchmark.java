@@ -0,0 +1,54 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures a {@link StubPluginAdapter#plugReader(String, boolean, StubSmartCard)} / {@link
+ * StubPluginAdapter#unplugReader(String)} cycle while the plugin holds a population of readers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StubPluginAdapterBenchmark {
+
+  @Param({"0", "1000"})
+  int pluggedReaderCount;
+
+  StubPluginAdapter plugin;
+
+  @Setup
+  public void setup() {
+    plugin =
+        new StubPluginAdapter(
+            "benchmarkPlugin",
+            Collections.<StubPluginFactoryAdapter.StubReaderConfiguration>emptySet(),
+            0);
+    for (int i = 0; i < pluggedReaderCount; i++) {
+      plugin.plugReader("pluggedReader" + i, true, null);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    plugin.onUnregister();
+  }
+
+  @Benchmark
+  public void plugUnplug() {
+    plugin.plugReader("churnReader", true, null);
+    plugin.unplugReader("churnReader");
+  }
+}
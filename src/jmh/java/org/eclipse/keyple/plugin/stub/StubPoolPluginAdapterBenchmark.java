@@ -0,0 +1,62 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.plugin.PluginIOException;
+import org.eclipse.keyple.core.plugin.spi.reader.PoolReaderSpi;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures an {@link StubPoolPluginAdapter#allocateReader(String)} / {@link
+ * StubPoolPluginAdapter#releaseReader(org.eclipse.keyple.core.plugin.spi.reader.ReaderSpi)} cycle
+ * with several threads competing for the readers of the same group.
+ *
+ * <p>The group holds as many readers as benchmark threads, so allocations never fail and the score
+ * reflects the cost of the synchronization between threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class StubPoolPluginAdapterBenchmark {
+
+  private static final String GROUP = "benchmarkGroup";
+  private static final int READER_COUNT = 4;
+
+  StubPoolPluginAdapter pool;
+
+  @Setup
+  public void setup() {
+    pool =
+        new StubPoolPluginAdapter(
+            "benchmarkPool",
+            Collections.<StubPoolPluginFactoryAdapter.StubPoolReaderConfiguration>emptySet(),
+            0);
+    for (int i = 0; i < READER_COUNT; i++) {
+      pool.plugPoolReader(GROUP, "benchmarkReader" + i, null);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.onUnregister();
+  }
+
+  @Benchmark
+  public PoolReaderSpi allocateRelease() throws PluginIOException {
+    PoolReaderSpi reader = pool.allocateReader(GROUP);
+    pool.releaseReader(reader);
+    return reader;
+  }
+}
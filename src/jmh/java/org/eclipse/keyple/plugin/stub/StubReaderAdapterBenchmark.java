@@ -0,0 +1,49 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.plugin.CardIOException;
+import org.eclipse.keyple.core.util.HexUtil;
+import org.openjdk.jmh.annotations.*;
+
+/** Measures {@link StubReaderAdapter#transmitApdu(byte[])} on a card with an open channel. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StubReaderAdapterBenchmark {
+
+  private static final String PROTOCOL = "ISO_14443_4_CARD";
+
+  StubReaderAdapter reader;
+  byte[] apdu;
+
+  @Setup
+  public void setup() {
+    StubSmartCard card =
+        StubSmartCard.builder()
+            .withPowerOnData(HexUtil.toByteArray("3B8880010000000000718100F9"))
+            .withProtocol(PROTOCOL)
+            .withSimulatedCommand("00A404000AA000000291A00000019100", "6F238409A0000002919000")
+            .withSimulatedCommand("00B2.*", "00112233445566778899AABBCCDDEEFF9000")
+            .build();
+    reader = new StubReaderAdapter("benchmarkReader", true, card);
+    reader.activateProtocol(PROTOCOL);
+    reader.openPhysicalChannel();
+    apdu = HexUtil.toByteArray("00B2014400");
+  }
+
+  @Benchmark
+  public byte[] transmitApdu() throws CardIOException {
+    return reader.transmitApdu(apdu);
+  }
+}
@@ -0,0 +1,97 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.keyple.core.plugin.CardIOException;
+import org.eclipse.keyple.core.util.HexUtil;
+import org.eclipse.keyple.plugin.stub.spi.ApduResponseProviderSpi;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures {@link StubSmartCard#processApdu(byte[])} with literal and regular expression command
+ * tables of various sizes, and with an APDU response provider.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StubSmartCardBenchmark {
+
+  @Param({"10", "1000"})
+  int commandCount;
+
+  StubSmartCard literalCard;
+  StubSmartCard regexCard;
+  StubSmartCard providerCard;
+  byte[] firstApdu;
+  byte[] lastApdu;
+
+  @Setup
+  public void setup() {
+    StubSmartCard.SimulatedCommandStep literalStep = newCard().withSimulatedCommand("00", "9000");
+    StubSmartCard.SimulatedCommandStep regexStep = newCard().withSimulatedCommand("00", "9000");
+    for (int i = 0; i < commandCount; i++) {
+      literalStep.withSimulatedCommand(command(i), "9000");
+      regexStep.withSimulatedCommand(command(i).substring(0, 8) + ".*", "9000");
+    }
+    literalCard = literalStep.build();
+    regexCard = regexStep.build();
+    providerCard =
+        newCard()
+            .withApduResponseProvider(
+                new ApduResponseProviderSpi() {
+                  @Override
+                  public String getResponseFromRequest(String apduRequest) {
+                    return "9000";
+                  }
+                })
+            .build();
+    firstApdu = HexUtil.toByteArray(command(0));
+    lastApdu = HexUtil.toByteArray(command(commandCount - 1));
+  }
+
+  @Benchmark
+  public byte[] literalFirst() throws CardIOException {
+    return literalCard.processApdu(firstApdu);
+  }
+
+  @Benchmark
+  public byte[] literalLast() throws CardIOException {
+    return literalCard.processApdu(lastApdu);
+  }
+
+  @Benchmark
+  public byte[] regexFirst() throws CardIOException {
+    return regexCard.processApdu(firstApdu);
+  }
+
+  @Benchmark
+  public byte[] regexLast() throws CardIOException {
+    return regexCard.processApdu(lastApdu);
+  }
+
+  @Benchmark
+  public byte[] provider() throws CardIOException {
+    return providerCard.processApdu(lastApdu);
+  }
+
+  private static StubSmartCard.CommandStep newCard() {
+    return StubSmartCard.builder()
+        .withPowerOnData(HexUtil.toByteArray("3B8880010000000000718100F9"))
+        .withProtocol("ISO_14443_4_CARD");
+  }
+
+  /** Builds a distinct command, varying the INS byte so that the commands spread over the index. */
+  private static String command(int i) {
+    return String.format("00%02X%04X00", i & 0xFF, i);
+  }
+}
@@ -0,0 +1,274 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import static org.eclipse.keyple.plugin.stub.StubPluginFactoryAdapter.*;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.keyple.core.plugin.spi.PluginSpi;
+import org.eclipse.keyple.core.plugin.spi.reader.ReaderSpi;
+import org.eclipse.keyple.core.util.Assert;
+
+/**
+ * (package-private)<br>
+ * Common part of the {@link StubPlugin} adapters. The subclasses define how the plug and unplug
+ * operations are observed by Keyple core.
+ *
+ * @since 2.3.0
+ */
+abstract class AbstractStubPluginAdapter implements StubPlugin, PluginSpi {
+
+  private final String name;
+  private final StubCardDetectionMode cardDetectionMode;
+  private final int cardInsertionSleepDuration;
+  private final int cardRemovalSleepDuration;
+  private final boolean isReaderMetricsEnabled;
+  private final StubReaderRegistry stubReaders;
+
+  /**
+   * (package-private )constructor
+   *
+   * @param name name of the plugin
+   * @param readerConfigurations configurations of the reader to plug initially
+   * @param cardDetectionMode card detection mode of the readers
+   * @param cardInsertionSleepDuration default sleep time between two card presence checks while
+   *     waiting for a card insertion
+   * @param cardRemovalSleepDuration default sleep time between two card presence checks while
+   *     waiting for a card removal
+   * @param isReaderMetricsEnabled true if the activity of the readers is counted
+   * @since 2.3.0
+   */
+  AbstractStubPluginAdapter(
+      String name,
+      Set<? extends StubReaderConfiguration> readerConfigurations,
+      StubCardDetectionMode cardDetectionMode,
+      int cardInsertionSleepDuration,
+      int cardRemovalSleepDuration,
+      boolean isReaderMetricsEnabled) {
+    this.name = name;
+    this.cardDetectionMode = cardDetectionMode;
+    this.cardInsertionSleepDuration = cardInsertionSleepDuration;
+    this.cardRemovalSleepDuration = cardRemovalSleepDuration;
+    this.isReaderMetricsEnabled = isReaderMetricsEnabled;
+    this.stubReaders = new StubReaderRegistry();
+    // the initial readers are registered in a single change
+    Map<String, AbstractStubReaderAdapter> initialReaders = new HashMap<>();
+    for (StubReaderConfiguration configuration : readerConfigurations) {
+      Assert.getInstance().notNull(configuration.getName(), "reader name");
+      initialReaders.put(
+          configuration.getName(),
+          createReader(
+              configuration.getName(),
+              configuration.getContactless(),
+              configuration.getCard(),
+              cardInsertionSleepDuration,
+              cardRemovalSleepDuration));
+    }
+    stubReaders.putAll(initialReaders);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The returned set is an immutable snapshot, shared by all the calls made between two reader
+   * changes.
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public Set<ReaderSpi> searchAvailableReaders() {
+    return stubReaders.getReaders();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getReaderChangeCount() {
+    return stubReaders.getVersion();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void onUnregister() {
+    // NO-OP
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void plugReader(String name, boolean isContactless, StubSmartCard card) {
+    plugReader(name, isContactless, card, cardInsertionSleepDuration, cardRemovalSleepDuration);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void plugReader(
+      String name,
+      boolean isContactless,
+      StubSmartCard card,
+      int cardInsertionSleepDuration,
+      int cardRemovalSleepDuration) {
+    Assert.getInstance()
+        .notNull(name, "reader name")
+        .greaterOrEqual(cardInsertionSleepDuration, 0, "cardInsertionSleepDuration")
+        .greaterOrEqual(cardRemovalSleepDuration, 0, "cardRemovalSleepDuration");
+    stubReaders.putAll(
+        Collections.singletonMap(
+            name,
+            createReader(
+                name, isContactless, card, cardInsertionSleepDuration, cardRemovalSleepDuration)));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void plugReaders(Map<String, StubSmartCard> readers, boolean isContactless) {
+    Assert.getInstance().notNull(readers, "readers");
+    // create all the readers first, the batch is applied only if all the names are valid
+    Map<String, AbstractStubReaderAdapter> newReaders =
+        new HashMap<>((int) (readers.size() / 0.75f) + 1);
+    for (Map.Entry<String, StubSmartCard> reader : readers.entrySet()) {
+      Assert.getInstance().notNull(reader.getKey(), "reader name");
+      newReaders.put(
+          reader.getKey(),
+          createReader(
+              reader.getKey(),
+              isContactless,
+              reader.getValue(),
+              cardInsertionSleepDuration,
+              cardRemovalSleepDuration));
+    }
+    stubReaders.putAll(newReaders);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void plugReaders(String readerNameFormat, int readerCount, boolean isContactless) {
+    plugReaders(formatReaderNames(readerNameFormat, readerCount), isContactless);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void unplugReaders(Collection<String> names) {
+    Assert.getInstance().notNull(names, "reader names");
+    stubReaders.removeAll(names);
+  }
+
+  /**
+   * (package-private)<br>
+   * Generates the names of a batch of readers without card.
+   *
+   * @param readerNameFormat format of the names, applied to the indexes from 0 to count - 1
+   * @param readerCount number of names
+   * @return A not null map of distinct names associated to null cards, in index order.
+   * @throws IllegalArgumentException If the format is invalid or produces duplicate names.
+   * @since 2.3.0
+   */
+  static Map<String, StubSmartCard> formatReaderNames(String readerNameFormat, int readerCount) {
+    Assert.getInstance()
+        .notNull(readerNameFormat, "reader name format")
+        .greaterOrEqual(readerCount, 0, "reader count");
+    Map<String, StubSmartCard> readers = new LinkedHashMap<>((int) (readerCount / 0.75f) + 1);
+    for (int i = 0; i < readerCount; i++) {
+      String name = String.format(readerNameFormat, i);
+      if (readers.containsKey(name)) {
+        throw new IllegalArgumentException(
+            "The reader name format produces duplicate names: " + name);
+      }
+      readers.put(name, null);
+    }
+    return readers;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the registry of the plugged readers.
+   *
+   * @return A not null registry.
+   * @since 2.3.0
+   */
+  final StubReaderRegistry getStubReaders() {
+    return stubReaders;
+  }
+
+  /**
+   * (private)<br>
+   * Creates a reader according to the card detection mode of the plugin.
+   */
+  private AbstractStubReaderAdapter createReader(
+      String name,
+      boolean isContactless,
+      StubSmartCard card,
+      int cardInsertionSleepDuration,
+      int cardRemovalSleepDuration) {
+    return cardDetectionMode == StubCardDetectionMode.EVENT_DRIVEN
+        ? new EventDrivenStubReaderAdapter(name, isContactless, card, isReaderMetricsEnabled)
+        : new StubReaderAdapter(
+            name,
+            isContactless,
+            card,
+            cardInsertionSleepDuration,
+            cardRemovalSleepDuration,
+            isReaderMetricsEnabled);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void unplugReader(String name) {
+    Assert.getInstance().notNull(name, "reader name");
+    stubReaders.removeAll(Collections.singleton(name));
+  }
+}
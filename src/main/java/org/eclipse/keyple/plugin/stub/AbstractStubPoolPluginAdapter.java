@@ -0,0 +1,563 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.eclipse.keyple.core.plugin.PluginIOException;
+import org.eclipse.keyple.core.plugin.spi.PluginSpi;
+import org.eclipse.keyple.core.plugin.spi.PoolPluginSpi;
+import org.eclipse.keyple.core.plugin.spi.reader.PoolReaderSpi;
+import org.eclipse.keyple.core.plugin.spi.reader.ReaderSpi;
+import org.eclipse.keyple.core.util.Assert;
+import org.eclipse.keyple.plugin.stub.StubPoolPluginFactoryAdapter.StubPoolReaderConfiguration;
+
+/**
+ * (package-private)<br>
+ * Common part of the {@link StubPoolPlugin} adapters. The subclasses define how the plug and unplug
+ * operations are observed by Keyple core.
+ *
+ * @since 2.3.0
+ */
+abstract class AbstractStubPoolPluginAdapter implements StubPoolPlugin, PoolPluginSpi, PluginSpi {
+
+  private static final int FREE = 0;
+  private static final int ALLOCATED = 1;
+  private static final int UNPLUGGED = 2;
+  // placeholder returned for the groups in which no reader has ever been plugged, never updated
+  private static final StubPoolAllocationMetricsAdapter NO_METRICS =
+      new StubPoolAllocationMetricsAdapter();
+
+  private final AbstractStubPluginAdapter stubPluginAdapter;
+  private final int allocationTimeout;
+  private final ConcurrentMap<String, PoolReader> poolReaders;
+  private final ConcurrentMap<String, ReaderGroup> readerGroups;
+  // references of the groups having at least one reader, kept sorted as readers are plugged
+  private final SortedSet<String> groupReferences;
+  private final SortedSet<String> unmodifiableGroupReferences;
+  // allocation requests without group reference, served after the waiters of the reader group
+  private final ReaderGroup anyReaderGroup;
+
+  /**
+   * (package-private )constructor
+   *
+   * @param stubPluginAdapter plugin managing the readers, created with the reader configurations
+   * @param readerConfigurations configurations of the reader to plug initially
+   * @param allocationTimeout maximum time in milliseconds to wait for a reader to be released when
+   *     a group is exhausted, 0 to fail immediately
+   * @since 2.3.0
+   */
+  AbstractStubPoolPluginAdapter(
+      AbstractStubPluginAdapter stubPluginAdapter,
+      Set<StubPoolReaderConfiguration> readerConfigurations,
+      int allocationTimeout) {
+    this.stubPluginAdapter = stubPluginAdapter;
+    this.allocationTimeout = allocationTimeout;
+    this.poolReaders = new ConcurrentHashMap<>();
+    this.readerGroups = new ConcurrentHashMap<>();
+    this.groupReferences = new ConcurrentSkipListSet<>();
+    this.unmodifiableGroupReferences = Collections.unmodifiableSortedSet(groupReferences);
+    this.anyReaderGroup = new ReaderGroup();
+    for (StubPoolReaderConfiguration readerConfiguration : readerConfigurations) {
+      addPoolReaders(
+          readerConfiguration.getGroupReference(),
+          Collections.singleton(readerConfiguration.getName()));
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public String getName() {
+    return this.stubPluginAdapter.getName();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public Set<ReaderSpi> searchAvailableReaders() {
+    return this.stubPluginAdapter.searchAvailableReaders();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public SortedSet<String> getReaderGroupReferences() {
+    return unmodifiableGroupReferences;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public PoolReaderSpi allocateReader(String readerGroupReference) throws PluginIOException {
+    // an unknown group is not created here, the request fails without waiting and is counted with
+    // the requests made without group reference
+    ReaderGroup readerGroup =
+        readerGroupReference == null ? anyReaderGroup : readerGroups.get(readerGroupReference);
+    if (readerGroup == null) {
+      anyReaderGroup.metrics.onAllocationEnded(false);
+    } else {
+      PoolReader poolReader = pollFreeReader(readerGroupReference);
+
+      if (poolReader == null && allocationTimeout > 0) {
+        poolReader = awaitFreeReader(readerGroup, readerGroupReference);
+      }
+
+      readerGroup.metrics.onAllocationEnded(poolReader != null);
+      if (poolReader != null) {
+        return stubPluginAdapter.getStubReaders().get(poolReader.readerName);
+      }
+    }
+
+    throw new PluginIOException(
+        "No reader is available for the given group reference: " + readerGroupReference);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void releaseReader(ReaderSpi readerSpi) {
+    Assert.getInstance().notNull(readerSpi, "reader SPI");
+
+    if (!(readerSpi instanceof StubReader)) {
+      throw new IllegalArgumentException(
+          "Cannot cast 'readerSpi' to StubReader. Actual type: " + readerSpi.getClass().getName());
+    }
+
+    PoolReader poolReader = poolReaders.get(readerSpi.getName());
+    if (poolReader != null && poolReader.state.compareAndSet(ALLOCATED, FREE)) {
+      offerFreeReader(poolReader);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void onUnregister() {
+    // NO-OP
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void plugPoolReader(String groupReference, String readerName, StubSmartCard card) {
+    Assert.getInstance()
+        .notNull(groupReference, "group reference")
+        .notNull(readerName, "reader name");
+
+    // create new reader
+    stubPluginAdapter.plugReader(readerName, false, card);
+
+    // map reader to groupReference
+    addPoolReaders(groupReference, Collections.singleton(readerName));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void plugPoolReaders(String groupReference, Map<String, StubSmartCard> readers) {
+    Assert.getInstance().notNull(groupReference, "group reference").notNull(readers, "readers");
+
+    // create the new readers, all at once or none
+    stubPluginAdapter.plugReaders(readers, false);
+
+    // map readers to groupReference
+    addPoolReaders(groupReference, readers.keySet());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void plugPoolReaders(String groupReference, String readerNameFormat, int readerCount) {
+    plugPoolReaders(
+        groupReference, AbstractStubPluginAdapter.formatReaderNames(readerNameFormat, readerCount));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public StubPoolAllocationMetrics getAllocationMetrics(String groupReference) {
+    if (groupReference == null) {
+      return anyReaderGroup.metrics;
+    }
+    ReaderGroup readerGroup = readerGroups.get(groupReference);
+    return readerGroup != null ? readerGroup.metrics : NO_METRICS;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getReaderChangeCount() {
+    return stubPluginAdapter.getReaderChangeCount();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void unplugPoolReaders(String groupReference) {
+    Assert.getInstance().notNull(groupReference, "group reference");
+
+    // find the reader in the readerPool
+    Set<String> readerNames = listReadersByGroup(groupReference);
+    for (String readerName : readerNames) {
+      PoolReader poolReader = poolReaders.remove(readerName);
+      if (poolReader != null) {
+        removePoolReader(poolReader);
+      }
+    }
+
+    // remove readers from plugin
+    stubPluginAdapter.unplugReaders(readerNames);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void unplugPoolReader(String readerName) {
+    Assert.getInstance().notNull(readerName, "reader name");
+
+    // remove reader from pool
+    PoolReader poolReader = poolReaders.remove(readerName);
+    if (poolReader != null) {
+      removePoolReader(poolReader);
+    }
+
+    // remove reader from plugin
+    stubPluginAdapter.unplugReader(readerName);
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the registry of the plugged readers.
+   *
+   * @return A not null registry.
+   * @since 2.3.0
+   */
+  final StubReaderRegistry getStubReaders() {
+    return stubPluginAdapter.getStubReaders();
+  }
+
+  /**
+   * (private) lists all readers that match a group reference
+   *
+   * @param aGroupReference not nullable reference to a group reference
+   * @return collection of reader names
+   */
+  private Set<String> listReadersByGroup(String aGroupReference) {
+    ReaderGroup readerGroup = readerGroups.get(aGroupReference);
+    return readerGroup != null
+        ? new HashSet<>(readerGroup.readerNames)
+        : Collections.<String>emptySet();
+  }
+
+  /**
+   * (private) registers readers of a group in the pool as free for allocation, replacing any
+   * previous reader with the same name
+   *
+   * @param groupReference not nullable group reference of the readers
+   * @param readerNames not nullable names of the readers
+   */
+  private void addPoolReaders(String groupReference, Collection<String> readerNames) {
+    List<PoolReader> newPoolReaders = new ArrayList<>(readerNames.size());
+    for (String readerName : readerNames) {
+      PoolReader poolReader = new PoolReader(groupReference, readerName);
+      PoolReader previousPoolReader = poolReaders.put(readerName, poolReader);
+      if (previousPoolReader != null) {
+        removePoolReader(previousPoolReader);
+      }
+      newPoolReaders.add(poolReader);
+    }
+    // the group index is updated once for the whole batch
+    ReaderGroup readerGroup = getReaderGroup(groupReference);
+    synchronized (readerGroup) {
+      boolean wasEmpty = readerGroup.readerNames.isEmpty();
+      if (readerGroup.readerNames.addAll(readerNames) && wasEmpty) {
+        groupReferences.add(groupReference);
+      }
+    }
+    for (PoolReader poolReader : newPoolReaders) {
+      offerFreeReader(poolReader);
+    }
+  }
+
+  /**
+   * (private) withdraws a reader from allocation and from the index of its group
+   *
+   * @param poolReader not nullable reader no longer registered in the pool
+   */
+  private void removePoolReader(PoolReader poolReader) {
+    // its free list entry, if any, is discarded on next allocation
+    poolReader.state.set(UNPLUGGED);
+    ReaderGroup readerGroup = getReaderGroup(poolReader.groupReference);
+    synchronized (readerGroup) {
+      // the name may already belong to a reader plugged again in the same group
+      PoolReader currentPoolReader = poolReaders.get(poolReader.readerName);
+      if ((currentPoolReader == null
+              || !currentPoolReader.groupReference.equals(poolReader.groupReference))
+          && readerGroup.readerNames.remove(poolReader.readerName)
+          && readerGroup.readerNames.isEmpty()) {
+        groupReferences.remove(poolReader.groupReference);
+      }
+    }
+  }
+
+  /**
+   * (private) gets the group associated to a group reference, creating it if needed
+   *
+   * @param groupReference not nullable group reference
+   * @return not null group
+   */
+  private ReaderGroup getReaderGroup(String groupReference) {
+    ReaderGroup readerGroup = readerGroups.get(groupReference);
+    if (readerGroup == null) {
+      readerGroup = new ReaderGroup();
+      ReaderGroup existingReaderGroup = readerGroups.putIfAbsent(groupReference, readerGroup);
+      if (existingReaderGroup != null) {
+        readerGroup = existingReaderGroup;
+      }
+    }
+    return readerGroup;
+  }
+
+  /**
+   * (private) takes a free reader of a group, or of any group if no group reference is provided
+   *
+   * @param groupReference nullable group reference
+   * @return null if no reader is free
+   */
+  private PoolReader pollFreeReader(String groupReference) {
+    if (groupReference != null) {
+      ReaderGroup readerGroup = readerGroups.get(groupReference);
+      return readerGroup != null ? readerGroup.pollFreeReader() : null;
+    }
+    for (ReaderGroup readerGroup : readerGroups.values()) {
+      PoolReader poolReader = readerGroup.pollFreeReader();
+      if (poolReader != null) {
+        return poolReader;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * (private) hands a free reader over to the oldest waiting allocation request, first among the
+   * requests of its group then among the requests without group, or puts it back in the free list
+   * of its group
+   *
+   * @param poolReader not nullable reader in the {@link #FREE} state
+   */
+  private void offerFreeReader(PoolReader poolReader) {
+    ReaderGroup readerGroup = getReaderGroup(poolReader.groupReference);
+    if (poolReader.state.compareAndSet(FREE, ALLOCATED)) {
+      if (readerGroup.handOver(poolReader) || anyReaderGroup.handOver(poolReader)) {
+        return;
+      }
+      poolReader.state.set(FREE);
+    }
+    readerGroup.freeReaders.offer(poolReader);
+    // a waiter registered after the hand over attempt may have missed the reader in the free list:
+    // either it finds the reader there, or it is seen here and served
+    while (!readerGroup.waiters.isEmpty() || !anyReaderGroup.waiters.isEmpty()) {
+      PoolReader freeReader = readerGroup.pollFreeReader();
+      if (freeReader == null) {
+        return;
+      }
+      if (!readerGroup.handOver(freeReader) && !anyReaderGroup.handOver(freeReader)) {
+        freeReader.state.set(FREE);
+        readerGroup.freeReaders.offer(freeReader);
+      }
+    }
+  }
+
+  /**
+   * (private) waits for a reader to be released, at most {@link #allocationTimeout} milliseconds
+   *
+   * @param readerGroup not nullable group of the request, {@link #anyReaderGroup} if no group
+   *     reference is provided
+   * @param groupReference nullable group reference
+   * @return null if no reader has been obtained in time
+   */
+  private PoolReader awaitFreeReader(ReaderGroup readerGroup, String groupReference) {
+    AllocationWaiter waiter = new AllocationWaiter();
+    long startTime = System.nanoTime();
+    readerGroup.waiters.offer(waiter);
+    readerGroup.metrics.onWaitStarted();
+    PoolReader poolReader = null;
+    try {
+      // a reader may have been released before the waiter was registered
+      poolReader = pollFreeReader(groupReference);
+      if (poolReader == null) {
+        waiter.await(allocationTimeout);
+      } else if (!waiter.cancel()) {
+        // already served meanwhile, keep the handed over reader
+        poolReader.state.set(FREE);
+        offerFreeReader(poolReader);
+        poolReader = null;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (poolReader == null && !waiter.cancel()) {
+        poolReader = waiter.assignedReader.get();
+      }
+      if (waiter.isCancelled()) {
+        readerGroup.waiters.remove(waiter);
+      }
+      readerGroup.metrics.onWaitEnded(System.nanoTime() - startTime, poolReader == null);
+    }
+    return poolReader;
+  }
+
+  /**
+   * (private) allocation state of a pool reader
+   *
+   * <p>A reader is referenced by the free list of its group only while it is {@link #FREE}.
+   */
+  private static final class PoolReader {
+
+    private final String groupReference;
+    private final String readerName;
+    private final AtomicInteger state;
+
+    private PoolReader(String groupReference, String readerName) {
+      this.groupReference = groupReference;
+      this.readerName = readerName;
+      this.state = new AtomicInteger(FREE);
+    }
+  }
+
+  /**
+   * (private) readers, free readers, waiting allocation requests and allocation metrics of a group
+   *
+   * <p>The free list is lazily purged of unplugged readers.
+   */
+  private static final class ReaderGroup {
+
+    private final Set<String> readerNames = ConcurrentHashMap.newKeySet();
+    private final Queue<PoolReader> freeReaders = new ConcurrentLinkedQueue<>();
+    private final Queue<AllocationWaiter> waiters = new ConcurrentLinkedQueue<>();
+    private final StubPoolAllocationMetricsAdapter metrics = new StubPoolAllocationMetricsAdapter();
+
+    /**
+     * (private) takes the first reader of the free list that can be switched to the allocated state
+     *
+     * @return null if the group has no free reader
+     */
+    private PoolReader pollFreeReader() {
+      PoolReader poolReader;
+      while ((poolReader = freeReaders.poll()) != null) {
+        if (poolReader.state.compareAndSet(FREE, ALLOCATED)) {
+          return poolReader;
+        }
+        // the reader has been unplugged meanwhile, drop it
+      }
+      return null;
+    }
+
+    /**
+     * (private) gives an allocated reader to the oldest waiter still waiting
+     *
+     * @param poolReader not nullable reader in the {@link #ALLOCATED} state
+     * @return false if no waiter took the reader
+     */
+    private boolean handOver(PoolReader poolReader) {
+      AllocationWaiter waiter;
+      while ((waiter = waiters.poll()) != null) {
+        if (waiter.assign(poolReader)) {
+          return true;
+        }
+        // the waiter has timed out meanwhile, try the next one
+      }
+      return false;
+    }
+  }
+
+  /**
+   * (private) allocation request waiting for a reader to be released
+   *
+   * <p>The request is completed exactly once, either by a releasing thread assigning it a reader or
+   * by the waiting thread cancelling it.
+   */
+  private static final class AllocationWaiter {
+
+    private static final PoolReader CANCELLED = new PoolReader(null, null);
+
+    private final AtomicReference<PoolReader> assignedReader = new AtomicReference<>();
+    private final CountDownLatch completed = new CountDownLatch(1);
+
+    private boolean assign(PoolReader poolReader) {
+      if (assignedReader.compareAndSet(null, poolReader)) {
+        completed.countDown();
+        return true;
+      }
+      return false;
+    }
+
+    private boolean cancel() {
+      return assignedReader.compareAndSet(null, CANCELLED);
+    }
+
+    private boolean isCancelled() {
+      return assignedReader.get() == CANCELLED;
+    }
+
+    private void await(int timeout) throws InterruptedException {
+      completed.await(timeout, TimeUnit.MILLISECONDS);
+    }
+  }
+}
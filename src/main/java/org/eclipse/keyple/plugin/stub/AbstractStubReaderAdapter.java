@@ -0,0 +1,363 @@
+/* **************************************************************************************
+ * Copyright (c) 2021 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.eclipse.keyple.core.plugin.CardIOException;
+import org.eclipse.keyple.core.plugin.spi.reader.ConfigurableReaderSpi;
+import org.eclipse.keyple.core.plugin.spi.reader.PoolReaderSpi;
+import org.eclipse.keyple.core.plugin.spi.reader.observable.ObservableReaderSpi;
+import org.eclipse.keyple.core.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * (package-private)<br>
+ * Common part of the StubReader adapters, which are also ObservableReaderSpi. The subclasses define
+ * how the card insertion and removal are waited for.
+ *
+ * @since 2.3.0
+ */
+abstract class AbstractStubReaderAdapter
+    implements StubReader, ConfigurableReaderSpi, PoolReaderSpi, ObservableReaderSpi {
+
+  private static final Logger logger = LoggerFactory.getLogger(AbstractStubReaderAdapter.class);
+
+  private final String name;
+  private final Boolean isContactLess;
+  private final Set<String> activatedProtocols;
+
+  // updated atomically as cards can be inserted or removed while the reader is being observed
+  private final AtomicReference<StubSmartCard> smartCard;
+  // null if the metrics are disabled
+  private final StubReaderMetricsAdapter metrics;
+
+  /**
+   * (package-private)<br>
+   * constructor
+   *
+   * @param name name of the reader
+   * @param isContactLess true if contactless
+   * @param card (optional) inserted smart card at creation
+   * @param isMetricsEnabled true if the reader activity is counted
+   * @since 2.3.0
+   */
+  AbstractStubReaderAdapter(
+      String name, Boolean isContactLess, StubSmartCard card, boolean isMetricsEnabled) {
+    this.name = name;
+    this.isContactLess = isContactLess;
+    this.activatedProtocols = ConcurrentHashMap.newKeySet();
+    this.smartCard = new AtomicReference<>(card);
+    this.metrics = isMetricsEnabled ? new StubReaderMetricsAdapter() : null;
+  }
+
+  /*
+   * ObservableReaderSpi
+   */
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void onStartDetection() {
+    // NOP
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void onStopDetection() {
+    // NOP
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public boolean isProtocolSupported(String readerProtocol) {
+    return true; // do not block any protocol
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void activateProtocol(String readerProtocol) {
+    activatedProtocols.add(readerProtocol);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void deactivateProtocol(String readerProtocol) {
+    activatedProtocols.remove(readerProtocol);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public boolean isCurrentProtocol(String readerProtocol) {
+    StubSmartCard card = smartCard.get();
+    if (card != null && card.getCardProtocol() != null) {
+      return card.getCardProtocol().equals(readerProtocol);
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void openPhysicalChannel() {
+    StubSmartCard card = smartCard.get();
+    if (card != null) {
+      card.openPhysicalChannel();
+      if (metrics != null) {
+        metrics.onPhysicalChannelOpened();
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void closePhysicalChannel() {
+    StubSmartCard card = smartCard.get();
+    if (card != null) {
+      card.closePhysicalChannel();
+      if (metrics != null) {
+        metrics.onPhysicalChannelClosed();
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public boolean isPhysicalChannelOpen() {
+    StubSmartCard card = smartCard.get();
+    return card != null && card.isPhysicalChannelOpen();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public boolean checkCardPresence() {
+    return smartCard.get() != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public String getPowerOnData() {
+    return smartCard.get().getPowerOnDataHex();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public byte[] transmitApdu(byte[] apduIn) throws CardIOException {
+    StubSmartCard card = smartCard.get();
+    if (card == null) {
+      if (metrics != null) {
+        metrics.onTransmissionFailed();
+      }
+      throw new CardIOException("No card is available");
+    }
+    StubTimingModel timingModel = card.getTimingModel();
+    if (metrics == null && timingModel == null) {
+      // nothing to measure
+      return card.processApdu(apduIn);
+    }
+    long startTime = System.nanoTime();
+    byte[] apduOut;
+    try {
+      apduOut = card.processApdu(apduIn);
+    } catch (CardIOException e) {
+      // an APDU without response takes the time of its processing and transfer before failing
+      if (timingModel != null && apduIn != null) {
+        StubTimingModel.waitUntil(startTime + timingModel.getExchangeNanos(apduIn, 0));
+      }
+      if (metrics != null) {
+        metrics.onTransmissionFailed();
+      }
+      throw e;
+    }
+    // a null APDU is answered with an empty response, without delay
+    if (timingModel != null && apduIn != null) {
+      StubTimingModel.waitUntil(startTime + timingModel.getExchangeNanos(apduIn, apduOut.length));
+    }
+    if (metrics != null) {
+      metrics.onApduTransmitted(
+          apduIn == null ? 0 : apduIn.length, apduOut.length, System.nanoTime() - startTime);
+    }
+    return apduOut;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public boolean isContactless() {
+    return isContactLess;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void onUnregister() {
+    // NO-OP
+  }
+
+  /*
+   * StubReader
+   */
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void insertCard(StubSmartCard smartCard) {
+    Assert.getInstance().notNull(smartCard, "smart card");
+    if (!activatedProtocols.contains(smartCard.getCardProtocol())) {
+      logger.info(
+          "[readerExt={}] Inserted card protocol does not match any activated protocol. Please use 'activateProtocol()' method first [cardProtocol={}]",
+          getName(),
+          smartCard.getCardProtocol());
+      return;
+    }
+    // the presence check and the insertion must be a single atomic step
+    if (!this.smartCard.compareAndSet(null, smartCard)) {
+      logger.warn(
+          "[readerExt={}] A card is already inserted. First remove the inserted card before inserting a new one",
+          getName());
+      return;
+    }
+    if (metrics != null) {
+      metrics.onCardInserted();
+    }
+    if (logger.isTraceEnabled()) {
+      logger.trace("[readerExt={}] Card inserted [smartCard={}]", getName(), smartCard);
+    }
+    onCardPresenceChanged();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public void removeCard() {
+    StubSmartCard card = smartCard.getAndSet(null);
+    if (card != null) {
+      if (logger.isTraceEnabled()) {
+        logger.trace("[readerExt={}] Card removed [smartCard={}]", getName(), card);
+      }
+      card.closePhysicalChannel();
+      if (metrics != null) {
+        metrics.onPhysicalChannelClosed();
+        metrics.onCardRemoved();
+      }
+      onCardPresenceChanged();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.0.0
+   */
+  @Override
+  public StubSmartCard getSmartcard() {
+    return smartCard.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.2.0
+   */
+  @Override
+  public Object getSelectedSmartCard() {
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public StubReaderMetrics getMetrics() {
+    return metrics != null ? metrics : StubReaderMetricsAdapter.NO_METRICS;
+  }
+
+  /**
+   * (package-private)<br>
+   * Called after a card has been inserted or removed.
+   *
+   * @since 2.3.0
+   */
+  abstract void onCardPresenceChanged();
+}
@@ -0,0 +1,78 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Set;
+import org.eclipse.keyple.core.plugin.AutonomousObservablePluginApi;
+import org.eclipse.keyple.core.plugin.spi.AutonomousObservablePluginSpi;
+import org.eclipse.keyple.plugin.stub.StubPoolPluginFactoryAdapter.StubPoolReaderConfiguration;
+
+/**
+ * (package-private)<br>
+ * Internal adapter of the {@link StubPoolPlugin}, pushing each plug and unplug operation to Keyple
+ * core as reader connection and disconnection events, without any reader monitoring thread.
+ *
+ * @since 2.3.0
+ */
+final class AutonomousStubPoolPluginAdapter extends AbstractStubPoolPluginAdapter
+    implements AutonomousObservablePluginSpi {
+
+  /**
+   * (package-private )constructor
+   *
+   * @param name name of the plugin
+   * @param readerConfigurations configurations of the reader to plug initially
+   * @param allocationTimeout maximum time in milliseconds to wait for a reader to be released when
+   *     a group is exhausted, 0 to fail immediately
+   * @param isReaderMetricsEnabled true if the activity of the readers is counted
+   * @since 2.3.0
+   */
+  AutonomousStubPoolPluginAdapter(
+      String name,
+      Set<StubPoolReaderConfiguration> readerConfigurations,
+      int allocationTimeout,
+      boolean isReaderMetricsEnabled) {
+    super(
+        new AutonomousStubPluginAdapter(
+            name,
+            readerConfigurations,
+            StubCardDetectionMode.POLLING,
+            0,
+            0,
+            isReaderMetricsEnabled),
+        readerConfigurations,
+        allocationTimeout);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The readers plugged or unplugged from now on are notified to the provided API, in the order
+   * of the operations.
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void connect(AutonomousObservablePluginApi autonomousObservablePluginApi) {
+    getStubReaders().setObserver(autonomousObservablePluginApi);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void onUnregister() {
+    getStubReaders().setObserver(null);
+  }
+}
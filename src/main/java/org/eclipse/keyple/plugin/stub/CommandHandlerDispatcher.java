@@ -0,0 +1,173 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.keyple.core.util.Assert;
+import org.eclipse.keyple.plugin.stub.spi.RawApduResponseProviderSpi;
+
+/**
+ * (package-private)<br>
+ * Dispatches the APDUs of a {@link StubSmartCard} to the command handlers registered on their
+ * header, reading only the CLA, INS, P1 and P2 bytes of the raw APDU.
+ *
+ * <p>The handlers are indexed by INS byte. Among the handlers of an INS, those registered for
+ * specific P1/P2 values are tried before those accepting any P1/P2, each group in declaration
+ * order. The first handler providing a response wins.
+ *
+ * @since 2.3.0
+ */
+final class CommandHandlerDispatcher {
+
+  private static final int ANY_P1_P2 = -1;
+
+  private final CommandHandler[][] handlersByIns;
+
+  /**
+   * (package-private)<br>
+   * Builds the dispatcher from the registered handlers.
+   *
+   * @param commandHandlers (non-nullable) the handlers, in declaration order
+   * @since 2.3.0
+   */
+  CommandHandlerDispatcher(List<CommandHandler> commandHandlers) {
+    List<List<CommandHandler>> handlers = new ArrayList<>(256);
+    for (int ins = 0; ins < 256; ins++) {
+      handlers.add(new ArrayList<CommandHandler>());
+    }
+    // the handlers of specific P1/P2 values first, then the others
+    for (CommandHandler commandHandler : commandHandlers) {
+      if (commandHandler.p1p2 != ANY_P1_P2) {
+        handlers.get(commandHandler.ins).add(commandHandler);
+      }
+    }
+    for (CommandHandler commandHandler : commandHandlers) {
+      if (commandHandler.p1p2 == ANY_P1_P2) {
+        handlers.get(commandHandler.ins).add(commandHandler);
+      }
+    }
+    handlersByIns = new CommandHandler[256][];
+    for (int ins = 0; ins < 256; ins++) {
+      List<CommandHandler> insHandlers = handlers.get(ins);
+      handlersByIns[ins] =
+          insHandlers.isEmpty() ? null : insHandlers.toArray(new CommandHandler[0]);
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Creates a handler registration accepting any P1/P2.
+   *
+   * @param cla the expected CLA byte, compared under the mask
+   * @param claMask the mask of the CLA bits to compare
+   * @param ins the INS byte
+   * @param handler (non-nullable) the handler
+   * @return A not null reference.
+   * @throws IllegalArgumentException If a parameter is out of range or null.
+   * @since 2.3.0
+   */
+  static CommandHandler newCommandHandler(
+      int cla, int claMask, int ins, RawApduResponseProviderSpi handler) {
+    checkCommandHandler(cla, claMask, ins, handler);
+    return new CommandHandler(cla, claMask, ins, ANY_P1_P2, handler);
+  }
+
+  /**
+   * (package-private)<br>
+   * Creates a handler registration for specific P1/P2 values.
+   *
+   * @param cla the expected CLA byte, compared under the mask
+   * @param claMask the mask of the CLA bits to compare
+   * @param ins the INS byte
+   * @param p1 the P1 byte
+   * @param p2 the P2 byte
+   * @param handler (non-nullable) the handler
+   * @return A not null reference.
+   * @throws IllegalArgumentException If a parameter is out of range or null.
+   * @since 2.3.0
+   */
+  static CommandHandler newCommandHandler(
+      int cla, int claMask, int ins, int p1, int p2, RawApduResponseProviderSpi handler) {
+    checkCommandHandler(cla, claMask, ins, handler);
+    Assert.getInstance().isInRange(p1, 0, 255, "p1").isInRange(p2, 0, 255, "p2");
+    return new CommandHandler(cla, claMask, ins, (p1 << 8) | p2, handler);
+  }
+
+  /**
+   * (private)<br>
+   * Checks the header and handler of a command handler registration.
+   */
+  private static void checkCommandHandler(
+      int cla, int claMask, int ins, RawApduResponseProviderSpi handler) {
+    Assert.getInstance()
+        .isInRange(cla, 0, 255, "cla")
+        .isInRange(claMask, 0, 255, "claMask")
+        .isInRange(ins, 0, 255, "ins")
+        .notNull(handler, "handler");
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the response of the first handler registered on the APDU header and providing a
+   * response.
+   *
+   * @param apdu (non-nullable) the APDU
+   * @return Null if no handler provides a response.
+   * @since 2.3.0
+   */
+  byte[] dispatch(byte[] apdu) {
+    if (apdu.length < 4) {
+      return null;
+    }
+    CommandHandler[] handlers = handlersByIns[apdu[1] & 0xFF];
+    if (handlers == null) {
+      return null;
+    }
+    int cla = apdu[0] & 0xFF;
+    int p1p2 = ((apdu[2] & 0xFF) << 8) | (apdu[3] & 0xFF);
+    for (CommandHandler commandHandler : handlers) {
+      if ((cla & commandHandler.claMask) == commandHandler.cla
+          && (commandHandler.p1p2 == ANY_P1_P2 || commandHandler.p1p2 == p1p2)) {
+        byte[] response = commandHandler.handler.getResponseFromRequest(apdu);
+        if (response != null) {
+          return response;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * (package-private)<br>
+   * Registration of a handler on an APDU header.
+   *
+   * @since 2.3.0
+   */
+  static final class CommandHandler {
+
+    private final int cla;
+    private final int claMask;
+    private final int ins;
+    private final int p1p2;
+    private final RawApduResponseProviderSpi handler;
+
+    private CommandHandler(
+        int cla, int claMask, int ins, int p1p2, RawApduResponseProviderSpi handler) {
+      this.cla = cla & claMask;
+      this.claMask = claMask;
+      this.ins = ins;
+      this.p1p2 = p1p2;
+      this.handler = handler;
+    }
+  }
+}
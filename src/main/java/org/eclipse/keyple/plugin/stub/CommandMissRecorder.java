@@ -0,0 +1,81 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * (package-private)<br>
+ * Bounded ring buffer of the last APDUs for which a {@link StubSmartCard} had no response.
+ *
+ * <p>Recording only happens on the miss path: it copies the APDU and overwrites the oldest slot,
+ * without lock. The nearest simulated command of a miss is computed when first requested.
+ *
+ * @since 2.3.0
+ */
+final class CommandMissRecorder {
+
+  private final String[] commands;
+  private final AtomicReferenceArray<StubCommandMissAdapter> misses;
+  private final AtomicLong missCount = new AtomicLong();
+
+  /**
+   * (package-private)<br>
+   * Creates a recorder.
+   *
+   * @param capacity the maximum number of misses kept (strictly positive)
+   * @param commands (non-nullable) the simulated commands as declared, indexed by ordinal, shared
+   * @since 2.3.0
+   */
+  CommandMissRecorder(int capacity, String[] commands) {
+    this.commands = commands;
+    misses = new AtomicReferenceArray<>(capacity);
+  }
+
+  /**
+   * (package-private)<br>
+   * Records an APDU without response, replacing the oldest miss when the buffer is full.
+   *
+   * @param apdu (non-nullable) the APDU, copied
+   * @since 2.3.0
+   */
+  void record(byte[] apdu) {
+    long index = missCount.getAndIncrement();
+    misses.set(
+        (int) (index % misses.length()),
+        new StubCommandMissAdapter(apdu.clone(), System.nanoTime(), commands));
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the recorded misses, from the oldest to the most recent.
+   *
+   * @return A new list, empty if no miss was recorded.
+   * @since 2.3.0
+   */
+  List<StubCommandMiss> getMisses() {
+    long count = missCount.get();
+    int size = (int) Math.min(count, misses.length());
+    List<StubCommandMiss> recentMisses = new ArrayList<>(size);
+    for (long index = count - size; index < count; index++) {
+      StubCommandMissAdapter miss = misses.get((int) (index % misses.length()));
+      // a concurrent miss may not be published yet
+      if (miss != null) {
+        recentMisses.add(miss);
+      }
+    }
+    return recentMisses;
+  }
+}
@@ -0,0 +1,134 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import org.eclipse.keyple.core.plugin.TaskCanceledException;
+import org.eclipse.keyple.core.plugin.spi.reader.observable.state.insertion.CardInsertionWaiterBlockingSpi;
+import org.eclipse.keyple.core.plugin.spi.reader.observable.state.removal.CardRemovalWaiterBlockingSpi;
+
+/**
+ * (package-private)<br>
+ * StubReader adapter whose monitoring thread is parked until {@link #insertCard(StubSmartCard)} or
+ * {@link #removeCard()} signals it, instead of polling the card presence.
+ *
+ * @since 2.3.0
+ */
+final class EventDrivenStubReaderAdapter extends AbstractStubReaderAdapter
+    implements CardInsertionWaiterBlockingSpi, CardRemovalWaiterBlockingSpi {
+
+  private final Object cardPresenceMonitor = new Object();
+  private boolean isWaitingForCardInsertion;
+  private boolean isWaitingForCardRemoval;
+
+  /**
+   * (package-private)<br>
+   * constructor
+   *
+   * @param name name of the reader
+   * @param isContactLess true if contactless
+   * @param card (optional) inserted smart card at creation
+   * @param isMetricsEnabled true if the reader activity is counted
+   * @since 2.3.0
+   */
+  EventDrivenStubReaderAdapter(
+      String name, Boolean isContactLess, StubSmartCard card, boolean isMetricsEnabled) {
+    super(name, isContactLess, card, isMetricsEnabled);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  void onCardPresenceChanged() {
+    synchronized (cardPresenceMonitor) {
+      cardPresenceMonitor.notifyAll();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void waitForCardInsertion() throws TaskCanceledException {
+    synchronized (cardPresenceMonitor) {
+      isWaitingForCardInsertion = true;
+      while (!checkCardPresence()) {
+        if (!isWaitingForCardInsertion) {
+          throw new TaskCanceledException("Card insertion wait canceled");
+        }
+        awaitCardPresenceChange();
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void stopWaitForCardInsertion() {
+    synchronized (cardPresenceMonitor) {
+      isWaitingForCardInsertion = false;
+      cardPresenceMonitor.notifyAll();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void waitForCardRemoval() throws TaskCanceledException {
+    synchronized (cardPresenceMonitor) {
+      isWaitingForCardRemoval = true;
+      while (checkCardPresence()) {
+        if (!isWaitingForCardRemoval) {
+          throw new TaskCanceledException("Card removal wait canceled");
+        }
+        awaitCardPresenceChange();
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public void stopWaitForCardRemoval() {
+    synchronized (cardPresenceMonitor) {
+      isWaitingForCardRemoval = false;
+      cardPresenceMonitor.notifyAll();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Parks the current thread until the card presence changes or a wait is stopped. Must be called
+   * while holding the monitor.
+   */
+  private void awaitCardPresenceChange() throws TaskCanceledException {
+    try {
+      cardPresenceMonitor.wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TaskCanceledException("Card presence wait interrupted");
+    }
+  }
+}
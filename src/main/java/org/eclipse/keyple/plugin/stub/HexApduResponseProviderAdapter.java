@@ -0,0 +1,50 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import org.eclipse.keyple.core.util.HexUtil;
+import org.eclipse.keyple.plugin.stub.spi.ApduResponseProviderSpi;
+import org.eclipse.keyple.plugin.stub.spi.RawApduResponseProviderSpi;
+
+/**
+ * (package-private)<br>
+ * Adapts an hexadecimal {@link ApduResponseProviderSpi} to the {@link RawApduResponseProviderSpi}
+ * used internally by {@link StubSmartCard}.
+ *
+ * @since 2.3.0
+ */
+final class HexApduResponseProviderAdapter implements RawApduResponseProviderSpi {
+
+  private final ApduResponseProviderSpi apduResponseProvider;
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   *
+   * @param apduResponseProvider (non-nullable) the hexadecimal provider to adapt
+   * @since 2.3.0
+   */
+  HexApduResponseProviderAdapter(ApduResponseProviderSpi apduResponseProvider) {
+    this.apduResponseProvider = apduResponseProvider;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public byte[] getResponseFromRequest(byte[] apduRequest) {
+    String response = apduResponseProvider.getResponseFromRequest(HexUtil.toHex(apduRequest));
+    return response != null ? HexUtil.toByteArray(response) : null;
+  }
+}
@@ -0,0 +1,65 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Map;
+
+/**
+ * (package-private)<br>
+ * Per-card replacement of the responses of a few simulated commands of a {@link StubCardTemplate}.
+ *
+ * <p>An overlay is expected to hold a handful of responses: they are looked up by a linear scan of
+ * the ordinals of the replaced commands, which is faster than hashing for such sizes and does not
+ * allocate.
+ *
+ * @since 2.3.0
+ */
+final class ResponseOverlay {
+
+  private final int[] ordinals;
+  private final byte[][] responses;
+
+  /**
+   * (package-private)<br>
+   * Creates an overlay.
+   *
+   * @param responsesByOrdinal (non-nullable) the decoded responses by command ordinal
+   * @since 2.3.0
+   */
+  ResponseOverlay(Map<Integer, byte[]> responsesByOrdinal) {
+    ordinals = new int[responsesByOrdinal.size()];
+    responses = new byte[responsesByOrdinal.size()][];
+    int i = 0;
+    for (Map.Entry<Integer, byte[]> response : responsesByOrdinal.entrySet()) {
+      ordinals[i] = response.getKey();
+      responses[i] = response.getValue();
+      i++;
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the replacement of the response of a simulated command.
+   *
+   * @param ordinal the ordinal of the command
+   * @return Null if the response of the command is not replaced.
+   * @since 2.3.0
+   */
+  byte[] getResponse(int ordinal) {
+    for (int i = 0; i < ordinals.length; i++) {
+      if (ordinals[i] == ordinal) {
+        return responses[i];
+      }
+    }
+    return null;
+  }
+}
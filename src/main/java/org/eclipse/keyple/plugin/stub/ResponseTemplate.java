@@ -0,0 +1,452 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.eclipse.keyple.core.util.HexUtil;
+
+/**
+ * (package-private)<br>
+ * Response of a simulated command containing placeholders, compiled once into a list of segments
+ * and rendered on each hit directly into the response array.
+ *
+ * <p>A placeholder is enclosed in braces and is one of:
+ *
+ * <ul>
+ *   <li>{@code {name}}: the value of the per-card variable {@code name},
+ *   <li>{@code {$n}}: the hexadecimal text captured by the group {@code n} of the command regular
+ *       expression,
+ *   <li>{@code {name++:size}}: the value of the per-card counter {@code name}, on {@code size}
+ *       bytes (1 to 8, big-endian), incremented after each rendering, starting from 0,
+ *   <li>{@code {random:size}}: {@code size} random bytes.
+ * </ul>
+ *
+ * @since 2.3.0
+ */
+final class ResponseTemplate {
+
+  private static final int LITERAL = 0;
+  private static final int VARIABLE = 1;
+  private static final int GROUP = 2;
+  private static final int COUNTER = 3;
+  private static final int RANDOM = 4;
+
+  private static final String RANDOM_NAME = "random";
+  private static final String COUNTER_SUFFIX = "++";
+
+  private final String response;
+  private final Pattern commandPattern;
+  private final int[] kinds;
+  // per segment: the literal bytes, or the index of the variable, group or counter, and the size
+  private final byte[][] literals;
+  private final int[] indexes;
+  private final int[] sizes;
+  private final boolean hasGroups;
+
+  /**
+   * (package-private)<br>
+   * Compiles a response template.
+   *
+   * @param response (non-nullable) the response with its placeholders
+   * @param commandPattern (nullable) the pattern of the command, null if it is a literal
+   * @param symbols (non-nullable) the symbols of the card, completed with the variables and
+   *     counters of the template
+   * @throws IllegalArgumentException If the template is invalid.
+   * @since 2.3.0
+   */
+  ResponseTemplate(String response, Pattern commandPattern, Symbols symbols) {
+    this.response = response;
+    this.commandPattern = commandPattern;
+    List<Integer> kindList = new ArrayList<>();
+    List<byte[]> literalList = new ArrayList<>();
+    List<Integer> indexList = new ArrayList<>();
+    List<Integer> sizeList = new ArrayList<>();
+    boolean isGroupReferenced = false;
+    int position = 0;
+    while (position < response.length()) {
+      int start = response.indexOf('{', position);
+      int literalEnd = start < 0 ? response.length() : start;
+      if (literalEnd > position) {
+        String literal = response.substring(position, literalEnd).replace(" ", "");
+        if (!HexUtil.isValid(literal)) {
+          throw invalidTemplate("hexadecimal value expected before position " + literalEnd);
+        }
+        kindList.add(LITERAL);
+        literalList.add(HexUtil.toByteArray(literal));
+        indexList.add(0);
+        sizeList.add(literal.length() / 2);
+      }
+      if (start < 0) {
+        break;
+      }
+      int end = response.indexOf('}', start);
+      if (end < 0) {
+        throw invalidTemplate("'}' expected after position " + start);
+      }
+      String placeholder = response.substring(start + 1, end).trim();
+      int sizeSeparator = placeholder.indexOf(':');
+      String name = sizeSeparator < 0 ? placeholder : placeholder.substring(0, sizeSeparator);
+      int size = sizeSeparator < 0 ? 0 : parseSize(placeholder.substring(sizeSeparator + 1));
+      literalList.add(null);
+      if (name.startsWith("$") && sizeSeparator < 0) {
+        int group = parseGroup(name.substring(1));
+        isGroupReferenced = true;
+        kindList.add(GROUP);
+        indexList.add(group);
+        sizeList.add(0);
+      } else if (RANDOM_NAME.equals(name) && sizeSeparator >= 0) {
+        kindList.add(RANDOM);
+        indexList.add(0);
+        sizeList.add(size);
+      } else if (name.endsWith(COUNTER_SUFFIX) && sizeSeparator >= 0) {
+        String counterName = name.substring(0, name.length() - COUNTER_SUFFIX.length());
+        checkName(counterName);
+        if (size > 8) {
+          throw invalidTemplate("counter size greater than 8 bytes");
+        }
+        kindList.add(COUNTER);
+        indexList.add(symbols.getCounterIndex(counterName));
+        sizeList.add(size);
+      } else if (sizeSeparator < 0) {
+        checkName(name);
+        kindList.add(VARIABLE);
+        indexList.add(symbols.getVariableIndex(name));
+        sizeList.add(0);
+      } else {
+        throw invalidTemplate("unknown placeholder {" + placeholder + "}");
+      }
+      position = end + 1;
+    }
+    kinds = new int[kindList.size()];
+    literals = literalList.toArray(new byte[0][]);
+    indexes = new int[kindList.size()];
+    sizes = new int[kindList.size()];
+    for (int i = 0; i < kinds.length; i++) {
+      kinds[i] = kindList.get(i);
+      indexes[i] = indexList.get(i);
+      sizes[i] = sizeList.get(i);
+    }
+    hasGroups = isGroupReferenced;
+    if (hasGroups) {
+      symbols.isGroupReferenced = true;
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Indicates if a response contains placeholders.
+   *
+   * @param response (non-nullable) the response
+   * @return True if the response is a template.
+   * @since 2.3.0
+   */
+  static boolean isTemplate(String response) {
+    return response.indexOf('{') >= 0;
+  }
+
+  /**
+   * (package-private)<br>
+   * Renders the response of an APDU matching the command of the template.
+   *
+   * @param groups (nullable) the groups captured when the command was matched, null if the
+   *     template references no group
+   * @param state (nullable) the variables and counters of the card, null if the template
+   *     references none
+   * @return A new array.
+   * @since 2.3.0
+   */
+  byte[] render(Groups groups, CardState state) {
+    String hexApdu = null;
+    Matcher matcher = null;
+    if (hasGroups) {
+      // reused from the matching step, the APDU is neither encoded nor matched again
+      hexApdu = groups.hexApdu;
+      matcher = groups.matcher;
+    }
+    // first pass: size of the response
+    int length = 0;
+    for (int i = 0; i < kinds.length; i++) {
+      switch (kinds[i]) {
+        case VARIABLE:
+          length += state.variables[indexes[i]].length;
+          break;
+        case GROUP:
+          int groupStart = matcher.start(indexes[i]);
+          length += groupStart < 0 ? 0 : (matcher.end(indexes[i]) - groupStart) / 2;
+          break;
+        default:
+          length += sizes[i];
+      }
+    }
+    // second pass: segments written in place
+    byte[] out = new byte[length];
+    int offset = 0;
+    for (int i = 0; i < kinds.length; i++) {
+      switch (kinds[i]) {
+        case LITERAL:
+          System.arraycopy(literals[i], 0, out, offset, sizes[i]);
+          offset += sizes[i];
+          break;
+        case VARIABLE:
+          byte[] value = state.variables[indexes[i]];
+          System.arraycopy(value, 0, out, offset, value.length);
+          offset += value.length;
+          break;
+        case GROUP:
+          offset = decodeGroup(hexApdu, matcher, indexes[i], out, offset);
+          break;
+        case COUNTER:
+          long counter = state.counters.getAndIncrement(indexes[i]);
+          for (int j = sizes[i] - 1; j >= 0; j--) {
+            out[offset + j] = (byte) counter;
+            counter >>>= 8;
+          }
+          offset += sizes[i];
+          break;
+        default:
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          for (int j = 0; j < sizes[i]; j++) {
+            out[offset++] = (byte) random.nextInt(256);
+          }
+      }
+    }
+    return out;
+  }
+
+  /**
+   * (private)<br>
+   * Decodes the hexadecimal text of a group, without substring.
+   */
+  private static int decodeGroup(
+      String hexApdu, Matcher matcher, int group, byte[] out, int offset) {
+    int start = matcher.start(group);
+    if (start < 0) {
+      return offset;
+    }
+    int end = start + ((matcher.end(group) - start) & ~1);
+    for (int i = start; i < end; i += 2) {
+      out[offset++] =
+          (byte)
+              ((Character.digit(hexApdu.charAt(i), 16) << 4)
+                  | Character.digit(hexApdu.charAt(i + 1), 16));
+    }
+    return offset;
+  }
+
+  /**
+   * (private)<br>
+   * Parses the size of a counter or random placeholder.
+   */
+  private static int parseSize(String size) {
+    try {
+      int value = Integer.parseInt(size.trim());
+      if (value > 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw invalidTemplate("positive size expected instead of '" + size + "'");
+  }
+
+  /**
+   * (private)<br>
+   * Parses a group number, which must exist in the command pattern.
+   */
+  private int parseGroup(String group) {
+    if (commandPattern == null) {
+      throw invalidTemplate("group placeholder in the response of a literal command");
+    }
+    try {
+      int value = Integer.parseInt(group);
+      if (value >= 0 && value <= commandPattern.matcher("").groupCount()) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw invalidTemplate("unknown group '" + group + "' in command " + commandPattern);
+  }
+
+  /**
+   * (private)<br>
+   * Checks a variable or counter name.
+   */
+  private static void checkName(String name) {
+    if (name.isEmpty()) {
+      throw invalidTemplate("empty placeholder name");
+    }
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (!Character.isLetterOrDigit(c) && c != '_') {
+        throw invalidTemplate("invalid placeholder name '" + name + "'");
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Creates the exception reporting an invalid template.
+   */
+  private static IllegalArgumentException invalidTemplate(String reason) {
+    return new IllegalArgumentException("Invalid response template: " + reason);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public String toString() {
+    return response;
+  }
+
+  /**
+   * (package-private)<br>
+   * Names of the variables and counters referenced by the response templates of a card, or of a
+   * {@link StubCardTemplate}, resolved to indexes in the {@link CardState} of each card.
+   *
+   * @since 2.3.0
+   */
+  static final class Symbols {
+
+    private final Map<String, Integer> variableIndexes = new LinkedHashMap<>();
+    private final Map<String, Integer> counterIndexes = new LinkedHashMap<>();
+    private boolean isGroupReferenced;
+
+    /**
+     * (private)<br>
+     * Gets the index of a variable, registering it on first use.
+     */
+    private int getVariableIndex(String name) {
+      Integer index = variableIndexes.get(name);
+      if (index == null) {
+        index = variableIndexes.size();
+        variableIndexes.put(name, index);
+      }
+      return index;
+    }
+
+    /**
+     * (private)<br>
+     * Gets the index of a counter, registering it on first use.
+     */
+    private int getCounterIndex(String name) {
+      Integer index = counterIndexes.get(name);
+      if (index == null) {
+        index = counterIndexes.size();
+        counterIndexes.put(name, index);
+      }
+      return index;
+    }
+
+    /**
+     * (package-private)<br>
+     * Creates the state of a card from its variables.
+     *
+     * @param variables (non-nullable) the values of the variables of the card, by name
+     * @return Null if no response template references a variable, a counter or a group.
+     * @throws IllegalStateException If a referenced variable is not defined.
+     * @since 2.3.0
+     */
+    CardState createCardState(Map<String, byte[]> variables) {
+      if (variableIndexes.isEmpty() && counterIndexes.isEmpty() && !isGroupReferenced) {
+        return null;
+      }
+      byte[][] values = new byte[variableIndexes.size()][];
+      for (Map.Entry<String, Integer> variableIndex : variableIndexes.entrySet()) {
+        byte[] value = variables.get(variableIndex.getKey());
+        if (value == null) {
+          throw new IllegalStateException(
+              "Response template variable not defined: " + variableIndex.getKey());
+        }
+        values[variableIndex.getValue()] = value;
+      }
+      return new CardState(
+          values, new AtomicLongArray(counterIndexes.size()), isGroupReferenced);
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Variables and counters of a card, used to render its response templates.
+   *
+   * @since 2.3.0
+   */
+  static final class CardState {
+
+    private final byte[][] variables;
+    private final AtomicLongArray counters;
+    private final boolean isGroupReferenced;
+
+    /**
+     * (private)<br>
+     * Constructor.
+     */
+    private CardState(byte[][] variables, AtomicLongArray counters, boolean isGroupReferenced) {
+      this.variables = variables;
+      this.counters = counters;
+      this.isGroupReferenced = isGroupReferenced;
+    }
+
+    /**
+     * (package-private)<br>
+     * Creates the holder of the groups captured while matching an APDU.
+     *
+     * @return Null if no response template of the card references a group.
+     * @since 2.3.0
+     */
+    Groups newGroups() {
+      return isGroupReferenced ? new Groups() : null;
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Groups captured by the regular expression of the command matching an APDU, kept for the
+   * rendering of its response.
+   *
+   * @since 2.3.0
+   */
+  static final class Groups {
+
+    private String hexApdu;
+    private Matcher matcher;
+
+    /**
+     * (private)<br>
+     * Constructor.
+     */
+    private Groups() {}
+
+    /**
+     * (package-private)<br>
+     * Records a successful match.
+     *
+     * @param hexApdu (non-nullable) the hexadecimal APDU
+     * @param matcher (non-nullable) the matcher holding the groups of the APDU
+     * @since 2.3.0
+     */
+    void set(String hexApdu, Matcher matcher) {
+      this.hexApdu = hexApdu;
+      this.matcher = matcher;
+    }
+  }
+}
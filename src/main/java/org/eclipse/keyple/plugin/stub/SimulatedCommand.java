@@ -0,0 +1,362 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.eclipse.keyple.core.util.HexUtil;
+
+/**
+ * (package-private)<br>
+ * Simulated command/response pair of a {@link StubSmartCard}, with its command precompiled once.
+ *
+ * @since 2.3.0
+ */
+final class SimulatedCommand {
+
+  private final String command;
+  private final String response;
+  private final byte[] responseBytes;
+  private final ResponseTemplate responseTemplate;
+  private final byte[] commandBytes;
+  private final int priority;
+  private final int ordinal;
+  private final Pattern pattern;
+  private final String literalPrefix;
+
+  /**
+   * (package-private)<br>
+   * Creates a simulated command, decodes its response and precompiles its pattern if the command
+   * is not a plain literal.
+   *
+   * @param command (non-nullable) hexadecimal command or regular expression
+   * @param response (non-nullable) hexadecimal response
+   * @param priority match priority, higher values are tried first
+   * @param ordinal declaration rank of the command, used to break ties between equal priorities
+   * @since 2.3.0
+   */
+  SimulatedCommand(String command, String response, int priority, int ordinal) {
+    this(command, response, priority, ordinal, null);
+  }
+
+  /**
+   * (package-private)<br>
+   * Creates a simulated command whose response may be a {@link ResponseTemplate}, compiled once
+   * with the pattern of the command.
+   *
+   * @param command (non-nullable) hexadecimal command or regular expression
+   * @param response (non-nullable) hexadecimal response, with placeholders if symbols are provided
+   * @param priority match priority, higher values are tried first
+   * @param ordinal declaration rank of the command, used to break ties between equal priorities
+   * @param symbols (nullable) the symbols of the response templates of the card, null if the
+   *     response is a plain hexadecimal string
+   * @throws IllegalArgumentException If the response template is invalid.
+   * @since 2.3.0
+   */
+  SimulatedCommand(
+      String command,
+      String response,
+      int priority,
+      int ordinal,
+      ResponseTemplate.Symbols symbols) {
+    this.command = command;
+    this.response = response;
+    this.priority = priority;
+    this.ordinal = ordinal;
+    if (isLiteral(command)) {
+      this.pattern = null;
+      this.literalPrefix = command;
+      // APDUs are compared in uppercase hexadecimal, other literals can never match
+      this.commandBytes = isUppercaseHex(command) ? HexUtil.toByteArray(command) : null;
+    } else {
+      this.pattern = Pattern.compile(command);
+      this.literalPrefix = extractLiteralPrefix(command);
+      this.commandBytes = null;
+    }
+    if (symbols != null && ResponseTemplate.isTemplate(response)) {
+      this.responseTemplate = new ResponseTemplate(response, pattern, symbols);
+      this.responseBytes = null;
+    } else {
+      this.responseTemplate = null;
+      this.responseBytes = HexUtil.toByteArray(response);
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Creates the simulated commands of a card, in declaration order.
+   *
+   * @param hexCommands (non-nullable) the responses by command, in declaration order
+   * @param commandPriorities (non-nullable) the match priorities by command
+   * @param symbols (non-nullable) the symbols of the response templates of the card
+   * @return A new list, the ordinal of each command being its index.
+   * @throws IllegalArgumentException If a response template is invalid.
+   * @since 2.3.0
+   */
+  static List<SimulatedCommand> createAll(
+      Map<String, String> hexCommands,
+      Map<String, Integer> commandPriorities,
+      ResponseTemplate.Symbols symbols) {
+    List<SimulatedCommand> simulatedCommands = new ArrayList<>(hexCommands.size());
+    for (Map.Entry<String, String> hexCommand : hexCommands.entrySet()) {
+      simulatedCommands.add(
+          new SimulatedCommand(
+              hexCommand.getKey(),
+              hexCommand.getValue(),
+              commandPriorities.get(hexCommand.getKey()),
+              simulatedCommands.size(),
+              symbols));
+    }
+    return simulatedCommands;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the commands, as provided by the user, of simulated commands.
+   *
+   * @param simulatedCommands (non-nullable) the simulated commands, in ordinal order
+   * @return A new array indexed by ordinal.
+   * @since 2.3.0
+   */
+  static String[] getCommands(List<SimulatedCommand> simulatedCommands) {
+    String[] commands = new String[simulatedCommands.size()];
+    for (SimulatedCommand simulatedCommand : simulatedCommands) {
+      commands[simulatedCommand.ordinal] = simulatedCommand.command;
+    }
+    return commands;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the command as provided by the user.
+   *
+   * @return A not null String.
+   * @since 2.3.0
+   */
+  String getCommand() {
+    return command;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the hexadecimal response associated to the command.
+   *
+   * @return A not null String.
+   * @since 2.3.0
+   */
+  String getResponse() {
+    return response;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the response decoded once when the command is created.
+   *
+   * @return Null if the response is a template, otherwise an array shared by all the callers, that
+   *     must not be modified.
+   * @since 2.3.0
+   */
+  byte[] getResponseBytes() {
+    return responseBytes;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the compiled response template.
+   *
+   * @return Null if the response is a plain hexadecimal string.
+   * @since 2.3.0
+   */
+  ResponseTemplate getResponseTemplate() {
+    return responseTemplate;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the decoded command, for a literal command that APDUs can match.
+   *
+   * @return Null if the command is a regular expression or cannot match any APDU.
+   * @since 2.3.0
+   */
+  byte[] getCommandBytes() {
+    return commandBytes;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the match priority of the command.
+   *
+   * @return An int, higher values are tried first.
+   * @since 2.3.0
+   */
+  int getPriority() {
+    return priority;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the declaration rank of the command.
+   *
+   * @return A positive int.
+   * @since 2.3.0
+   */
+  int getOrdinal() {
+    return ordinal;
+  }
+
+  /**
+   * (package-private)<br>
+   * Indicates whether the command contains no regular expression construct and can therefore be
+   * matched by a simple string comparison.
+   *
+   * @return True if the command is a plain literal.
+   * @since 2.3.0
+   */
+  boolean isLiteral() {
+    return pattern == null;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the leading characters that any APDU matching this command must start with.
+   *
+   * @return A not null String, empty if the command starts with a regular expression construct.
+   * @since 2.3.0
+   */
+  String getLiteralPrefix() {
+    return literalPrefix;
+  }
+
+  /**
+   * (package-private)<br>
+   * Checks whether the provided hexadecimal APDU matches the command.
+   *
+   * @param hexApdu (non-nullable) uppercase hexadecimal APDU
+   * @return True if the APDU matches.
+   * @since 2.3.0
+   */
+  boolean matches(String hexApdu) {
+    return matches(hexApdu, null);
+  }
+
+  /**
+   * (package-private)<br>
+   * Checks whether the provided hexadecimal APDU matches the command, recording the captured
+   * groups on success.
+   *
+   * @param hexApdu (non-nullable) uppercase hexadecimal APDU
+   * @param groups (nullable) the holder of the captured groups, null if they are not needed
+   * @return True if the APDU matches.
+   * @since 2.3.0
+   */
+  boolean matches(String hexApdu, ResponseTemplate.Groups groups) {
+    if (pattern == null) {
+      return command.equals(hexApdu);
+    }
+    Matcher matcher = pattern.matcher(hexApdu);
+    if (!matcher.matches()) {
+      return false;
+    }
+    if (groups != null) {
+      groups.set(hexApdu, matcher);
+    }
+    return true;
+  }
+
+  /**
+   * (package-private)<br>
+   * Compares two commands by match order: highest priority first, then declaration order.
+   *
+   * @param other (non-nullable) the command to compare to
+   * @return A negative int if this command must be tried before the other one.
+   * @since 2.3.0
+   */
+  int compareMatchOrder(SimulatedCommand other) {
+    if (priority != other.priority) {
+      return priority > other.priority ? -1 : 1;
+    }
+    return ordinal < other.ordinal ? -1 : (ordinal == other.ordinal ? 0 : 1);
+  }
+
+  /**
+   * (private)<br>
+   * A command made only of letters and digits has no regular expression meaning.
+   */
+  private static boolean isLiteral(String command) {
+    for (int i = 0; i < command.length(); i++) {
+      if (!Character.isLetterOrDigit(command.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * (private)<br>
+   * Checks that the literal is an even-length uppercase hexadecimal string.
+   */
+  private static boolean isUppercaseHex(String command) {
+    if ((command.length() & 1) != 0) {
+      return false;
+    }
+    for (int i = 0; i < command.length(); i++) {
+      char c = command.charAt(i);
+      if ((c < '0' || c > '9') && (c < 'A' || c > 'F')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * (private)<br>
+   * Extracts the mandatory leading literal part of a regular expression. Characters followed by a
+   * quantifier are optional or repeated and end the prefix; any alternation disables the prefix.
+   */
+  private static String extractLiteralPrefix(String regex) {
+    if (regex.indexOf('|') >= 0) {
+      return "";
+    }
+    int end = 0;
+    while (end < regex.length() && Character.isLetterOrDigit(regex.charAt(end))) {
+      end++;
+    }
+    if (end < regex.length() && end > 0 && "?*+{".indexOf(regex.charAt(end)) >= 0) {
+      end--;
+    }
+    return regex.substring(0, end);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public String toString() {
+    return "SimulatedCommand{"
+        + "command='"
+        + command
+        + '\''
+        + ", response='"
+        + response
+        + '\''
+        + ", priority="
+        + priority
+        + ", ordinal="
+        + ordinal
+        + '}';
+  }
+}
@@ -0,0 +1,300 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.*;
+import org.eclipse.keyple.core.util.HexUtil;
+
+/**
+ * (package-private)<br>
+ * Matching engine of the simulated commands of a {@link StubSmartCard}.
+ *
+ * <p>The engine is built once from the declared commands:
+ *
+ * <ul>
+ *   <li>Plain literal commands are resolved with a single hash lookup on the raw APDU bytes,
+ *       without any allocation. The command returned for a literal is computed at build time,
+ *       taking into account the regular expressions that also match it.
+ *   <li>Regular expressions are precompiled and indexed by their literal CLA/INS prefix, so that
+ *       only the regular expressions sharing the CLA/INS of the APDU, plus those without a usable
+ *       prefix, are evaluated. The APDU is converted to hexadecimal only when a regular
+ *       expression has to be evaluated.
+ * </ul>
+ *
+ * When several commands match the same APDU, the one with the highest priority wins, then the one
+ * declared first. With {@link StubSmartCard.MatchingOrder#HIT_FREQUENCY}, regular expressions of
+ * equal priority are additionally reordered by hit count within each CLA/INS index entry: the
+ * outcome only depends on the sequence of processed APDUs and is therefore reproducible. The
+ * command returned for a literal is not reordered: it always follows priority then declaration
+ * order, and the hits resolved by the literal table are not counted.
+ *
+ * @since 2.3.0
+ */
+final class SimulatedCommandMatcher {
+
+  /** Number of hexadecimal characters of the CLA and INS bytes. */
+  private static final int HEADER_PREFIX_LENGTH = 4;
+
+  private static final Comparator<SimulatedCommand> MATCH_ORDER =
+      new Comparator<SimulatedCommand>() {
+        @Override
+        public int compare(SimulatedCommand c1, SimulatedCommand c2) {
+          return c1.compareMatchOrder(c2);
+        }
+      };
+
+  private final int size;
+  private final LiteralCommands literalCommands;
+  private final Map<String, Candidates> indexedCommands;
+  private final Candidates unindexedCommands;
+  private final boolean hasRegularExpressions;
+
+  /**
+   * (package-private)<br>
+   * Builds the engine from the declared commands.
+   *
+   * @param simulatedCommands (non-nullable) the declared commands
+   * @param matchingOrder (non-nullable) the ordering strategy of the candidate commands
+   * @since 2.3.0
+   */
+  SimulatedCommandMatcher(
+      Collection<SimulatedCommand> simulatedCommands, StubSmartCard.MatchingOrder matchingOrder) {
+    boolean trackHits = matchingOrder == StubSmartCard.MatchingOrder.HIT_FREQUENCY;
+    List<SimulatedCommand> literals = new ArrayList<>();
+    Map<String, List<SimulatedCommand>> indexed = new HashMap<>();
+    List<SimulatedCommand> unindexed = new ArrayList<>();
+    for (SimulatedCommand command : simulatedCommands) {
+      if (command.isLiteral()) {
+        literals.add(command);
+      } else if (command.getLiteralPrefix().length() >= HEADER_PREFIX_LENGTH) {
+        String key = command.getLiteralPrefix().substring(0, HEADER_PREFIX_LENGTH);
+        List<SimulatedCommand> bucket = indexed.get(key);
+        if (bucket == null) {
+          bucket = new ArrayList<>();
+          indexed.put(key, bucket);
+        }
+        bucket.add(command);
+      } else {
+        unindexed.add(command);
+      }
+    }
+    this.size = simulatedCommands.size();
+    this.hasRegularExpressions = literals.size() < size;
+    this.unindexedCommands = new Candidates(unindexed, trackHits);
+
+    // each bucket also holds the regular expressions without prefix
+    this.indexedCommands = new HashMap<>();
+    for (Map.Entry<String, List<SimulatedCommand>> entry : indexed.entrySet()) {
+      List<SimulatedCommand> bucket = entry.getValue();
+      bucket.addAll(unindexed);
+      indexedCommands.put(entry.getKey(), new Candidates(bucket, trackHits));
+    }
+
+    // a literal may also be matched by a regular expression tried before it, the winner being
+    // fixed here in priority then declaration order, whatever the matching order
+    this.literalCommands = new LiteralCommands(literals.size());
+    for (SimulatedCommand literal : literals) {
+      if (literal.getCommandBytes() == null) {
+        continue;
+      }
+      SimulatedCommand winner = literal;
+      for (SimulatedCommand candidate : getCandidates(literal.getCommand()).commands) {
+        if (candidate.compareMatchOrder(winner) < 0 && candidate.matches(literal.getCommand())) {
+          winner = candidate;
+        }
+      }
+      literalCommands.put(literal.getCommandBytes(), winner);
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the number of declared commands.
+   *
+   * @return A positive int.
+   * @since 2.3.0
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * (package-private)<br>
+   * Finds the command matching the provided APDU.
+   *
+   * @param apdu (non-nullable) the APDU
+   * @return Null if no command matches.
+   * @since 2.3.0
+   */
+  SimulatedCommand match(byte[] apdu) {
+    return match(apdu, null);
+  }
+
+  /**
+   * (package-private)<br>
+   * Finds the command matching the provided APDU, recording the groups captured by its regular
+   * expression.
+   *
+   * @param apdu (non-nullable) the APDU
+   * @param groups (nullable) the holder of the captured groups, null if they are not needed
+   * @return Null if no command matches.
+   * @since 2.3.0
+   */
+  SimulatedCommand match(byte[] apdu, ResponseTemplate.Groups groups) {
+    SimulatedCommand command = literalCommands.get(apdu);
+    if (command != null) {
+      if (groups != null && !command.isLiteral()) {
+        // a regular expression tried before a literal: only its groups remain to be captured
+        command.matches(HexUtil.toHex(apdu), groups);
+      }
+      return command;
+    }
+    if (!hasRegularExpressions) {
+      return null;
+    }
+    String hexApdu = HexUtil.toHex(apdu);
+    return getCandidates(hexApdu).match(hexApdu, groups);
+  }
+
+  /**
+   * (private)<br>
+   * Gets the regular expressions that may match the APDU.
+   */
+  private Candidates getCandidates(String hexApdu) {
+    if (hexApdu.length() >= HEADER_PREFIX_LENGTH) {
+      Candidates candidates = indexedCommands.get(hexApdu.substring(0, HEADER_PREFIX_LENGTH));
+      if (candidates != null) {
+        return candidates;
+      }
+    }
+    return unindexedCommands;
+  }
+
+  /**
+   * (private)<br>
+   * Ordered list of regular expressions sharing the same index entry.
+   */
+  private static final class Candidates {
+
+    private final SimulatedCommand[] commands;
+    private final long[] hits;
+
+    /**
+     * (private)<br>
+     * Sorts the commands by match order, hit counting is enabled only if the list is reordered.
+     */
+    private Candidates(List<SimulatedCommand> commands, boolean trackHits) {
+      this.commands = commands.toArray(new SimulatedCommand[0]);
+      Arrays.sort(this.commands, MATCH_ORDER);
+      this.hits = trackHits ? new long[this.commands.length] : null;
+    }
+
+    /**
+     * (private)<br>
+     * Returns the first matching command.
+     */
+    private SimulatedCommand match(String hexApdu, ResponseTemplate.Groups groups) {
+      if (hits == null) {
+        for (SimulatedCommand candidate : commands) {
+          if (candidate.matches(hexApdu, groups)) {
+            return candidate;
+          }
+        }
+        return null;
+      }
+      synchronized (this) {
+        for (int i = 0; i < commands.length; i++) {
+          SimulatedCommand candidate = commands[i];
+          if (candidate.matches(hexApdu, groups)) {
+            promote(i);
+            return candidate;
+          }
+        }
+        return null;
+      }
+    }
+
+    /**
+     * (private)<br>
+     * Counts a hit and moves the command ahead of the commands of the same priority that have
+     * fewer hits, keeping the list sorted by priority then hit count.
+     */
+    private void promote(int index) {
+      hits[index]++;
+      while (index > 0
+          && commands[index - 1].getPriority() == commands[index].getPriority()
+          && hits[index - 1] < hits[index]) {
+        SimulatedCommand command = commands[index - 1];
+        commands[index - 1] = commands[index];
+        commands[index] = command;
+        long count = hits[index - 1];
+        hits[index - 1] = hits[index];
+        hits[index] = count;
+        index--;
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Open addressing hash table of the literal commands, keyed by the decoded command, so that a
+   * raw APDU can be looked up without creating a key object.
+   */
+  private static final class LiteralCommands {
+
+    private final byte[][] keys;
+    private final SimulatedCommand[] values;
+    private final int mask;
+
+    /**
+     * (private)<br>
+     * Creates a table with a load factor of at most 0.5.
+     */
+    private LiteralCommands(int expectedSize) {
+      int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+      keys = new byte[capacity][];
+      values = new SimulatedCommand[capacity];
+      mask = capacity - 1;
+    }
+
+    /**
+     * (private)<br>
+     * Adds a command, or replaces the command associated to an equal key.
+     */
+    private void put(byte[] key, SimulatedCommand value) {
+      int index = indexOf(key);
+      keys[index] = key;
+      values[index] = value;
+    }
+
+    /**
+     * (private)<br>
+     * Returns the command associated to the key, or null.
+     */
+    private SimulatedCommand get(byte[] key) {
+      return values[indexOf(key)];
+    }
+
+    /**
+     * (private)<br>
+     * Returns the slot holding the key, or the free slot where it would be added.
+     */
+    private int indexOf(byte[] key) {
+      int hash = Arrays.hashCode(key);
+      int index = (hash ^ (hash >>> 16)) & mask;
+      while (keys[index] != null && !Arrays.equals(keys[index], key)) {
+        index = (index + 1) & mask;
+      }
+      return index;
+    }
+  }
+}
@@ -0,0 +1,277 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.eclipse.keyple.core.util.Assert;
+import org.eclipse.keyple.plugin.stub.spi.RawApduResponseProviderSpi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * APDU trace recorded with {@link StubApduTraceRecorder}, replayed as {@link StubSmartCard}.
+ *
+ * <p>The trace file is memory-mapped and only the offsets of the exchanges are kept on the heap, so
+ * that very large traces can be replayed. The mapping stays valid after the file is closed and is
+ * released by the garbage collector once the trace and its cards are no longer referenced.
+ *
+ * <p>Each card created by {@link #createCard()} replays the trace from its beginning: the N-th
+ * command received by the card must be equal to the N-th recorded command, the recorded response is
+ * then returned. A command that does not match the next recorded exchange, or any command received
+ * after the last exchange, is rejected like an unknown simulated command.
+ *
+ * <p>Instances are immutable and can be shared between threads.
+ *
+ * @since 2.3.0
+ */
+public final class StubApduTrace {
+
+  private static final Logger logger = LoggerFactory.getLogger(StubApduTrace.class);
+
+  /** Signature of a trace file. */
+  static final byte[] MAGIC = {'K', 'S', 'T', 'R'};
+
+  /** Version of the trace format. */
+  static final int VERSION = 1;
+
+  /** Maximum length of a command or response (extended APDU). */
+  static final int MAX_MESSAGE_LENGTH = 65545;
+
+  /** Size of the regions used to map the file, a mapping being limited to 2 GB. */
+  private static final int REGION_SHIFT = 30;
+
+  private static final long REGION_SIZE = 1L << REGION_SHIFT;
+
+  /** Extra bytes mapped after each region, so that an exchange never spans two regions. */
+  private static final long REGION_OVERLAP = 2L * (MAX_MESSAGE_LENGTH + 3);
+
+  private final ByteBuffer[] regions;
+  private final long[] exchangeOffsets;
+  private final byte[] powerOnData;
+  private final String cardProtocol;
+
+  /**
+   * (private)<br>
+   * Maps the file and indexes its exchanges.
+   */
+  private StubApduTrace(FileChannel fileChannel) throws IOException {
+    long fileSize = fileChannel.size();
+    int regionCount = (int) ((fileSize + REGION_SIZE - 1) >>> REGION_SHIFT);
+    this.regions = new ByteBuffer[Math.max(1, regionCount)];
+    regions[0] = ByteBuffer.allocate(0);
+    for (int i = 0; i < regionCount; i++) {
+      long start = (long) i << REGION_SHIFT;
+      regions[i] =
+          fileChannel.map(
+              FileChannel.MapMode.READ_ONLY,
+              start,
+              Math.min(REGION_SIZE + REGION_OVERLAP, fileSize - start));
+    }
+    long position = MAGIC.length + 1L;
+    if (fileSize < position
+        || !Arrays.equals(getBytes(0, MAGIC.length), MAGIC)
+        || getByte(MAGIC.length) != VERSION) {
+      throw new IOException("Invalid or unsupported APDU trace file");
+    }
+    long[] message = new long[2];
+    if (!readMessage(position, fileSize, message)) {
+      throw new IOException("Truncated APDU trace file header");
+    }
+    this.powerOnData = getBytes(message[0], (int) message[1]);
+    position = message[0] + message[1];
+    if (!readMessage(position, fileSize, message)) {
+      throw new IOException("Truncated APDU trace file header");
+    }
+    this.cardProtocol =
+        new String(getBytes(message[0], (int) message[1]), StandardCharsets.UTF_8);
+    position = message[0] + message[1];
+
+    long[] offsets = new long[1024];
+    int count = 0;
+    while (position < fileSize) {
+      if (!readMessage(position, fileSize, message)
+          || !readMessage(message[0] + message[1], fileSize, message)) {
+        // an interrupted recording leaves an incomplete last exchange
+        logger.warn("Incomplete exchange ignored at the end of the APDU trace file");
+        break;
+      }
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+      }
+      offsets[count++] = position;
+      position = message[0] + message[1];
+    }
+    this.exchangeOffsets = Arrays.copyOf(offsets, count);
+  }
+
+  /**
+   * Opens and indexes a trace file.
+   *
+   * @param traceFile (non-nullable) the trace file
+   * @return A not null reference.
+   * @throws IllegalArgumentException If the file is null.
+   * @throws IOException If the file cannot be read or is not a valid trace file.
+   * @since 2.3.0
+   */
+  public static StubApduTrace open(File traceFile) throws IOException {
+    Assert.getInstance().notNull(traceFile, "traceFile");
+    FileChannel fileChannel = FileChannel.open(traceFile.toPath(), StandardOpenOption.READ);
+    try {
+      return new StubApduTrace(fileChannel);
+    } finally {
+      fileChannel.close();
+    }
+  }
+
+  /**
+   * Gets the number of exchanges of the trace.
+   *
+   * @return A positive or zero int.
+   * @since 2.3.0
+   */
+  public int getExchangeCount() {
+    return exchangeOffsets.length;
+  }
+
+  /**
+   * Gets the power-on data of the recorded card.
+   *
+   * @return A not null array.
+   * @since 2.3.0
+   */
+  public byte[] getPowerOnData() {
+    return powerOnData.clone();
+  }
+
+  /**
+   * Gets the protocol of the recorded card.
+   *
+   * @return A not null String.
+   * @since 2.3.0
+   */
+  public String getCardProtocol() {
+    return cardProtocol;
+  }
+
+  /**
+   * Creates a card replaying the trace from its first exchange.
+   *
+   * @return A not null reference.
+   * @since 2.3.0
+   */
+  public StubSmartCard createCard() {
+    return StubSmartCard.builder()
+        .withPowerOnData(powerOnData.clone())
+        .withProtocol(cardProtocol)
+        .withRawApduResponseProvider(new ReplayProvider())
+        .build();
+  }
+
+  /**
+   * (private)<br>
+   * Reads the length prefix of the message at the given position.
+   *
+   * @param position position of the length prefix
+   * @param limit end of the file
+   * @param message receives the position and the length of the message content
+   * @return False if the message exceeds the limit.
+   */
+  private boolean readMessage(long position, long limit, long[] message) {
+    int length = 0;
+    int shift = 0;
+    int b;
+    do {
+      if (position >= limit || shift > 14) {
+        return false;
+      }
+      b = getByte(position++);
+      length |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    message[0] = position;
+    message[1] = length;
+    return length <= MAX_MESSAGE_LENGTH && position + length <= limit;
+  }
+
+  /**
+   * (private)<br>
+   * Gets the byte at the given position of the file.
+   */
+  private int getByte(long position) {
+    return regions[(int) (position >>> REGION_SHIFT)].get((int) (position & (REGION_SIZE - 1)))
+        & 0xFF;
+  }
+
+  /**
+   * (private)<br>
+   * Copies bytes of the file, the range being located within a single exchange.
+   */
+  private byte[] getBytes(long position, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer region = regions[(int) (position >>> REGION_SHIFT)].duplicate();
+    region.position((int) (position & (REGION_SIZE - 1)));
+    region.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * (private)<br>
+   * Response provider replaying the exchanges in order.
+   */
+  private final class ReplayProvider implements RawApduResponseProviderSpi {
+
+    private int nextExchange;
+    private final long[] message = new long[2];
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Exchanges are consumed one at a time, the position in the trace being the only state.
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public synchronized byte[] getResponseFromRequest(byte[] apduRequest) {
+      if (nextExchange >= exchangeOffsets.length) {
+        return null;
+      }
+      readMessage(exchangeOffsets[nextExchange], Long.MAX_VALUE, message);
+      if (message[1] != apduRequest.length || !matches(message[0], apduRequest)) {
+        return null;
+      }
+      readMessage(message[0] + message[1], Long.MAX_VALUE, message);
+      nextExchange++;
+      return getBytes(message[0], (int) message[1]);
+    }
+
+    /**
+     * (private)<br>
+     * Compares the recorded command with the request without copying it.
+     */
+    private boolean matches(long position, byte[] apduRequest) {
+      ByteBuffer region = regions[(int) (position >>> REGION_SHIFT)];
+      int start = (int) (position & (REGION_SIZE - 1));
+      for (int i = 0; i < apduRequest.length; i++) {
+        if (region.get(start + i) != apduRequest[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
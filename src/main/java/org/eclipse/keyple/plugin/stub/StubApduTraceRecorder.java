@@ -0,0 +1,137 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import org.eclipse.keyple.core.util.Assert;
+
+/**
+ * Records the APDU exchanges of a card session into a binary trace file, which can then be replayed
+ * as a {@link StubSmartCard} with {@link StubApduTrace}.
+ *
+ * <p>The recorder does not depend on any reader: the application calls {@link #record(byte[],
+ * byte[])} with each command sent to the card and the response received, for example from a
+ * wrapper around the reader of a live session.
+ *
+ * <p>The trace file starts with a header holding the power-on data and the protocol of the card,
+ * followed by one entry per exchange made of the length of the command, the command, the length of
+ * the response and the response. Lengths are encoded on 1 to 3 bytes (unsigned LEB128), so a short
+ * APDU exchange only costs 2 bytes of overhead.
+ *
+ * <p>Methods of this class are thread-safe.
+ *
+ * @since 2.3.0
+ */
+public final class StubApduTraceRecorder implements Closeable {
+
+  private final OutputStream outputStream;
+  private boolean isClosed;
+
+  /**
+   * (private)<br>
+   * Constructor.
+   */
+  private StubApduTraceRecorder(OutputStream outputStream) {
+    this.outputStream = outputStream;
+  }
+
+  /**
+   * Creates a trace file, replacing any existing file, and writes its header.
+   *
+   * @param traceFile (non-nullable) the file to create
+   * @param powerOnData (non-nullable) power-on data of the recorded card
+   * @param cardProtocol (non-nullable) protocol of the recorded card
+   * @return A not null reference.
+   * @throws IllegalArgumentException If a parameter is null.
+   * @throws IOException If the file cannot be written.
+   * @since 2.3.0
+   */
+  public static StubApduTraceRecorder create(
+      File traceFile, byte[] powerOnData, String cardProtocol) throws IOException {
+    Assert.getInstance()
+        .notNull(traceFile, "traceFile")
+        .notNull(powerOnData, "powerOnData")
+        .notNull(cardProtocol, "cardProtocol");
+    OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(traceFile), 65536);
+    try {
+      outputStream.write(StubApduTrace.MAGIC);
+      outputStream.write(StubApduTrace.VERSION);
+      writeMessage(outputStream, powerOnData);
+      writeMessage(outputStream, cardProtocol.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      outputStream.close();
+      throw e;
+    }
+    return new StubApduTraceRecorder(outputStream);
+  }
+
+  /**
+   * Appends an exchange to the trace.
+   *
+   * @param apduRequest (non-nullable) the command sent to the card
+   * @param apduResponse (non-nullable) the response of the card
+   * @throws IllegalArgumentException If a parameter is null or too long.
+   * @throws IllegalStateException If the recorder is closed.
+   * @throws IOException If the trace cannot be written.
+   * @since 2.3.0
+   */
+  public synchronized void record(byte[] apduRequest, byte[] apduResponse) throws IOException {
+    Assert.getInstance()
+        .notNull(apduRequest, "apduRequest")
+        .notNull(apduResponse, "apduResponse")
+        .isTrue(
+            apduRequest.length <= StubApduTrace.MAX_MESSAGE_LENGTH,
+            "apduRequest.length <= " + StubApduTrace.MAX_MESSAGE_LENGTH)
+        .isTrue(
+            apduResponse.length <= StubApduTrace.MAX_MESSAGE_LENGTH,
+            "apduResponse.length <= " + StubApduTrace.MAX_MESSAGE_LENGTH);
+    if (isClosed) {
+      throw new IllegalStateException("The trace recorder is closed");
+    }
+    writeMessage(outputStream, apduRequest);
+    writeMessage(outputStream, apduResponse);
+  }
+
+  /**
+   * Flushes the pending exchanges and closes the trace file.
+   *
+   * @throws IOException If the trace cannot be written.
+   * @since 2.3.0
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (!isClosed) {
+      isClosed = true;
+      outputStream.close();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Writes a length-prefixed message.
+   */
+  private static void writeMessage(OutputStream outputStream, byte[] message) throws IOException {
+    int length = message.length;
+    while (length >= 0x80) {
+      outputStream.write((length & 0x7F) | 0x80);
+      length >>>= 7;
+    }
+    outputStream.write(length);
+    outputStream.write(message);
+  }
+}
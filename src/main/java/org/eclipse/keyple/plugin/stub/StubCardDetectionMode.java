@@ -0,0 +1,37 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+/**
+ * Defines how the card insertions and removals of an observed {@link StubReader} are detected by
+ * the reader monitoring.
+ *
+ * @since 2.3.0
+ */
+public enum StubCardDetectionMode {
+
+  /**
+   * The monitoring thread periodically checks the presence of a card.
+   *
+   * @since 2.3.0
+   */
+  POLLING,
+
+  /**
+   * The monitoring thread is parked until {@link StubReader#insertCard(StubSmartCard)} or {@link
+   * StubReader#removeCard()} wakes it up. An idle observed reader uses no CPU and card events are
+   * detected immediately.
+   *
+   * @since 2.3.0
+   */
+  EVENT_DRIVEN
+}
@@ -0,0 +1,870 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Arrays;
+import org.eclipse.keyple.core.util.Assert;
+import org.eclipse.keyple.core.util.HexUtil;
+import org.eclipse.keyple.plugin.stub.spi.RawApduResponseProviderSpi;
+
+/**
+ * Stateful card simulation engine holding an in-memory file system, to be provided to a {@link
+ * StubSmartCard} with {@code withRawApduResponseProvider(...)}.
+ *
+ * <p>The file system is made of a master file (3F00), dedicated files (DF) optionally identified
+ * by a name (AID) and elementary files (EF) holding fixed-length records: linear files, cyclic
+ * files and counter files. A counter file holds 3-byte counters stored in its first record, as
+ * defined by Calypso.
+ *
+ * <p>The following short APDU commands are processed, all others being answered with 6D00:
+ *
+ * <ul>
+ *   <li>SELECT (A4) by file identifier (P1=00, 01, 02), parent DF (P1=03), DF name (P1=04) or path
+ *       from the MF (P1=08). A minimal FCP/FCI is returned unless P2 requests no response data.
+ *   <li>READ RECORD (B2) and UPDATE RECORD (DC) of the record P1 (P2 ending with 100b).
+ *   <li>APPEND RECORD (E2) to a cyclic file, the new record becoming record 1.
+ *   <li>INCREASE (32) and DECREASE (30) of the counter P1, returning the new value.
+ * </ul>
+ *
+ * In P2 of the record and counter commands, a short file identifier (SFI) selects the EF among the
+ * files of the current DF, the value 0 designating the current EF.
+ *
+ * <p>Files are found with a single hash or array lookup and records are stored contiguously in one
+ * byte array per file, so each command runs in constant time. An engine holds the state of a single
+ * card: a new engine must be built for each simulated card. Its methods are thread-safe.
+ *
+ * @since 2.3.0
+ */
+public final class StubCardEngine implements RawApduResponseProviderSpi {
+
+  private static final int INS_SELECT = 0xA4;
+  private static final int INS_READ_RECORD = 0xB2;
+  private static final int INS_UPDATE_RECORD = 0xDC;
+  private static final int INS_APPEND_RECORD = 0xE2;
+  private static final int INS_INCREASE = 0x32;
+  private static final int INS_DECREASE = 0x30;
+
+  private static final int SW_SUCCESS = 0x9000;
+  private static final int SW_COUNTER_OUT_OF_RANGE = 0x6400;
+  private static final int SW_WRONG_LENGTH = 0x6700;
+  private static final int SW_INCOMPATIBLE_FILE_STRUCTURE = 0x6981;
+  private static final int SW_NO_CURRENT_EF = 0x6986;
+  private static final int SW_FILE_NOT_FOUND = 0x6A82;
+  private static final int SW_RECORD_NOT_FOUND = 0x6A83;
+  private static final int SW_INCORRECT_P1_P2 = 0x6A86;
+  private static final int SW_INS_NOT_SUPPORTED = 0x6D00;
+
+  private static final int MF_FILE_ID = 0x3F00;
+  private static final int COUNTER_SIZE = 3;
+  private static final int COUNTER_MAX_VALUE = 0xFFFFFF;
+
+  private final DedicatedFile masterFile;
+  private final DfNameTable dedicatedFilesByName;
+  private DedicatedFile currentDf;
+  private ElementaryFile currentEf;
+
+  /**
+   * (private)<br>
+   * Constructor.
+   */
+  private StubCardEngine(DedicatedFile masterFile, DfNameTable filesByName) {
+    this.masterFile = masterFile;
+    this.dedicatedFilesByName = filesByName;
+    this.currentDf = masterFile;
+  }
+
+  /**
+   * Creates a builder of card engine, the master file being the current DF of the builder.
+   *
+   * @return A not null reference.
+   * @since 2.3.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Status words are returned for all the processing errors, this method never returns null.
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public synchronized byte[] getResponseFromRequest(byte[] apduRequest) {
+    if (apduRequest.length < 4) {
+      return statusWord(SW_WRONG_LENGTH);
+    }
+    // short APDUs only: case 1, case 2 (Le), case 3 (Lc + data) or case 4 (Lc + data + Le)
+    int dataLength = 0;
+    if (apduRequest.length > 5) {
+      dataLength = apduRequest[4] & 0xFF;
+      if (apduRequest.length != 5 + dataLength && apduRequest.length != 6 + dataLength) {
+        return statusWord(SW_WRONG_LENGTH);
+      }
+    }
+    int p1 = apduRequest[2] & 0xFF;
+    int p2 = apduRequest[3] & 0xFF;
+    switch (apduRequest[1] & 0xFF) {
+      case INS_SELECT:
+        return select(p1, p2, apduRequest, dataLength);
+      case INS_READ_RECORD:
+        return readRecord(p1, p2);
+      case INS_UPDATE_RECORD:
+        return updateRecord(p1, p2, apduRequest, dataLength);
+      case INS_APPEND_RECORD:
+        return appendRecord(p1, p2, apduRequest, dataLength);
+      case INS_INCREASE:
+        return changeCounter(p1, p2, apduRequest, dataLength, 1);
+      case INS_DECREASE:
+        return changeCounter(p1, p2, apduRequest, dataLength, -1);
+      default:
+        return statusWord(SW_INS_NOT_SUPPORTED);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Processes a SELECT command.
+   */
+  private byte[] select(int p1, int p2, byte[] apdu, int dataLength) {
+    Object file;
+    switch (p1) {
+      case 0x00:
+        file = dataLength == 0 ? masterFile : findByFileId(apdu, dataLength);
+        break;
+      case 0x01:
+      case 0x02:
+        file = dataLength == 2 ? currentDf.children.get(getShort(apdu, 5)) : null;
+        // P1=01 selects a child DF, P1=02 a child EF
+        if (file != null && (file instanceof DedicatedFile) != (p1 == 0x01)) {
+          file = null;
+        }
+        break;
+      case 0x03:
+        file = currentDf.parent;
+        break;
+      case 0x04:
+        // a case 1 or case 2 SELECT has no name to look for
+        file = dataLength == 0 ? null : dedicatedFilesByName.get(apdu, 5, dataLength);
+        break;
+      case 0x08:
+        file = findByPath(apdu, dataLength);
+        break;
+      default:
+        return statusWord(SW_INCORRECT_P1_P2);
+    }
+    if (file == null) {
+      return statusWord(SW_FILE_NOT_FOUND);
+    }
+    byte[] controlParameters;
+    if (file instanceof DedicatedFile) {
+      currentDf = (DedicatedFile) file;
+      currentEf = null;
+      controlParameters = currentDf.controlParameters;
+    } else {
+      currentEf = (ElementaryFile) file;
+      controlParameters = currentEf.controlParameters;
+    }
+    return (p2 & 0x0C) == 0x0C ? statusWord(SW_SUCCESS) : response(controlParameters);
+  }
+
+  /**
+   * (private)<br>
+   * Finds a file by identifier in the current DF, or the current DF, its parent or the MF.
+   */
+  private Object findByFileId(byte[] apdu, int dataLength) {
+    if (dataLength != 2) {
+      return null;
+    }
+    int fileId = getShort(apdu, 5);
+    Object file = currentDf.children.get(fileId);
+    if (file != null) {
+      return file;
+    }
+    if (fileId == currentDf.fileId) {
+      return currentDf;
+    }
+    if (fileId == MF_FILE_ID) {
+      return masterFile;
+    }
+    return currentDf.parent != null ? currentDf.parent.children.get(fileId) : null;
+  }
+
+  /**
+   * (private)<br>
+   * Finds a file by its path from the MF, the MF identifier being omitted.
+   */
+  private Object findByPath(byte[] apdu, int dataLength) {
+    if (dataLength == 0 || (dataLength & 1) != 0) {
+      return null;
+    }
+    Object file = masterFile;
+    for (int offset = 5; offset < 5 + dataLength; offset += 2) {
+      if (!(file instanceof DedicatedFile)) {
+        return null;
+      }
+      file = ((DedicatedFile) file).children.get(getShort(apdu, offset));
+    }
+    return file;
+  }
+
+  /**
+   * (private)<br>
+   * Processes a READ RECORD command.
+   */
+  private byte[] readRecord(int recordNumber, int p2) {
+    if ((p2 & 0x07) != 0x04) {
+      return statusWord(SW_INCORRECT_P1_P2);
+    }
+    int status = selectRecordFile(p2);
+    if (status != SW_SUCCESS) {
+      return statusWord(status);
+    }
+    int offset = currentEf.getRecordOffset(recordNumber);
+    if (offset < 0) {
+      return statusWord(SW_RECORD_NOT_FOUND);
+    }
+    byte[] response = new byte[currentEf.recordSize + 2];
+    System.arraycopy(currentEf.records, offset, response, 0, currentEf.recordSize);
+    setStatusWord(response, SW_SUCCESS);
+    return response;
+  }
+
+  /**
+   * (private)<br>
+   * Processes an UPDATE RECORD command, the end of the record being filled with zeros.
+   */
+  private byte[] updateRecord(int recordNumber, int p2, byte[] apdu, int dataLength) {
+    if ((p2 & 0x07) != 0x04) {
+      return statusWord(SW_INCORRECT_P1_P2);
+    }
+    int status = selectRecordFile(p2);
+    if (status != SW_SUCCESS) {
+      return statusWord(status);
+    }
+    if (currentEf.type == ElementaryFile.COUNTER) {
+      return statusWord(SW_INCOMPATIBLE_FILE_STRUCTURE);
+    }
+    int offset = currentEf.getRecordOffset(recordNumber);
+    if (offset < 0) {
+      return statusWord(SW_RECORD_NOT_FOUND);
+    }
+    if (dataLength == 0 || dataLength > currentEf.recordSize) {
+      return statusWord(SW_WRONG_LENGTH);
+    }
+    currentEf.writeRecord(offset, apdu, 5, dataLength);
+    return statusWord(SW_SUCCESS);
+  }
+
+  /**
+   * (private)<br>
+   * Processes an APPEND RECORD command, the oldest record of the cyclic file being replaced.
+   */
+  private byte[] appendRecord(int p1, int p2, byte[] apdu, int dataLength) {
+    if (p1 != 0 || (p2 & 0x07) != 0) {
+      return statusWord(SW_INCORRECT_P1_P2);
+    }
+    int status = selectRecordFile(p2);
+    if (status != SW_SUCCESS) {
+      return statusWord(status);
+    }
+    if (currentEf.type != ElementaryFile.CYCLIC) {
+      return statusWord(SW_INCOMPATIBLE_FILE_STRUCTURE);
+    }
+    if (dataLength == 0 || dataLength > currentEf.recordSize) {
+      return statusWord(SW_WRONG_LENGTH);
+    }
+    currentEf.firstRecord =
+        (currentEf.firstRecord + currentEf.recordCount - 1) % currentEf.recordCount;
+    currentEf.writeRecord(currentEf.getRecordOffset(1), apdu, 5, dataLength);
+    return statusWord(SW_SUCCESS);
+  }
+
+  /**
+   * (private)<br>
+   * Processes an INCREASE or DECREASE command.
+   */
+  private byte[] changeCounter(int counterNumber, int p2, byte[] apdu, int dataLength, int sign) {
+    if ((p2 & 0x07) != 0) {
+      return statusWord(SW_INCORRECT_P1_P2);
+    }
+    int status = selectRecordFile(p2);
+    if (status != SW_SUCCESS) {
+      return statusWord(status);
+    }
+    if (currentEf.type != ElementaryFile.COUNTER) {
+      return statusWord(SW_INCOMPATIBLE_FILE_STRUCTURE);
+    }
+    if (counterNumber < 1 || counterNumber * COUNTER_SIZE > currentEf.recordSize) {
+      return statusWord(SW_RECORD_NOT_FOUND);
+    }
+    if (dataLength != COUNTER_SIZE) {
+      return statusWord(SW_WRONG_LENGTH);
+    }
+    int offset = (counterNumber - 1) * COUNTER_SIZE;
+    int value = getCounter(currentEf.records, offset) + sign * getCounter(apdu, 5);
+    if (value < 0 || value > COUNTER_MAX_VALUE) {
+      return statusWord(SW_COUNTER_OUT_OF_RANGE);
+    }
+    setCounter(currentEf.records, offset, value);
+    byte[] response = new byte[COUNTER_SIZE + 2];
+    setCounter(response, 0, value);
+    setStatusWord(response, SW_SUCCESS);
+    return response;
+  }
+
+  /**
+   * (private)<br>
+   * Makes the EF referenced by the SFI of P2 the current EF.
+   *
+   * @return The status word, 9000 if the current EF is set.
+   */
+  private int selectRecordFile(int p2) {
+    int sfi = p2 >>> 3;
+    if (sfi == 0) {
+      return currentEf != null ? SW_SUCCESS : SW_NO_CURRENT_EF;
+    }
+    ElementaryFile file = currentDf.filesBySfi[sfi];
+    if (file == null) {
+      return SW_FILE_NOT_FOUND;
+    }
+    currentEf = file;
+    return SW_SUCCESS;
+  }
+
+  /**
+   * (private)<br>
+   * Builds a response made of the provided data followed by 9000.
+   */
+  private static byte[] response(byte[] data) {
+    byte[] response = new byte[data.length + 2];
+    System.arraycopy(data, 0, response, 0, data.length);
+    setStatusWord(response, SW_SUCCESS);
+    return response;
+  }
+
+  private static byte[] statusWord(int statusWord) {
+    byte[] response = new byte[2];
+    setStatusWord(response, statusWord);
+    return response;
+  }
+
+  private static void setStatusWord(byte[] response, int statusWord) {
+    response[response.length - 2] = (byte) (statusWord >>> 8);
+    response[response.length - 1] = (byte) statusWord;
+  }
+
+  private static int getShort(byte[] bytes, int offset) {
+    return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+  }
+
+  private static int getCounter(byte[] bytes, int offset) {
+    return ((bytes[offset] & 0xFF) << 16)
+        | ((bytes[offset + 1] & 0xFF) << 8)
+        | (bytes[offset + 2] & 0xFF);
+  }
+
+  private static void setCounter(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 16);
+    bytes[offset + 1] = (byte) (value >>> 8);
+    bytes[offset + 2] = (byte) value;
+  }
+
+  /**
+   * (private)<br>
+   * Dedicated file: its children are indexed by file identifier and its EF by SFI.
+   */
+  private static final class DedicatedFile {
+
+    private final int fileId;
+    private final DedicatedFile parent;
+    private final FileIdTable children = new FileIdTable();
+    private final ElementaryFile[] filesBySfi = new ElementaryFile[32];
+    private byte[] controlParameters;
+
+    private DedicatedFile(int fileId, DedicatedFile parent) {
+      this.fileId = fileId;
+      this.parent = parent;
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Elementary file: fixed-length records stored contiguously.
+   */
+  private static final class ElementaryFile {
+
+    private static final int LINEAR = 0x02;
+    private static final int CYCLIC = 0x06;
+    private static final int COUNTER = 0x12;
+
+    private final int type;
+    private final int recordSize;
+    private final int recordCount;
+    private final byte[] records;
+    private final byte[] controlParameters;
+    // physical index of the record 1, only moved by APPEND RECORD in cyclic files
+    private int firstRecord;
+
+    private ElementaryFile(int type, int fileId, int sfi, int recordSize, int recordCount) {
+      this.type = type;
+      this.recordSize = recordSize;
+      this.recordCount = recordCount;
+      this.records = new byte[recordSize * recordCount];
+      // FCP: file descriptor (structure, record size, record count), file identifier and SFI
+      this.controlParameters = new byte[16];
+      int i = 0;
+      controlParameters[i++] = 0x62;
+      controlParameters[i++] = 0x0E;
+      controlParameters[i++] = (byte) 0x82;
+      controlParameters[i++] = 0x05;
+      controlParameters[i++] = (byte) (type == COUNTER ? LINEAR : type);
+      controlParameters[i++] = 0x21;
+      controlParameters[i++] = 0x00;
+      controlParameters[i++] = (byte) recordSize;
+      controlParameters[i++] = (byte) recordCount;
+      controlParameters[i++] = (byte) 0x83;
+      controlParameters[i++] = 0x02;
+      controlParameters[i++] = (byte) (fileId >>> 8);
+      controlParameters[i++] = (byte) fileId;
+      controlParameters[i++] = (byte) 0x88;
+      controlParameters[i++] = 0x01;
+      controlParameters[i] = (byte) (sfi << 3);
+    }
+
+    /**
+     * (private)<br>
+     * Gets the offset of a record in the record array.
+     *
+     * @return -1 if the record does not exist.
+     */
+    private int getRecordOffset(int recordNumber) {
+      if (recordNumber < 1 || recordNumber > recordCount) {
+        return -1;
+      }
+      return ((firstRecord + recordNumber - 1) % recordCount) * recordSize;
+    }
+
+    /**
+     * (private)<br>
+     * Replaces the content of a record, the end of the record being filled with zeros.
+     */
+    private void writeRecord(int offset, byte[] data, int dataOffset, int dataLength) {
+      System.arraycopy(data, dataOffset, records, offset, dataLength);
+      for (int i = offset + dataLength; i < offset + recordSize; i++) {
+        records[i] = 0;
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Open addressing hash table of the children of a DF, keyed by file identifier without boxing.
+   */
+  private static final class FileIdTable {
+
+    private static final int NO_FILE_ID = -1;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    private FileIdTable() {
+      keys = new int[8];
+      Arrays.fill(keys, NO_FILE_ID);
+      values = new Object[8];
+    }
+
+    /**
+     * (private)<br>
+     * Returns the file having the identifier, or null.
+     */
+    private Object get(int fileId) {
+      return values[indexOf(keys, fileId)];
+    }
+
+    /**
+     * (private)<br>
+     * Adds a file, the table being grown to keep a load factor of at most 0.5.
+     */
+    private void put(int fileId, Object file) {
+      if (2 * (size + 1) > keys.length) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        Arrays.fill(keys, NO_FILE_ID);
+        values = new Object[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+          if (oldKeys[i] != NO_FILE_ID) {
+            int index = indexOf(keys, oldKeys[i]);
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+          }
+        }
+      }
+      int index = indexOf(keys, fileId);
+      if (keys[index] == NO_FILE_ID) {
+        size++;
+      }
+      keys[index] = fileId;
+      values[index] = file;
+    }
+
+    /**
+     * (private)<br>
+     * Returns the slot holding the identifier, or the free slot where it would be added.
+     */
+    private static int indexOf(int[] keys, int fileId) {
+      int mask = keys.length - 1;
+      int index = (fileId * 0x9E3779B9 >>> 16) & mask;
+      while (keys[index] != NO_FILE_ID && keys[index] != fileId) {
+        index = (index + 1) & mask;
+      }
+      return index;
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Open addressing hash table of the DF names, looked up on a range of the APDU without creating a
+   * key object.
+   */
+  private static final class DfNameTable {
+
+    private byte[][] keys;
+    private DedicatedFile[] values;
+    private int size;
+
+    private DfNameTable() {
+      keys = new byte[8][];
+      values = new DedicatedFile[8];
+    }
+
+    /**
+     * (private)<br>
+     * Returns the DF whose name is the provided range of bytes, or null.
+     */
+    private DedicatedFile get(byte[] bytes, int offset, int length) {
+      return values[indexOf(keys, bytes, offset, length)];
+    }
+
+    /**
+     * (private)<br>
+     * Adds a DF, the table being grown to keep a load factor of at most 0.5.
+     */
+    private void put(byte[] name, DedicatedFile dedicatedFile) {
+      if (2 * (size + 1) > keys.length) {
+        byte[][] oldKeys = keys;
+        DedicatedFile[] oldValues = values;
+        keys = new byte[oldKeys.length * 2][];
+        values = new DedicatedFile[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+          if (oldKeys[i] != null) {
+            int index = indexOf(keys, oldKeys[i], 0, oldKeys[i].length);
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+          }
+        }
+      }
+      int index = indexOf(keys, name, 0, name.length);
+      if (keys[index] == null) {
+        size++;
+      }
+      keys[index] = name;
+      values[index] = dedicatedFile;
+    }
+
+    /**
+     * (private)<br>
+     * Returns the slot holding the name, or the free slot where it would be added.
+     */
+    private static int indexOf(byte[][] keys, byte[] bytes, int offset, int length) {
+      int hash = 1;
+      for (int i = offset; i < offset + length; i++) {
+        hash = 31 * hash + bytes[i];
+      }
+      int mask = keys.length - 1;
+      int index = (hash ^ (hash >>> 16)) & mask;
+      while (keys[index] != null && !equals(keys[index], bytes, offset, length)) {
+        index = (index + 1) & mask;
+      }
+      return index;
+    }
+
+    /**
+     * (private)<br>
+     * Compares a name with a range of bytes.
+     */
+    private static boolean equals(byte[] name, byte[] bytes, int offset, int length) {
+      if (name.length != length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (name[i] != bytes[offset + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Builder of {@link StubCardEngine}.
+   *
+   * <p>Files are created in the current DF of the builder, which is initially the MF. The last
+   * created EF is the target of the record and counter values.
+   *
+   * @since 2.3.0
+   */
+  public static final class Builder {
+
+    private final DedicatedFile masterFile;
+    private final DfNameTable dedicatedFilesByName;
+    private DedicatedFile currentDf;
+    private ElementaryFile currentEf;
+    private boolean isBuilt;
+
+    /**
+     * (private)<br>
+     * Constructor.
+     */
+    private Builder() {
+      masterFile = new DedicatedFile(MF_FILE_ID, null);
+      masterFile.controlParameters = buildDfControlParameters(MF_FILE_ID, null);
+      dedicatedFilesByName = new DfNameTable();
+      currentDf = masterFile;
+    }
+
+    /**
+     * Creates a DF in the current DF and makes it the current DF.
+     *
+     * @param fileId file identifier, in range [0..FFFFh]
+     * @param name (nullable) hexadecimal DF name (AID), null if the DF cannot be selected by name
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is invalid or the file identifier is already
+     *     used in the current DF.
+     * @since 2.3.0
+     */
+    public Builder withDedicatedFile(int fileId, String name) {
+      checkFileId(fileId);
+      byte[] dfName = null;
+      if (name != null) {
+        Assert.getInstance().isHexString(name, "name");
+        dfName = HexUtil.toByteArray(name);
+        Assert.getInstance()
+            .isInRange(dfName.length, 1, 16, "name length")
+            .isTrue(
+                dedicatedFilesByName.get(dfName, 0, dfName.length) == null, "name not used");
+      }
+      DedicatedFile dedicatedFile = new DedicatedFile(fileId, currentDf);
+      dedicatedFile.controlParameters = buildDfControlParameters(fileId, dfName);
+      currentDf.children.put(fileId, dedicatedFile);
+      if (dfName != null) {
+        dedicatedFilesByName.put(dfName, dedicatedFile);
+      }
+      currentDf = dedicatedFile;
+      currentEf = null;
+      return this;
+    }
+
+    /**
+     * Makes the parent of the current DF the current DF.
+     *
+     * @return The builder instance.
+     * @throws IllegalStateException If the current DF is the MF.
+     * @since 2.3.0
+     */
+    public Builder endDedicatedFile() {
+      if (currentDf.parent == null) {
+        throw new IllegalStateException("The master file has no parent");
+      }
+      currentDf = currentDf.parent;
+      currentEf = null;
+      return this;
+    }
+
+    /**
+     * Creates a linear EF with fixed-length records, initially filled with zeros.
+     *
+     * @param fileId file identifier, in range [0..FFFFh]
+     * @param sfi short file identifier, in range [1..30], or 0 if the EF has no SFI
+     * @param recordSize size of the records, in range [1..250]
+     * @param recordCount number of records, in range [1..254]
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range or already used.
+     * @since 2.3.0
+     */
+    public Builder withLinearFile(int fileId, int sfi, int recordSize, int recordCount) {
+      return withElementaryFile(ElementaryFile.LINEAR, fileId, sfi, recordSize, recordCount);
+    }
+
+    /**
+     * Creates a cyclic EF with fixed-length records, initially filled with zeros. APPEND RECORD
+     * replaces the oldest record, the appended record becoming record 1.
+     *
+     * @param fileId file identifier, in range [0..FFFFh]
+     * @param sfi short file identifier, in range [1..30], or 0 if the EF has no SFI
+     * @param recordSize size of the records, in range [1..250]
+     * @param recordCount number of records, in range [1..254]
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range or already used.
+     * @since 2.3.0
+     */
+    public Builder withCyclicFile(int fileId, int sfi, int recordSize, int recordCount) {
+      return withElementaryFile(ElementaryFile.CYCLIC, fileId, sfi, recordSize, recordCount);
+    }
+
+    /**
+     * Creates a counter EF holding 3-byte counters in its single record, initially set to 0.
+     *
+     * @param fileId file identifier, in range [0..FFFFh]
+     * @param sfi short file identifier, in range [1..30], or 0 if the EF has no SFI
+     * @param counterCount number of counters, in range [1..83]
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range or already used.
+     * @since 2.3.0
+     */
+    public Builder withCounterFile(int fileId, int sfi, int counterCount) {
+      Assert.getInstance().isInRange(counterCount, 1, 250 / COUNTER_SIZE, "counterCount");
+      return withElementaryFile(
+          ElementaryFile.COUNTER, fileId, sfi, counterCount * COUNTER_SIZE, 1);
+    }
+
+    /**
+     * Sets the content of a record of the last created EF, the end of the record being filled
+     * with zeros.
+     *
+     * @param recordNumber number of the record, in range [1..record count]
+     * @param data (non-nullable) hexadecimal content, not longer than the record size
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is invalid.
+     * @throws IllegalStateException If no EF has been created in the current DF.
+     * @since 2.3.0
+     */
+    public Builder withRecord(int recordNumber, String data) {
+      checkCurrentEf();
+      Assert.getInstance()
+          .isInRange(recordNumber, 1, currentEf.recordCount, "recordNumber")
+          .notNull(data, "data")
+          .isHexString(data, "data");
+      byte[] content = HexUtil.toByteArray(data);
+      Assert.getInstance().isInRange(content.length, 0, currentEf.recordSize, "data length");
+      currentEf.writeRecord(currentEf.getRecordOffset(recordNumber), content, 0, content.length);
+      return this;
+    }
+
+    /**
+     * Sets the value of a counter of the last created EF, which must be a counter file.
+     *
+     * @param counterNumber number of the counter, in range [1..counter count]
+     * @param value value of the counter, in range [0..FFFFFFh]
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range.
+     * @throws IllegalStateException If the last created EF is not a counter file.
+     * @since 2.3.0
+     */
+    public Builder withCounter(int counterNumber, int value) {
+      checkCurrentEf();
+      if (currentEf.type != ElementaryFile.COUNTER) {
+        throw new IllegalStateException("The last created EF is not a counter file");
+      }
+      Assert.getInstance()
+          .isInRange(counterNumber, 1, currentEf.recordSize / COUNTER_SIZE, "counterNumber")
+          .isInRange(value, 0, COUNTER_MAX_VALUE, "value");
+      setCounter(currentEf.records, (counterNumber - 1) * COUNTER_SIZE, value);
+      return this;
+    }
+
+    /**
+     * Builds the card engine. The builder cannot be used anymore afterwards, since the engine takes
+     * ownership of the files.
+     *
+     * @return A not null reference.
+     * @throws IllegalStateException If the engine has already been built.
+     * @since 2.3.0
+     */
+    public StubCardEngine build() {
+      checkNotBuilt();
+      isBuilt = true;
+      return new StubCardEngine(masterFile, dedicatedFilesByName);
+    }
+
+    /**
+     * (private)<br>
+     * Creates an EF in the current DF.
+     */
+    private Builder withElementaryFile(
+        int type, int fileId, int sfi, int recordSize, int recordCount) {
+      checkFileId(fileId);
+      Assert.getInstance()
+          .isInRange(sfi, 0, 30, "sfi")
+          .isInRange(recordSize, 1, 250, "recordSize")
+          .isInRange(recordCount, 1, 254, "recordCount")
+          .isTrue(sfi == 0 || currentDf.filesBySfi[sfi] == null, "sfi not used");
+      ElementaryFile elementaryFile =
+          new ElementaryFile(type, fileId, sfi, recordSize, recordCount);
+      currentDf.children.put(fileId, elementaryFile);
+      if (sfi != 0) {
+        currentDf.filesBySfi[sfi] = elementaryFile;
+      }
+      currentEf = elementaryFile;
+      return this;
+    }
+
+    private void checkNotBuilt() {
+      if (isBuilt) {
+        throw new IllegalStateException("The card engine has already been built");
+      }
+    }
+
+    private void checkFileId(int fileId) {
+      checkNotBuilt();
+      Assert.getInstance()
+          .isInRange(fileId, 0, 0xFFFF, "fileId")
+          .isTrue(fileId != MF_FILE_ID, "fileId != 3F00")
+          .isTrue(currentDf.children.get(fileId) == null, "fileId not used");
+    }
+
+    private void checkCurrentEf() {
+      checkNotBuilt();
+      if (currentEf == null) {
+        throw new IllegalStateException("No EF has been created in the current DF");
+      }
+    }
+
+    /**
+     * (private)<br>
+     * Builds the FCP of a DF: file descriptor, file identifier and optional DF name.
+     */
+    private static byte[] buildDfControlParameters(int fileId, byte[] name) {
+      int nameLength = name != null ? name.length + 2 : 0;
+      byte[] fcp = new byte[9 + nameLength];
+      int i = 0;
+      fcp[i++] = 0x62;
+      fcp[i++] = (byte) (7 + nameLength);
+      fcp[i++] = (byte) 0x82;
+      fcp[i++] = 0x01;
+      fcp[i++] = 0x38;
+      fcp[i++] = (byte) 0x83;
+      fcp[i++] = 0x02;
+      fcp[i++] = (byte) (fileId >>> 8);
+      fcp[i++] = (byte) fileId;
+      if (name != null) {
+        fcp[i++] = (byte) 0x84;
+        fcp[i++] = (byte) name.length;
+        System.arraycopy(name, 0, fcp, i, name.length);
+      }
+      return fcp;
+    }
+  }
+}
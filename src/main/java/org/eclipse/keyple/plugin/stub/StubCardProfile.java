@@ -0,0 +1,193 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+/**
+ * Description of a {@link StubSmartCard} read from a card profile file by {@link
+ * StubCardProfileLoader}: power-on data, protocol and simulated commands.
+ *
+ * <p>Instances are immutable and can be shared between threads; each call to {@link #createCard()}
+ * creates a new card. The simulated commands are compiled once, on the first card creation, into a
+ * {@link StubCardTemplate} shared by all the cards of the profile.
+ *
+ * @since 2.3.0
+ */
+public final class StubCardProfile {
+
+  private final String name;
+  private final byte[] powerOnData;
+  private final String cardProtocol;
+  private final String[] commands;
+  private final String[] responses;
+  private final int[] priorities;
+  private volatile StubCardTemplate template;
+
+  /**
+   * (package-private)<br>
+   * Creates a profile.
+   *
+   * @param name (non-nullable) name of the profile
+   * @param powerOnData (non-nullable) power-on data, owned by the profile
+   * @param cardProtocol (non-nullable) card protocol
+   * @param commands (non-nullable) hexadecimal commands or regular expressions, in declaration
+   *     order
+   * @param responses (non-nullable) hexadecimal responses, in the order of the commands
+   * @param priorities (non-nullable) match priorities, in the order of the commands
+   * @since 2.3.0
+   */
+  StubCardProfile(
+      String name,
+      byte[] powerOnData,
+      String cardProtocol,
+      String[] commands,
+      String[] responses,
+      int[] priorities) {
+    this.name = name;
+    this.powerOnData = powerOnData;
+    this.cardProtocol = cardProtocol;
+    this.commands = commands;
+    this.responses = responses;
+    this.priorities = priorities;
+  }
+
+  /**
+   * Gets the name of the profile, unique within its file.
+   *
+   * @return A not empty String.
+   * @since 2.3.0
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the power-on data of the card.
+   *
+   * @return A new array.
+   * @since 2.3.0
+   */
+  public byte[] getPowerOnData() {
+    return powerOnData.clone();
+  }
+
+  /**
+   * Gets the protocol of the card.
+   *
+   * @return A not empty String.
+   * @since 2.3.0
+   */
+  public String getCardProtocol() {
+    return cardProtocol;
+  }
+
+  /**
+   * Gets the number of simulated commands of the card.
+   *
+   * @return A positive int.
+   * @since 2.3.0
+   */
+  public int getSimulatedCommandCount() {
+    return commands.length;
+  }
+
+  /**
+   * Creates a new card from the profile, sharing the compiled simulated commands of the profile.
+   *
+   * @return A not null reference.
+   * @since 2.3.0
+   */
+  public StubSmartCard createCard() {
+    return StubSmartCard.builder()
+        .withPowerOnData(powerOnData)
+        .withProtocol(cardProtocol)
+        .withTemplate(getTemplate())
+        .build();
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the template of the cards of the profile, compiling the simulated commands in
+   * declaration order on first use.
+   *
+   * @return A not null reference, the same for each call.
+   * @since 2.3.0
+   */
+  StubCardTemplate getTemplate() {
+    StubCardTemplate cardTemplate = template;
+    if (cardTemplate == null) {
+      synchronized (this) {
+        cardTemplate = template;
+        if (cardTemplate == null) {
+          StubCardTemplate.Builder builder = StubCardTemplate.builder();
+          for (int i = 0; i < commands.length; i++) {
+            builder.withSimulatedCommand(commands[i], responses[i], priorities[i]);
+          }
+          cardTemplate = builder.build();
+          template = cardTemplate;
+        }
+      }
+    }
+    return cardTemplate;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the commands, without copy.
+   *
+   * @return A not null array.
+   * @since 2.3.0
+   */
+  String[] getCommands() {
+    return commands;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the responses, without copy.
+   *
+   * @return A not null array.
+   * @since 2.3.0
+   */
+  String[] getResponses() {
+    return responses;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the priorities, without copy.
+   *
+   * @return A not null array.
+   * @since 2.3.0
+   */
+  int[] getPriorities() {
+    return priorities;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public String toString() {
+    return "StubCardProfile{"
+        + "name='"
+        + name
+        + '\''
+        + ", cardProtocol='"
+        + cardProtocol
+        + '\''
+        + ", simulatedCommands(#)="
+        + commands.length
+        + '}';
+  }
+}
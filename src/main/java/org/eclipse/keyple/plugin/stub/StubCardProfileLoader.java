@@ -0,0 +1,429 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
+import org.eclipse.keyple.core.util.Assert;
+import org.eclipse.keyple.core.util.HexUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads {@link StubCardProfile} from card profile files, optionally through a binary cache.
+ *
+ * <p>A card profile file is a UTF-8 text file describing any number of cards, each one starting
+ * with its name between square brackets, followed by its power-on data, its protocol and its
+ * simulated commands, one per line:
+ *
+ * <pre>
+ * # comment
+ * [calypso-prime]
+ * powerOnData = 3B8880010000000000718100F9
+ * protocol = ISO_14443_4_CARD
+ * 00A4040005AABBCCDDEE00 = 6F108408315449432E494341A5048702FF00 9000
+ * 00B2.* = 6A83 @5
+ * </pre>
+ *
+ * <p>A simulated command line associates a hexadecimal command or a regular expression to a
+ * hexadecimal response, optionally followed by a match priority after an {@code @}. The response is
+ * separated from the command by the last {@code =} of the line and may contain spaces, which are
+ * ignored. Blank lines and lines starting with {@code #} are ignored.
+ *
+ * <p>The binary cache holds the profiles of a file in a length-prefixed form which is read
+ * sequentially without any parsing, and is rebuilt automatically when the content of the profile
+ * file changes: it is stamped with the size and the CRC32 of the file, so that checking it costs a
+ * streaming read of the file, without parsing it.
+ *
+ * @since 2.3.0
+ */
+public final class StubCardProfileLoader {
+
+  private static final Logger logger = LoggerFactory.getLogger(StubCardProfileLoader.class);
+
+  /** Signature of a cache file. */
+  static final byte[] MAGIC = {'K', 'S', 'C', 'P'};
+
+  /** Version of the cache format. */
+  static final int VERSION = 2;
+
+  private static final String POWER_ON_DATA_KEY = "powerOnData";
+  private static final String PROTOCOL_KEY = "protocol";
+
+  /**
+   * (private)<br>
+   * Constructor.
+   */
+  private StubCardProfileLoader() {}
+
+  /**
+   * Reads all the profiles of a card profile file.
+   *
+   * @param profileFile (non-nullable) the card profile file
+   * @return A new list of the profiles, in file order.
+   * @throws IllegalArgumentException If the file is null.
+   * @throws IOException If the file cannot be read or is not a valid card profile file.
+   * @since 2.3.0
+   */
+  public static List<StubCardProfile> readProfiles(File profileFile) throws IOException {
+    Assert.getInstance().notNull(profileFile, "profileFile");
+    return readProfiles(profileFile, null);
+  }
+
+  /**
+   * (private)<br>
+   * Reads all the profiles of a card profile file, updating the provided checksum, if any, with
+   * the content of the file.
+   */
+  private static List<StubCardProfile> readProfiles(File profileFile, Checksum checksum)
+      throws IOException {
+    InputStream input = new FileInputStream(profileFile);
+    if (checksum != null) {
+      input = new CheckedInputStream(input, checksum);
+    }
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 65536);
+    try {
+      return parseProfiles(reader);
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Computes the CRC32 of the content of a file.
+   */
+  private static long computeChecksum(File file) throws IOException {
+    CheckedInputStream input = new CheckedInputStream(new FileInputStream(file), new CRC32());
+    try {
+      byte[] buffer = new byte[65536];
+      while (input.read(buffer) != -1) {
+        // the checksum is updated by the stream
+      }
+      return input.getChecksum().getValue();
+    } finally {
+      input.close();
+    }
+  }
+
+  /**
+   * Reads all the profiles of a card profile file from its binary cache if it is up to date, or
+   * from the file itself otherwise, the cache being then rebuilt.
+   *
+   * <p>The cache is up to date if it was built from a file of the same size and CRC32, the
+   * checksum being computed only when the size matches. An unreadable or invalid cache is rebuilt.
+   * When the cache is rebuilt, the checksum is computed while the profile file is parsed.
+   *
+   * @param profileFile (non-nullable) the card profile file
+   * @param cacheFile (non-nullable) the binary cache file, created if needed
+   * @return A new list of the profiles, in file order.
+   * @throws IllegalArgumentException If a parameter is null.
+   * @throws IOException If the profile file cannot be read or is not a valid card profile file, or
+   *     if the cache cannot be written.
+   * @since 2.3.0
+   */
+  public static List<StubCardProfile> loadProfiles(File profileFile, File cacheFile)
+      throws IOException {
+    Assert.getInstance().notNull(profileFile, "profileFile").notNull(cacheFile, "cacheFile");
+    if (cacheFile.isFile()) {
+      try {
+        List<StubCardProfile> profiles = readCache(cacheFile, profileFile);
+        if (profiles != null) {
+          return profiles;
+        }
+        logger.debug("Card profile cache out of date [cacheFile={}]", cacheFile);
+      } catch (IOException e) {
+        logger.warn("Invalid card profile cache ignored [cacheFile={}]", cacheFile, e);
+      }
+    }
+    long sourceLength = profileFile.length();
+    Checksum checksum = new CRC32();
+    List<StubCardProfile> profiles = readProfiles(profileFile, checksum);
+    writeCache(cacheFile, profiles, sourceLength, checksum.getValue());
+    return profiles;
+  }
+
+  /**
+   * (private)<br>
+   * Parses the profiles of a card profile file, line by line.
+   */
+  private static List<StubCardProfile> parseProfiles(BufferedReader reader) throws IOException {
+    List<StubCardProfile> profiles = new ArrayList<>();
+    Set<String> names = new HashSet<>();
+    ProfileParser parser = null;
+    int lineNumber = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      line = line.trim();
+      if (line.isEmpty() || line.charAt(0) == '#') {
+        continue;
+      }
+      if (line.charAt(0) == '[' && line.charAt(line.length() - 1) == ']') {
+        if (parser != null) {
+          profiles.add(parser.toProfile());
+        }
+        String name = line.substring(1, line.length() - 1).trim();
+        if (name.isEmpty() || !names.add(name)) {
+          throw invalidLine(lineNumber, "empty or duplicate profile name");
+        }
+        parser = new ProfileParser(name, lineNumber);
+        continue;
+      }
+      if (parser == null) {
+        throw invalidLine(lineNumber, "profile name expected");
+      }
+      int separatorIndex = line.lastIndexOf('=');
+      if (separatorIndex <= 0) {
+        throw invalidLine(lineNumber, "'key = value' expected");
+      }
+      parser.parseEntry(
+          line.substring(0, separatorIndex).trim(),
+          line.substring(separatorIndex + 1).trim(),
+          lineNumber);
+    }
+    if (parser != null) {
+      profiles.add(parser.toProfile());
+    }
+    return profiles;
+  }
+
+  /**
+   * (private)<br>
+   * Creates the exception reporting an invalid line.
+   */
+  private static IOException invalidLine(int lineNumber, String reason) {
+    return new IOException("Invalid card profile file at line " + lineNumber + ": " + reason);
+  }
+
+  /**
+   * (private)<br>
+   * Reads the profiles of a cache file, or returns null if the cache was not built from a file of
+   * the size and content of the provided profile file.
+   */
+  private static List<StubCardProfile> readCache(File cacheFile, File profileFile)
+      throws IOException {
+    DataInputStream input =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile), 65536));
+    try {
+      byte[] magic = new byte[MAGIC.length];
+      input.readFully(magic);
+      if (!Arrays.equals(magic, MAGIC) || input.readUnsignedByte() != VERSION) {
+        throw new IOException("Invalid or unsupported card profile cache file");
+      }
+      if (input.readLong() != profileFile.length()
+          || input.readLong() != computeChecksum(profileFile)) {
+        return null;
+      }
+      int profileCount = input.readInt();
+      List<StubCardProfile> profiles = new ArrayList<>(profileCount);
+      for (int i = 0; i < profileCount; i++) {
+        String name = readString(input);
+        byte[] powerOnData = readBytes(input);
+        String cardProtocol = readString(input);
+        int commandCount = input.readInt();
+        String[] commands = new String[commandCount];
+        String[] responses = new String[commandCount];
+        int[] priorities = new int[commandCount];
+        for (int j = 0; j < commandCount; j++) {
+          commands[j] = readString(input);
+          responses[j] = readString(input);
+          priorities[j] = input.readInt();
+        }
+        profiles.add(
+            new StubCardProfile(
+                name, powerOnData, cardProtocol, commands, responses, priorities));
+      }
+      return profiles;
+    } catch (EOFException e) {
+      throw new IOException("Truncated card profile cache file", e);
+    } finally {
+      input.close();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Writes the profiles to a cache file, stamped with the size and CRC32 of their source file.
+   */
+  private static void writeCache(
+      File cacheFile, List<StubCardProfile> profiles, long sourceLength, long sourceChecksum)
+      throws IOException {
+    DataOutputStream output =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile), 65536));
+    try {
+      output.write(MAGIC);
+      output.write(VERSION);
+      output.writeLong(sourceLength);
+      output.writeLong(sourceChecksum);
+      output.writeInt(profiles.size());
+      for (StubCardProfile profile : profiles) {
+        writeString(output, profile.getName());
+        writeBytes(output, profile.getPowerOnData());
+        writeString(output, profile.getCardProtocol());
+        String[] commands = profile.getCommands();
+        output.writeInt(commands.length);
+        for (int i = 0; i < commands.length; i++) {
+          writeString(output, commands[i]);
+          writeString(output, profile.getResponses()[i]);
+          output.writeInt(profile.getPriorities()[i]);
+        }
+      }
+    } finally {
+      output.close();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Reads a length-prefixed byte array.
+   */
+  private static byte[] readBytes(DataInputStream input) throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      throw new IOException("Invalid card profile cache file");
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  /**
+   * (private)<br>
+   * Reads a length-prefixed UTF-8 string, which unlike {@link DataInputStream#readUTF()} is not
+   * limited to 64 KB.
+   */
+  private static String readString(DataInputStream input) throws IOException {
+    return new String(readBytes(input), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * (private)<br>
+   * Writes a length-prefixed byte array.
+   */
+  private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * (private)<br>
+   * Writes a length-prefixed UTF-8 string.
+   */
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    writeBytes(output, value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * (private)<br>
+   * Collects the entries of the profile being parsed.
+   */
+  private static final class ProfileParser {
+
+    private final String name;
+    private final int lineNumber;
+    private byte[] powerOnData;
+    private String cardProtocol;
+    private final List<String> commands = new ArrayList<>();
+    private final List<String> responses = new ArrayList<>();
+    private final List<Integer> priorities = new ArrayList<>();
+
+    private ProfileParser(String name, int lineNumber) {
+      this.name = name;
+      this.lineNumber = lineNumber;
+    }
+
+    /**
+     * (private)<br>
+     * Parses a "key = value" line of the profile.
+     */
+    private void parseEntry(String key, String value, int lineNumber) throws IOException {
+      if (POWER_ON_DATA_KEY.equals(key)) {
+        powerOnData = parseHex(value, lineNumber);
+      } else if (PROTOCOL_KEY.equals(key)) {
+        if (value.isEmpty()) {
+          throw invalidLine(lineNumber, "empty protocol");
+        }
+        cardProtocol = value;
+      } else {
+        int priority = 0;
+        int priorityIndex = value.lastIndexOf('@');
+        if (priorityIndex >= 0) {
+          try {
+            priority = Integer.parseInt(value.substring(priorityIndex + 1).trim());
+          } catch (NumberFormatException e) {
+            throw invalidLine(lineNumber, "invalid priority");
+          }
+          value = value.substring(0, priorityIndex);
+        }
+        // validate the response now, to report the line of an invalid one
+        String response = HexUtil.toHex(parseHex(value, lineNumber));
+        commands.add(key);
+        responses.add(response);
+        priorities.add(priority);
+      }
+    }
+
+    /**
+     * (private)<br>
+     * Parses a hexadecimal value, ignoring its spaces.
+     */
+    private static byte[] parseHex(String value, int lineNumber) throws IOException {
+      String hex = value.replace(" ", "");
+      if (hex.isEmpty() || !HexUtil.isValid(hex)) {
+        throw invalidLine(lineNumber, "hexadecimal value expected");
+      }
+      return HexUtil.toByteArray(hex);
+    }
+
+    /**
+     * (private)<br>
+     * Creates the profile, checking its mandatory entries.
+     */
+    private StubCardProfile toProfile() throws IOException {
+      if (powerOnData == null || cardProtocol == null) {
+        throw invalidLine(lineNumber, "power-on data or protocol missing in profile " + name);
+      }
+      int[] priorityArray = new int[priorities.size()];
+      for (int i = 0; i < priorityArray.length; i++) {
+        priorityArray[i] = priorities.get(i);
+      }
+      return new StubCardProfile(
+          name,
+          powerOnData,
+          cardProtocol,
+          commands.toArray(new String[0]),
+          responses.toArray(new String[0]),
+          priorityArray);
+    }
+  }
+}
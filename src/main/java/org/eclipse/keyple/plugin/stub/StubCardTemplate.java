@@ -0,0 +1,295 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.keyple.core.util.Assert;
+import org.eclipse.keyple.plugin.stub.spi.RawApduResponseProviderSpi;
+
+/**
+ * Immutable set of simulated commands and command handlers, compiled once and shared by all the
+ * {@link StubSmartCard} created from it with {@link
+ * StubSmartCard.CommandStep#withTemplate(StubCardTemplate)}.
+ *
+ * <p>The cards of a template only own their power-on data, their physical channel state, their
+ * metrics and an optional overlay replacing the responses of a few commands, such as those carrying
+ * a serial number. Many cards of the same product can thus be simulated without duplicating their
+ * command tables.
+ *
+ * <p>The simulated commands of a template are tried in declaration order, among commands of equal
+ * priority.
+ *
+ * <p>Instances are immutable and can be shared between threads.
+ *
+ * @since 2.3.0
+ */
+public final class StubCardTemplate {
+
+  private final String[] commands;
+  private final Map<String, Integer> ordinalsByCommand;
+  private final SimulatedCommandMatcher simulatedCommandMatcher;
+  private final CommandHandlerDispatcher commandHandlerDispatcher;
+  private final boolean isResponseSharingEnabled;
+  private final ResponseTemplate.Symbols symbols;
+
+  /**
+   * (private)<br>
+   * Constructor.
+   */
+  private StubCardTemplate(Builder builder) {
+    this.symbols = new ResponseTemplate.Symbols();
+    List<SimulatedCommand> simulatedCommands =
+        SimulatedCommand.createAll(builder.hexCommands, builder.commandPriorities, symbols);
+    this.commands = SimulatedCommand.getCommands(simulatedCommands);
+    this.ordinalsByCommand = new HashMap<>();
+    for (SimulatedCommand simulatedCommand : simulatedCommands) {
+      ordinalsByCommand.put(simulatedCommand.getCommand(), simulatedCommand.getOrdinal());
+    }
+    this.simulatedCommandMatcher =
+        new SimulatedCommandMatcher(simulatedCommands, StubSmartCard.MatchingOrder.DECLARATION);
+    this.commandHandlerDispatcher =
+        builder.commandHandlers.isEmpty()
+            ? null
+            : new CommandHandlerDispatcher(builder.commandHandlers);
+    this.isResponseSharingEnabled = builder.isResponseSharingEnabled;
+  }
+
+  /**
+   * Creates a builder of card template.
+   *
+   * @return A not null reference.
+   * @since 2.3.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Gets the number of simulated commands of the template.
+   *
+   * @return A positive int.
+   * @since 2.3.0
+   */
+  public int getSimulatedCommandCount() {
+    return commands.length;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the simulated commands as declared, indexed by ordinal, without copy.
+   *
+   * @return A not null array.
+   * @since 2.3.0
+   */
+  String[] getCommands() {
+    return commands;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the ordinal of a simulated command.
+   *
+   * @param command the command as declared
+   * @return Null if the template has no such command.
+   * @since 2.3.0
+   */
+  Integer getOrdinal(String command) {
+    return ordinalsByCommand.get(command);
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the shared matching engine of the simulated commands.
+   *
+   * @return A not null reference.
+   * @since 2.3.0
+   */
+  SimulatedCommandMatcher getSimulatedCommandMatcher() {
+    return simulatedCommandMatcher;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the shared dispatcher of the command handlers.
+   *
+   * @return Null if the template has no command handler.
+   * @since 2.3.0
+   */
+  CommandHandlerDispatcher getCommandHandlerDispatcher() {
+    return commandHandlerDispatcher;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the symbols of the response templates, from which each card creates its state.
+   *
+   * @return A not null reference.
+   * @since 2.3.0
+   */
+  ResponseTemplate.Symbols getSymbols() {
+    return symbols;
+  }
+
+  /**
+   * (package-private)<br>
+   * Indicates if the pre-decoded responses are returned without copy.
+   *
+   * @return True if the responses are shared.
+   * @since 2.3.0
+   */
+  boolean isResponseSharingEnabled() {
+    return isResponseSharingEnabled;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public String toString() {
+    return "StubCardTemplate{"
+        + "hexCommands(#)="
+        + commands.length
+        + ", isResponseSharingEnabled="
+        + isResponseSharingEnabled
+        + '}';
+  }
+
+  /**
+   * Builder of {@link StubCardTemplate}.
+   *
+   * @since 2.3.0
+   */
+  public static final class Builder {
+
+    // keep the declaration order to make the matching deterministic
+    private final Map<String, String> hexCommands;
+    private final Map<String, Integer> commandPriorities;
+    private final List<CommandHandlerDispatcher.CommandHandler> commandHandlers;
+    private boolean isResponseSharingEnabled;
+
+    /**
+     * (private)<br>
+     * Constructor.
+     */
+    private Builder() {
+      hexCommands = new LinkedHashMap<>();
+      commandPriorities = new HashMap<>();
+      commandHandlers = new ArrayList<>();
+    }
+
+    /**
+     * Adds a simulated command/response, see {@link
+     * StubSmartCard.CommandStep#withSimulatedCommand(String, String)}.
+     *
+     * @param command (non-nullable) hexadecimal command or regular expression
+     * @param response (non-nullable) hexadecimal response, which may contain placeholders filled
+     *     with the variables of each card (see {@link
+     *     StubSmartCard.SimulatedCommandStep#withVariable(String, String)})
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is null.
+     * @since 2.3.0
+     */
+    public Builder withSimulatedCommand(String command, String response) {
+      return withSimulatedCommand(command, response, 0);
+    }
+
+    /**
+     * Adds a simulated command/response with a match priority, see {@link
+     * StubSmartCard.CommandStep#withSimulatedCommand(String, String, int)}.
+     *
+     * @param command (non-nullable) hexadecimal command or regular expression
+     * @param response (non-nullable) hexadecimal response
+     * @param priority match priority, 0 for commands added without priority
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is null.
+     * @since 2.3.0
+     */
+    public Builder withSimulatedCommand(String command, String response, int priority) {
+      Assert.getInstance().notNull(command, "command").notNull(response, "response");
+      hexCommands.put(command.trim(), response.trim());
+      commandPriorities.put(command.trim(), priority);
+      return this;
+    }
+
+    /**
+     * Adds a command handler, see {@link StubSmartCard.CommandStep#withCommandHandler(int, int,
+     * int, RawApduResponseProviderSpi)}. The handler is shared by all the cards of the template.
+     *
+     * @param cla the CLA byte, in range [0..255], compared with the CLA of the APDU under the mask
+     * @param claMask the mask of the CLA bits to compare, in range [0..255]
+     * @param ins the INS byte, in range [0..255]
+     * @param handler (non-nullable) the handler
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range or null.
+     * @since 2.3.0
+     */
+    public Builder withCommandHandler(
+        int cla, int claMask, int ins, RawApduResponseProviderSpi handler) {
+      commandHandlers.add(CommandHandlerDispatcher.newCommandHandler(cla, claMask, ins, handler));
+      return this;
+    }
+
+    /**
+     * Adds a command handler of specific P1/P2 values, see {@link
+     * StubSmartCard.CommandStep#withCommandHandler(int, int, int, int, int,
+     * RawApduResponseProviderSpi)}. The handler is shared by all the cards of the template.
+     *
+     * @param cla the CLA byte, in range [0..255], compared with the CLA of the APDU under the mask
+     * @param claMask the mask of the CLA bits to compare, in range [0..255]
+     * @param ins the INS byte, in range [0..255]
+     * @param p1 the P1 byte, in range [0..255]
+     * @param p2 the P2 byte, in range [0..255]
+     * @param handler (non-nullable) the handler
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range or null.
+     * @since 2.3.0
+     */
+    public Builder withCommandHandler(
+        int cla, int claMask, int ins, int p1, int p2, RawApduResponseProviderSpi handler) {
+      commandHandlers.add(
+          CommandHandlerDispatcher.newCommandHandler(cla, claMask, ins, p1, p2, handler));
+      return this;
+    }
+
+    /**
+     * Makes the cards of the template return their simulated responses without copying them, see
+     * {@link StubSmartCard.SimulatedCommandStep#withSharedResponses()}. The receiver of a response
+     * must then not modify it.
+     *
+     * @return The builder instance.
+     * @since 2.3.0
+     */
+    public Builder withSharedResponses() {
+      this.isResponseSharingEnabled = true;
+      return this;
+    }
+
+    /**
+     * Builds the template, compiling its simulated commands.
+     *
+     * @return A not null reference.
+     * @throws IllegalArgumentException If a response template is invalid.
+     * @throws java.util.regex.PatternSyntaxException If a command is an invalid regular
+     *     expression.
+     * @since 2.3.0
+     */
+    public StubCardTemplate build() {
+      return new StubCardTemplate(this);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+/**
+ * An APDU for which a {@link StubSmartCard} had no response, recorded when the miss diagnostics are
+ * enabled with {@link StubSmartCard.SimulatedCommandStep#withMissDiagnostics(int)}.
+ *
+ * <p>The simulated command closest to the APDU is only looked for when first requested, so that
+ * recording a miss costs no more than copying the APDU.
+ *
+ * @since 2.3.0
+ */
+public interface StubCommandMiss {
+
+  /**
+   * Gets the APDU without response.
+   *
+   * @return A not empty hexadecimal string.
+   * @since 2.3.0
+   */
+  String getApdu();
+
+  /**
+   * Gets the value of {@link System#nanoTime()} when the miss occurred.
+   *
+   * @return A long.
+   * @since 2.3.0
+   */
+  long getTimeNanos();
+
+  /**
+   * Gets the simulated command closest to the APDU, as declared in the builder.
+   *
+   * <p>Commands are compared with the hexadecimal APDU by edit distance, case-insensitively and
+   * over their source text for regular expressions. Ties are broken by the longest common prefix,
+   * then by declaration order.
+   *
+   * @return Null if the card has no simulated command.
+   * @since 2.3.0
+   */
+  String getNearestCommand();
+
+  /**
+   * Gets the edit distance, in hexadecimal characters, between the APDU and the nearest command.
+   *
+   * @return A positive int, -1 if the card has no simulated command.
+   * @since 2.3.0
+   */
+  int getEditDistance();
+
+  /**
+   * Gets the length, in hexadecimal characters, of the prefix shared by the APDU and the nearest
+   * command.
+   *
+   * @return A positive int, -1 if the card has no simulated command.
+   * @since 2.3.0
+   */
+  int getCommonPrefixLength();
+}
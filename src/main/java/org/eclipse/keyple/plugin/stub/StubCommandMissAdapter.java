@@ -0,0 +1,192 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Locale;
+import org.eclipse.keyple.core.util.HexUtil;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link StubCommandMiss} looking for the nearest simulated command on first
+ * request.
+ *
+ * @since 2.3.0
+ */
+final class StubCommandMissAdapter implements StubCommandMiss {
+
+  private final byte[] apdu;
+  private final long timeNanos;
+  private final String[] commands;
+
+  // computed once, on first request
+  private String hexApdu;
+  private String nearestCommand;
+  private int editDistance = -1;
+  private int commonPrefixLength = -1;
+
+  /**
+   * (package-private)<br>
+   * Creates a miss.
+   *
+   * @param apdu (non-nullable) a copy of the APDU, owned by the miss
+   * @param timeNanos the time of the miss
+   * @param commands (non-nullable) the simulated commands of the card, in declaration order
+   * @since 2.3.0
+   */
+  StubCommandMissAdapter(byte[] apdu, long timeNanos, String[] commands) {
+    this.apdu = apdu;
+    this.timeNanos = timeNanos;
+    this.commands = commands;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public synchronized String getApdu() {
+    if (hexApdu == null) {
+      hexApdu = HexUtil.toHex(apdu);
+    }
+    return hexApdu;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getTimeNanos() {
+    return timeNanos;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public synchronized String getNearestCommand() {
+    findNearestCommand();
+    return nearestCommand;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public synchronized int getEditDistance() {
+    findNearestCommand();
+    return editDistance;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public synchronized int getCommonPrefixLength() {
+    findNearestCommand();
+    return commonPrefixLength;
+  }
+
+  /**
+   * (private)<br>
+   * Looks for the nearest command, once.
+   */
+  private void findNearestCommand() {
+    if (nearestCommand != null || commands.length == 0) {
+      return;
+    }
+    String hex = getApdu();
+    // a single pair of rows, sized for the longest command, is reused for all the commands
+    int maxLength = 0;
+    for (String command : commands) {
+      maxLength = Math.max(maxLength, command.length());
+    }
+    int[] previousRow = new int[maxLength + 1];
+    int[] currentRow = new int[maxLength + 1];
+    for (String command : commands) {
+      String upperCaseCommand = command.toUpperCase(Locale.ROOT);
+      int distance = computeEditDistance(hex, upperCaseCommand, previousRow, currentRow);
+      int prefixLength = computeCommonPrefixLength(hex, upperCaseCommand);
+      if (nearestCommand == null
+          || distance < editDistance
+          || (distance == editDistance && prefixLength > commonPrefixLength)) {
+        nearestCommand = command;
+        editDistance = distance;
+        commonPrefixLength = prefixLength;
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Computes the Levenshtein distance between two strings, keeping only two rows of the matrix.
+   */
+  private static int computeEditDistance(
+      String source, String target, int[] previousRow, int[] currentRow) {
+    for (int j = 0; j <= target.length(); j++) {
+      previousRow[j] = j;
+    }
+    for (int i = 1; i <= source.length(); i++) {
+      currentRow[0] = i;
+      char sourceChar = source.charAt(i - 1);
+      for (int j = 1; j <= target.length(); j++) {
+        int substitution = previousRow[j - 1] + (sourceChar == target.charAt(j - 1) ? 0 : 1);
+        currentRow[j] = Math.min(substitution, Math.min(previousRow[j], currentRow[j - 1]) + 1);
+      }
+      int[] row = previousRow;
+      previousRow = currentRow;
+      currentRow = row;
+    }
+    return previousRow[target.length()];
+  }
+
+  /**
+   * (private)<br>
+   * Computes the length of the prefix shared by two strings.
+   */
+  private static int computeCommonPrefixLength(String source, String target) {
+    int length = Math.min(source.length(), target.length());
+    int i = 0;
+    while (i < length && source.charAt(i) == target.charAt(i)) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public String toString() {
+    return "StubCommandMiss{"
+        + "apdu="
+        + getApdu()
+        + ", nearestCommand='"
+        + getNearestCommand()
+        + '\''
+        + ", editDistance="
+        + getEditDistance()
+        + ", commonPrefixLength="
+        + getCommonPrefixLength()
+        + '}';
+  }
+}
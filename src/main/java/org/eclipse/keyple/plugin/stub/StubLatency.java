@@ -0,0 +1,215 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import org.eclipse.keyple.core.util.Assert;
+
+/**
+ * Distribution of the processing time of an APDU by a {@link StubSmartCard}, used by a {@link
+ * StubTimingModel}.
+ *
+ * <p>All durations are expressed in microseconds. Instances are immutable and can be shared between
+ * cards and threads.
+ *
+ * @since 2.3.0
+ */
+public abstract class StubLatency {
+
+  /**
+   * (package-private)<br>
+   * Constructor.
+   */
+  StubLatency() {}
+
+  /**
+   * Creates a constant latency.
+   *
+   * @param durationMicros duration in microseconds (positive or zero)
+   * @return A not null reference.
+   * @throws IllegalArgumentException If the duration is negative.
+   * @since 2.3.0
+   */
+  public static StubLatency fixed(long durationMicros) {
+    Assert.getInstance().isTrue(durationMicros >= 0, "durationMicros >= 0");
+    return new FixedLatency(durationMicros * 1000L);
+  }
+
+  /**
+   * Creates a latency uniformly distributed between two bounds.
+   *
+   * @param minDurationMicros lower bound in microseconds, inclusive (positive or zero)
+   * @param maxDurationMicros upper bound in microseconds, inclusive (greater than or equal to the
+   *     lower bound)
+   * @return A not null reference.
+   * @throws IllegalArgumentException If the bounds are inconsistent.
+   * @since 2.3.0
+   */
+  public static StubLatency uniform(long minDurationMicros, long maxDurationMicros) {
+    Assert.getInstance()
+        .isTrue(minDurationMicros >= 0, "minDurationMicros >= 0")
+        .isTrue(maxDurationMicros >= minDurationMicros, "maxDurationMicros >= minDurationMicros");
+    return new UniformLatency(minDurationMicros * 1000L, maxDurationMicros * 1000L);
+  }
+
+  /**
+   * Creates a normally distributed latency. Negative draws are truncated to zero.
+   *
+   * @param meanMicros mean duration in microseconds (positive or zero)
+   * @param standardDeviationMicros standard deviation in microseconds (positive or zero)
+   * @return A not null reference.
+   * @throws IllegalArgumentException If a parameter is negative.
+   * @since 2.3.0
+   */
+  public static StubLatency normal(long meanMicros, long standardDeviationMicros) {
+    Assert.getInstance()
+        .isTrue(meanMicros >= 0, "meanMicros >= 0")
+        .isTrue(standardDeviationMicros >= 0, "standardDeviationMicros >= 0");
+    return new NormalLatency(meanMicros * 1000L, standardDeviationMicros * 1000L);
+  }
+
+  /**
+   * Creates a latency following a recorded histogram: each draw returns one of the recorded
+   * durations with a probability proportional to its count.
+   *
+   * @param durationsMicros (non-nullable) recorded durations in microseconds (positive or zero)
+   * @param counts (non-nullable) number of occurrences of each duration, same length as the
+   *     durations, at least one of them being strictly positive
+   * @return A not null reference.
+   * @throws IllegalArgumentException If the histogram is empty or inconsistent.
+   * @since 2.3.0
+   */
+  public static StubLatency histogram(long[] durationsMicros, long[] counts) {
+    Assert.getInstance()
+        .notNull(durationsMicros, "durationsMicros")
+        .notNull(counts, "counts")
+        .isTrue(durationsMicros.length == counts.length, "durationsMicros.length == counts.length");
+    long[] durationsNanos = new long[durationsMicros.length];
+    long[] cumulativeCounts = new long[counts.length];
+    long total = 0;
+    for (int i = 0; i < counts.length; i++) {
+      Assert.getInstance()
+          .isTrue(durationsMicros[i] >= 0, "durationsMicros >= 0")
+          .isTrue(counts[i] >= 0, "counts >= 0");
+      durationsNanos[i] = durationsMicros[i] * 1000L;
+      total += counts[i];
+      cumulativeCounts[i] = total;
+    }
+    Assert.getInstance().isTrue(total > 0, "total count > 0");
+    return new HistogramLatency(durationsNanos, cumulativeCounts);
+  }
+
+  /**
+   * (package-private)<br>
+   * Draws a duration from the distribution.
+   *
+   * @return A positive or zero duration in nanoseconds.
+   * @since 2.3.0
+   */
+  abstract long nextNanos();
+
+  /**
+   * (private)<br>
+   * Constant latency.
+   */
+  private static final class FixedLatency extends StubLatency {
+
+    private final long durationNanos;
+
+    private FixedLatency(long durationNanos) {
+      this.durationNanos = durationNanos;
+    }
+
+    @Override
+    long nextNanos() {
+      return durationNanos;
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Uniform latency.
+   */
+  private static final class UniformLatency extends StubLatency {
+
+    private final long minNanos;
+    private final long maxNanos;
+
+    private UniformLatency(long minNanos, long maxNanos) {
+      this.minNanos = minNanos;
+      this.maxNanos = maxNanos;
+    }
+
+    @Override
+    long nextNanos() {
+      return minNanos == maxNanos
+          ? minNanos
+          : ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Normal latency truncated to zero.
+   */
+  private static final class NormalLatency extends StubLatency {
+
+    private final long meanNanos;
+    private final long standardDeviationNanos;
+
+    private NormalLatency(long meanNanos, long standardDeviationNanos) {
+      this.meanNanos = meanNanos;
+      this.standardDeviationNanos = standardDeviationNanos;
+    }
+
+    @Override
+    long nextNanos() {
+      long duration =
+          meanNanos
+              + (long) (ThreadLocalRandom.current().nextGaussian() * standardDeviationNanos);
+      return Math.max(0L, duration);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Latency drawn from a recorded histogram.
+   */
+  private static final class HistogramLatency extends StubLatency {
+
+    private final long[] durationsNanos;
+    private final long[] cumulativeCounts;
+
+    private HistogramLatency(long[] durationsNanos, long[] cumulativeCounts) {
+      this.durationsNanos = durationsNanos;
+      this.cumulativeCounts = cumulativeCounts;
+    }
+
+    @Override
+    long nextNanos() {
+      long total = cumulativeCounts[cumulativeCounts.length - 1];
+      long draw = ThreadLocalRandom.current().nextLong(total);
+      // first bucket whose cumulative count exceeds the draw
+      int index = Arrays.binarySearch(cumulativeCounts, draw + 1);
+      if (index < 0) {
+        index = -index - 1;
+      } else {
+        // empty buckets share the cumulative count of their predecessor
+        while (index > 0 && cumulativeCounts[index - 1] == draw + 1) {
+          index--;
+        }
+      }
+      return durationsNanos[index];
+    }
+  }
+}
@@ -11,6 +11,8 @@
  ************************************************************************************** */
 package org.eclipse.keyple.plugin.stub;
 
+import java.util.Collection;
+import java.util.Map;
 import org.eclipse.keyple.core.common.KeyplePluginExtension;
 
 /**
@@ -32,6 +34,31 @@ public interface StubPlugin extends KeyplePluginExtension {
    */
   void plugReader(String name, boolean isContactless, StubSmartCard card);
 
+  /**
+   * Plug a new {@link StubReader} with its own card monitoring sleep durations, overriding the
+   * plugin settings defined with {@link
+   * StubPluginFactoryBuilder.Builder#withCardMonitoringSleepDurations(int, int)}. This operation
+   * is asynchronous and will raise a READER_CONNECTED event.
+   *
+   * <p>The sleep durations only apply to the readers of a plugin using the {@link
+   * StubCardDetectionMode#POLLING} card detection mode.
+   *
+   * @param name name for the reader (not nullable and unique)
+   * @param isContactless true if the created reader should be contactless, false if not.
+   * @param card created reader can contain a card (nullable)
+   * @param cardInsertionSleepDuration sleep time in milliseconds between two card presence checks
+   *     while waiting for a card insertion (positive)
+   * @param cardRemovalSleepDuration sleep time in milliseconds between two card presence checks
+   *     while waiting for a card removal (positive)
+   * @since 2.3.0
+   */
+  void plugReader(
+      String name,
+      boolean isContactless,
+      StubSmartCard card,
+      int cardInsertionSleepDuration,
+      int cardRemovalSleepDuration);
+
   /**
    * Unplug a {@link StubReader}. This operation is asynchronous and will raise a
    * READER_DISCONNECTED event. The reader is removed from the * available list of reader. It does
@@ -41,4 +68,49 @@ public interface StubPlugin extends KeyplePluginExtension {
    * @since 2.0.0
    */
   void unplugReader(String name);
+
+  /**
+   * Plug a batch of new {@link StubReader}, described by their names and cards. All the names are
+   * checked before any reader is plugged, so that an invalid batch leaves the plugin unchanged. A
+   * reader replaces any existing reader with the same name. A READER_CONNECTED event will be raised
+   * for each reader.
+   *
+   * @param readers names of the readers associated to the card they contain, a card being nullable
+   *     (not nullable, names not nullable)
+   * @param isContactless true if the created readers should be contactless, false if not.
+   * @since 2.3.0
+   */
+  void plugReaders(Map<String, StubSmartCard> readers, boolean isContactless);
+
+  /**
+   * Plug a batch of new {@link StubReader} without card, named by formatting the indexes from 0 to
+   * {@code readerCount - 1} with {@link String#format(String, Object...)} (e.g. "SAM-%05d" gives
+   * "SAM-00000", "SAM-00001"...). A READER_CONNECTED event will be raised for each reader.
+   *
+   * @param readerNameFormat format of the reader names, producing distinct names (not nullable)
+   * @param readerCount number of readers to plug (positive)
+   * @param isContactless true if the created readers should be contactless, false if not.
+   * @since 2.3.0
+   */
+  void plugReaders(String readerNameFormat, int readerCount, boolean isContactless);
+
+  /**
+   * Unplug a batch of {@link StubReader}. Names not matching any reader are ignored. A
+   * READER_DISCONNECTED event will be raised for each reader.
+   *
+   * @param names the names of the readers to unplug (not nullable)
+   * @since 2.3.0
+   */
+  void unplugReaders(Collection<String> names);
+
+  /**
+   * Gets the number of changes of the set of plugged readers. The counter is incremented by each
+   * plug or unplug operation that modifies the set of readers, a batch operation counting as a
+   * single change. Observers can compare it with a previous value to skip the enumeration of the
+   * readers when nothing changed.
+   *
+   * @return A positive or zero long.
+   * @since 2.3.0
+   */
+  long getReaderChangeCount();
 }
@@ -13,25 +13,20 @@
 
 import static org.eclipse.keyple.plugin.stub.StubPluginFactoryAdapter.*;
 
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.keyple.core.plugin.spi.ObservablePluginSpi;
 import org.eclipse.keyple.core.plugin.spi.reader.ReaderSpi;
-import org.eclipse.keyple.core.util.Assert;
 
 /**
  * (package-private)<br>
- * Internal adapter of the {@link StubPlugin}
+ * Internal adapter of the {@link StubPlugin}, whose reader changes are found by Keyple core by
+ * polling the available reader names.
  *
  * @since 2.0.0
  */
-class StubPluginAdapter implements StubPlugin, ObservablePluginSpi {
+class StubPluginAdapter extends AbstractStubPluginAdapter implements ObservablePluginSpi {
 
-  private final String name;
   private final int monitoringCycleDuration;
-  private final Map<String, StubReaderAdapter> stubReaders;
 
   /**
    * (package-private )constructor
@@ -45,53 +40,46 @@ class StubPluginAdapter implements StubPlugin, ObservablePluginSpi {
       String name,
       Set<? extends StubReaderConfiguration> readerConfigurations,
       int monitoringCycleDuration) {
-    this.name = name;
-    this.monitoringCycleDuration = monitoringCycleDuration;
-    this.stubReaders = new ConcurrentHashMap<>();
-    for (StubReaderConfiguration configuration : readerConfigurations) {
-      this.plugReader(
-          configuration.getName(), configuration.getContactless(), configuration.getCard());
-    }
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public int getMonitoringCycleDuration() {
-    return monitoringCycleDuration;
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public Set<String> searchAvailableReaderNames() {
-    return new HashSet<>(stubReaders.keySet());
+    this(
+        name,
+        readerConfigurations,
+        monitoringCycleDuration,
+        StubCardDetectionMode.POLLING,
+        0,
+        0,
+        false);
   }
 
   /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public ReaderSpi searchReader(String readerName) {
-    return stubReaders.get(readerName);
-  }
-
-  /**
-   * {@inheritDoc}
+   * (package-private )constructor
    *
-   * @since 2.0.0
+   * @param name name of the plugin
+   * @param readerConfigurations configurations of the reader to plug initially
+   * @param monitoringCycleDuration duration between two monitoring cycles
+   * @param cardDetectionMode card detection mode of the readers
+   * @param cardInsertionSleepDuration default sleep time between two card presence checks while
+   *     waiting for a card insertion
+   * @param cardRemovalSleepDuration default sleep time between two card presence checks while
+   *     waiting for a card removal
+   * @param isReaderMetricsEnabled true if the activity of the readers is counted
+   * @since 2.3.0
    */
-  @Override
-  public String getName() {
-    return name;
+  StubPluginAdapter(
+      String name,
+      Set<? extends StubReaderConfiguration> readerConfigurations,
+      int monitoringCycleDuration,
+      StubCardDetectionMode cardDetectionMode,
+      int cardInsertionSleepDuration,
+      int cardRemovalSleepDuration,
+      boolean isReaderMetricsEnabled) {
+    super(
+        name,
+        readerConfigurations,
+        cardDetectionMode,
+        cardInsertionSleepDuration,
+        cardRemovalSleepDuration,
+        isReaderMetricsEnabled);
+    this.monitoringCycleDuration = monitoringCycleDuration;
   }
 
   /**
@@ -100,29 +88,21 @@ public String getName() {
    * @since 2.0.0
    */
   @Override
-  public Set<ReaderSpi> searchAvailableReaders() {
-    return new HashSet<>(stubReaders.values());
+  public int getMonitoringCycleDuration() {
+    return monitoringCycleDuration;
   }
 
   /**
    * {@inheritDoc}
    *
-   * @since 2.0.0
-   */
-  @Override
-  public void onUnregister() {
-    // NO-OP
-  }
-
-  /**
-   * {@inheritDoc}
+   * <p>The returned set is an immutable snapshot, shared by all the calls made between two reader
+   * changes.
    *
    * @since 2.0.0
    */
   @Override
-  public void plugReader(String name, boolean isContactless, StubSmartCard card) {
-    Assert.getInstance().notNull(name, "reader name");
-    stubReaders.put(name, new StubReaderAdapter(name, isContactless, card));
+  public Set<String> searchAvailableReaderNames() {
+    return getStubReaders().getReaderNames();
   }
 
   /**
@@ -131,8 +111,7 @@ public void plugReader(String name, boolean isContactless, StubSmartCard card) {
    * @since 2.0.0
    */
   @Override
-  public void unplugReader(String name) {
-    Assert.getInstance().notNull(name, "reader name");
-    stubReaders.remove(name);
+  public ReaderSpi searchReader(String readerName) {
+    return getStubReaders().get(readerName);
   }
 }
@@ -27,6 +27,11 @@ final class StubPluginFactoryAdapter implements StubPluginFactory, PluginFactory
 
   private final Set<StubReaderConfiguration> readerConfigurations;
   private final int monitoringCycleDuration;
+  private final StubCardDetectionMode cardDetectionMode;
+  private final int cardInsertionSleepDuration;
+  private final int cardRemovalSleepDuration;
+  private final StubReaderDetectionMode readerDetectionMode;
+  private final boolean isReaderMetricsEnabled;
   private final String pluginName;
 
   /**
@@ -36,15 +41,32 @@ final class StubPluginFactoryAdapter implements StubPluginFactory, PluginFactory
    * @param pluginName name of the plugin
    * @param readerConfigurations readerConfigurations to be created at init
    * @param monitoringCycleDuration duration of each monitoring cycle
+   * @param cardDetectionMode card detection mode of the readers
+   * @param cardInsertionSleepDuration sleep time between two card presence checks while waiting
+   *     for a card insertion
+   * @param cardRemovalSleepDuration sleep time between two card presence checks while waiting for
+   *     a card removal
+   * @param readerDetectionMode reader detection mode of the plugin
+   * @param isReaderMetricsEnabled true if the activity of the readers is counted
    * @since 2.0.0
    */
   StubPluginFactoryAdapter(
       String pluginName,
       Set<StubReaderConfiguration> readerConfigurations,
-      int monitoringCycleDuration) {
+      int monitoringCycleDuration,
+      StubCardDetectionMode cardDetectionMode,
+      int cardInsertionSleepDuration,
+      int cardRemovalSleepDuration,
+      StubReaderDetectionMode readerDetectionMode,
+      boolean isReaderMetricsEnabled) {
     this.pluginName = pluginName;
     this.readerConfigurations = readerConfigurations;
     this.monitoringCycleDuration = monitoringCycleDuration;
+    this.cardDetectionMode = cardDetectionMode;
+    this.cardInsertionSleepDuration = cardInsertionSleepDuration;
+    this.cardRemovalSleepDuration = cardRemovalSleepDuration;
+    this.readerDetectionMode = readerDetectionMode;
+    this.isReaderMetricsEnabled = isReaderMetricsEnabled;
   }
 
   /**
@@ -84,7 +106,23 @@ public String getPluginName() {
    */
   @Override
   public PluginSpi getPlugin() {
-    return new StubPluginAdapter(pluginName, readerConfigurations, monitoringCycleDuration);
+    if (readerDetectionMode == StubReaderDetectionMode.EVENT_DRIVEN) {
+      return new AutonomousStubPluginAdapter(
+          pluginName,
+          readerConfigurations,
+          cardDetectionMode,
+          cardInsertionSleepDuration,
+          cardRemovalSleepDuration,
+          isReaderMetricsEnabled);
+    }
+    return new StubPluginAdapter(
+        pluginName,
+        readerConfigurations,
+        monitoringCycleDuration,
+        cardDetectionMode,
+        cardInsertionSleepDuration,
+        cardRemovalSleepDuration,
+        isReaderMetricsEnabled);
   }
 
   /**
@@ -49,11 +49,20 @@ public static class Builder {
 
     private final Set<StubPluginFactoryAdapter.StubReaderConfiguration> readerConfigurations;
     private int monitoringCycleDuration;
+    private StubCardDetectionMode cardDetectionMode;
+    private StubReaderDetectionMode readerDetectionMode;
+    private int cardInsertionSleepDuration;
+    private int cardRemovalSleepDuration;
+    private boolean isReaderMetricsEnabled;
 
     /** (private) Constructs an empty Builder. */
     private Builder() {
       readerConfigurations = new HashSet<>();
       monitoringCycleDuration = 0;
+      cardDetectionMode = StubCardDetectionMode.POLLING;
+      readerDetectionMode = StubReaderDetectionMode.POLLING;
+      cardInsertionSleepDuration = 0;
+      cardRemovalSleepDuration = 0;
     }
 
     /**
@@ -85,6 +94,75 @@ public Builder withMonitoringCycleDuration(int duration) {
       return this;
     }
 
+    /**
+     * Configure the sleep times between two card presence checks of the observed readers, while
+     * waiting respectively for a card insertion and for a card removal. Longer durations reduce the
+     * CPU load of the reader monitoring at the cost of a higher card event latency. They can be
+     * overridden for each reader with {@link StubPlugin#plugReader(String, boolean, StubSmartCard,
+     * int, int)}.
+     *
+     * <p>The sleep durations only apply to the {@link StubCardDetectionMode#POLLING} card
+     * detection mode.
+     *
+     * @param cardInsertionSleepDuration in milliseconds, default value : 0
+     * @param cardRemovalSleepDuration in milliseconds, default value : 0
+     * @return instance of the builder
+     * @throws IllegalArgumentException If a duration is negative.
+     * @since 2.3.0
+     */
+    public Builder withCardMonitoringSleepDurations(
+        int cardInsertionSleepDuration, int cardRemovalSleepDuration) {
+      Assert.getInstance()
+          .greaterOrEqual(cardInsertionSleepDuration, 0, "cardInsertionSleepDuration")
+          .greaterOrEqual(cardRemovalSleepDuration, 0, "cardRemovalSleepDuration");
+      this.cardInsertionSleepDuration = cardInsertionSleepDuration;
+      this.cardRemovalSleepDuration = cardRemovalSleepDuration;
+      return this;
+    }
+
+    /**
+     * Configure how the card insertions and removals of the observed readers are detected.
+     *
+     * @param cardDetectionMode (not nullable) default value : {@link
+     *     StubCardDetectionMode#POLLING}
+     * @return instance of the builder
+     * @since 2.3.0
+     */
+    public Builder withCardDetectionMode(StubCardDetectionMode cardDetectionMode) {
+      Assert.getInstance().notNull(cardDetectionMode, "cardDetectionMode");
+      this.cardDetectionMode = cardDetectionMode;
+      return this;
+    }
+
+    /**
+     * Configure how the readers plugged and unplugged with {@link StubPlugin} are detected by
+     * Keyple core. In {@link StubReaderDetectionMode#EVENT_DRIVEN} mode, the monitoring cycle
+     * duration no longer applies to the reader monitoring.
+     *
+     * @param readerDetectionMode (not nullable) default value : {@link
+     *     StubReaderDetectionMode#POLLING}
+     * @return instance of the builder
+     * @since 2.3.0
+     */
+    public Builder withReaderDetectionMode(StubReaderDetectionMode readerDetectionMode) {
+      Assert.getInstance().notNull(readerDetectionMode, "readerDetectionMode");
+      this.readerDetectionMode = readerDetectionMode;
+      return this;
+    }
+
+    /**
+     * Make the readers of the plugin count their activity, available with {@link
+     * StubReader#getMetrics()}. Disabled by default, so that an APDU exchange does not pay for
+     * counters and clock readings that are not used.
+     *
+     * @return instance of the builder
+     * @since 2.3.0
+     */
+    public Builder withReaderMetrics() {
+      this.isReaderMetricsEnabled = true;
+      return this;
+    }
+
     /**
      * Returns an instance of StubPluginFactory created from the fields set on this builder.
      *
@@ -93,7 +171,14 @@ public Builder withMonitoringCycleDuration(int duration) {
      */
     public StubPluginFactory build() {
       return new StubPluginFactoryAdapter(
-          PLUGIN_NAME, readerConfigurations, monitoringCycleDuration);
+          PLUGIN_NAME,
+          readerConfigurations,
+          monitoringCycleDuration,
+          cardDetectionMode,
+          cardInsertionSleepDuration,
+          cardRemovalSleepDuration,
+          readerDetectionMode,
+          isReaderMetricsEnabled);
     }
   }
 }
@@ -0,0 +1,88 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+/**
+ * Live view of the reader allocation metrics of a group of a {@link StubPoolPlugin}.
+ *
+ * <p>Values are updated by the allocation and release operations and can be polled at any time.
+ *
+ * @since 2.3.0
+ */
+public interface StubPoolAllocationMetrics {
+
+  /**
+   * Gets the number of allocation requests currently waiting for a reader of the group.
+   *
+   * @return A positive int.
+   * @since 2.3.0
+   */
+  int getWaitingAllocationCount();
+
+  /**
+   * Gets the highest number of allocation requests that have been waiting at the same time.
+   *
+   * @return A positive int.
+   * @since 2.3.0
+   */
+  int getMaxWaitingAllocationCount();
+
+  /**
+   * Gets the number of allocation requests that got a reader, immediately or after a wait.
+   *
+   * @return A positive long.
+   * @since 2.3.0
+   */
+  long getSuccessfulAllocationCount();
+
+  /**
+   * Gets the number of allocation requests that failed because no reader was available in time.
+   *
+   * @return A positive long.
+   * @since 2.3.0
+   */
+  long getFailedAllocationCount();
+
+  /**
+   * Gets the number of allocation requests that had to wait for a reader, whether they got one or
+   * not.
+   *
+   * @return A positive long.
+   * @since 2.3.0
+   */
+  long getWaitedAllocationCount();
+
+  /**
+   * Gets the number of allocation requests that waited until the allocation timeout without getting
+   * a reader.
+   *
+   * @return A positive long.
+   * @since 2.3.0
+   */
+  long getTimedOutAllocationCount();
+
+  /**
+   * Gets the cumulated time spent waiting for a reader by the allocation requests.
+   *
+   * @return A duration in nanoseconds.
+   * @since 2.3.0
+   */
+  long getTotalWaitTimeNanos();
+
+  /**
+   * Gets the longest time spent waiting for a reader by an allocation request.
+   *
+   * @return A duration in nanoseconds.
+   * @since 2.3.0
+   */
+  long getMaxWaitTimeNanos();
+}
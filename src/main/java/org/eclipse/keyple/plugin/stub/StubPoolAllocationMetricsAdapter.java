@@ -0,0 +1,193 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link StubPoolAllocationMetrics} based on striped concurrent counters.
+ *
+ * @since 2.3.0
+ */
+final class StubPoolAllocationMetricsAdapter implements StubPoolAllocationMetrics {
+
+  private final AtomicInteger waitingAllocationCount = new AtomicInteger();
+  private final AtomicInteger maxWaitingAllocationCount = new AtomicInteger();
+  private final LongAdder successfulAllocationCount = new LongAdder();
+  private final LongAdder failedAllocationCount = new LongAdder();
+  private final LongAdder waitedAllocationCount = new LongAdder();
+  private final LongAdder timedOutAllocationCount = new LongAdder();
+  private final LongAdder totalWaitTimeNanos = new LongAdder();
+  private final AtomicLong maxWaitTimeNanos = new AtomicLong();
+
+  /**
+   * (package-private)<br>
+   * Records the outcome of an allocation request.
+   *
+   * @param isSuccessful true if a reader has been allocated
+   * @since 2.3.0
+   */
+  void onAllocationEnded(boolean isSuccessful) {
+    if (isSuccessful) {
+      successfulAllocationCount.increment();
+    } else {
+      failedAllocationCount.increment();
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Records the start of a wait for a reader.
+   *
+   * @since 2.3.0
+   */
+  void onWaitStarted() {
+    int waiting = waitingAllocationCount.incrementAndGet();
+    int max;
+    while (waiting > (max = maxWaitingAllocationCount.get())
+        && !maxWaitingAllocationCount.compareAndSet(max, waiting)) {
+      // retry
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Records the end of a wait for a reader.
+   *
+   * @param waitTimeNanos time spent waiting, in nanoseconds
+   * @param isTimedOut true if no reader has been obtained
+   * @since 2.3.0
+   */
+  void onWaitEnded(long waitTimeNanos, boolean isTimedOut) {
+    waitingAllocationCount.decrementAndGet();
+    waitedAllocationCount.increment();
+    if (isTimedOut) {
+      timedOutAllocationCount.increment();
+    }
+    totalWaitTimeNanos.add(waitTimeNanos);
+    long max;
+    while (waitTimeNanos > (max = maxWaitTimeNanos.get())
+        && !maxWaitTimeNanos.compareAndSet(max, waitTimeNanos)) {
+      // retry
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public int getWaitingAllocationCount() {
+    return waitingAllocationCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public int getMaxWaitingAllocationCount() {
+    return maxWaitingAllocationCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getSuccessfulAllocationCount() {
+    return successfulAllocationCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getFailedAllocationCount() {
+    return failedAllocationCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getWaitedAllocationCount() {
+    return waitedAllocationCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getTimedOutAllocationCount() {
+    return timedOutAllocationCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getTotalWaitTimeNanos() {
+    return totalWaitTimeNanos.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getMaxWaitTimeNanos() {
+    return maxWaitTimeNanos.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public String toString() {
+    return "StubPoolAllocationMetrics{"
+        + "waitingAllocationCount="
+        + getWaitingAllocationCount()
+        + ", maxWaitingAllocationCount="
+        + getMaxWaitingAllocationCount()
+        + ", successfulAllocationCount="
+        + getSuccessfulAllocationCount()
+        + ", failedAllocationCount="
+        + getFailedAllocationCount()
+        + ", waitedAllocationCount="
+        + getWaitedAllocationCount()
+        + ", timedOutAllocationCount="
+        + getTimedOutAllocationCount()
+        + ", totalWaitTimeNanos="
+        + getTotalWaitTimeNanos()
+        + ", maxWaitTimeNanos="
+        + getMaxWaitTimeNanos()
+        + '}';
+  }
+}
@@ -11,6 +11,7 @@
  ************************************************************************************** */
 package org.eclipse.keyple.plugin.stub;
 
+import java.util.Map;
 import org.eclipse.keyple.core.common.KeyplePluginExtension;
 
 /**
@@ -30,6 +31,31 @@ public interface StubPoolPlugin extends KeyplePluginExtension {
    */
   void plugPoolReader(String groupReference, String readerName, StubSmartCard card);
 
+  /**
+   * Plug synchronously a batch of new {@link StubReader} associated to a groupReference. All the
+   * names are checked before any reader is plugged, so that an invalid batch leaves the pool
+   * unchanged. A READER_CONNECTED event will be raised for each reader.
+   *
+   * @param groupReference group reference of the new stub readers (mandatory)
+   * @param readers names of the new stub readers (mandatory) associated to the card they contain
+   *     (can be null)
+   * @since 2.3.0
+   */
+  void plugPoolReaders(String groupReference, Map<String, StubSmartCard> readers);
+
+  /**
+   * Plug synchronously a batch of new {@link StubReader} without card associated to a
+   * groupReference, named by formatting the indexes from 0 to {@code readerCount - 1} with {@link
+   * String#format(String, Object...)} (e.g. "SAM-%05d" gives "SAM-00000", "SAM-00001"...). A
+   * READER_CONNECTED event will be raised for each reader.
+   *
+   * @param groupReference group reference of the new stub readers (mandatory)
+   * @param readerNameFormat format of the reader names, producing distinct names (mandatory)
+   * @param readerCount number of readers to plug (positive)
+   * @since 2.3.0
+   */
+  void plugPoolReaders(String groupReference, String readerNameFormat, int readerCount);
+
   /**
    * Unplug synchronously all readers associated to a groupReference. A READER_DISCONNECTED event
    * will be raised.
@@ -44,4 +70,33 @@ public interface StubPoolPlugin extends KeyplePluginExtension {
    * @param readerName name of the reader to be unplugged (mandatory) @since 2.0.0
    */
   void unplugPoolReader(String readerName);
+
+  /**
+   * Gets the allocation metrics of a group of readers.
+   *
+   * <p>Waiting allocation requests only exist when an allocation timeout has been configured with
+   * {@link StubPoolPluginFactoryBuilder.Builder#withAllocationTimeout(int)}.
+   *
+   * <p>The failed allocation requests made for a group in which no reader has ever been plugged
+   * are counted in the metrics of the requests made without group reference.
+   *
+   * @param groupReference reference of the group, null for the allocation requests made without
+   *     group reference
+   * @return A live view of the metrics of the group. If no reader has ever been plugged in the
+   *     group, a placeholder with all counts at zero, which is never updated, not even once
+   *     readers are plugged in the group: the metrics must then be requested again.
+   * @since 2.3.0
+   */
+  StubPoolAllocationMetrics getAllocationMetrics(String groupReference);
+
+  /**
+   * Gets the number of changes of the set of plugged readers. The counter is incremented by each
+   * plug or unplug operation that modifies the set of readers, a batch operation counting as a
+   * single change. Observers can compare it with a previous value to skip the enumeration of the
+   * readers when nothing changed.
+   *
+   * @return A positive or zero long.
+   * @since 2.3.0
+   */
+  long getReaderChangeCount();
 }
@@ -11,27 +11,21 @@
  ************************************************************************************** */
 package org.eclipse.keyple.plugin.stub;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import org.eclipse.keyple.core.plugin.PluginIOException;
+import java.util.Set;
 import org.eclipse.keyple.core.plugin.spi.ObservablePluginSpi;
-import org.eclipse.keyple.core.plugin.spi.PoolPluginSpi;
-import org.eclipse.keyple.core.plugin.spi.reader.PoolReaderSpi;
 import org.eclipse.keyple.core.plugin.spi.reader.ReaderSpi;
-import org.eclipse.keyple.core.util.Assert;
 import org.eclipse.keyple.plugin.stub.StubPoolPluginFactoryAdapter.StubPoolReaderConfiguration;
 
 /**
  * (package-private)<br>
- * Internal adapter of the {@link StubPoolPlugin}
+ * Internal adapter of the {@link StubPoolPlugin}, whose reader changes are found by Keyple core by
+ * polling the available reader names.
  *
  * @since 2.0.0
  */
-class StubPoolPluginAdapter implements StubPoolPlugin, PoolPluginSpi, ObservablePluginSpi {
+class StubPoolPluginAdapter extends AbstractStubPoolPluginAdapter implements ObservablePluginSpi {
 
-  private final StubPluginAdapter stubPluginAdapter;
-  private final Map<String, String> readerToGroup;
-  private final Set<String> allocatedReaders; // list of allocated readers by their readerName
+  private final int monitoringCycleDuration;
 
   /**
    * (package-private )constructor
@@ -45,151 +39,38 @@ class StubPoolPluginAdapter implements StubPoolPlugin, PoolPluginSpi, Observable
       String name,
       Set<StubPoolReaderConfiguration> readerConfigurations,
       int monitoringCycleDuration) {
-    this.stubPluginAdapter =
-        new StubPluginAdapter(name, readerConfigurations, monitoringCycleDuration);
-    this.readerToGroup = new ConcurrentHashMap<>();
-    this.allocatedReaders = new HashSet<>();
-    for (StubPoolReaderConfiguration readerConfiguration : readerConfigurations) {
-      readerToGroup.put(readerConfiguration.getName(), readerConfiguration.getGroupReference());
-    }
+    this(name, readerConfigurations, monitoringCycleDuration, 0, false);
   }
 
   /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public String getName() {
-    return this.stubPluginAdapter.getName();
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public Set<ReaderSpi> searchAvailableReaders() {
-    return this.stubPluginAdapter.searchAvailableReaders();
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public SortedSet<String> getReaderGroupReferences() {
-    return new TreeSet<>(readerToGroup.values());
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public PoolReaderSpi allocateReader(String readerGroupReference) throws PluginIOException {
-    Set<String> candidateReadersName;
-
-    if (readerGroupReference == null) {
-      // every reader is candidate for allocation
-      candidateReadersName = stubPluginAdapter.searchAvailableReaderNames();
-    } else {
-      // only readers from the readerGroupReference are candidates for allocation
-      candidateReadersName = listReadersByGroup(readerGroupReference);
-    }
-
-    // find the first non allocated reader among candidates
-    for (String readerName : candidateReadersName) {
-      if (allocatedReaders.add(readerName)) {
-        return (PoolReaderSpi) stubPluginAdapter.searchReader(readerName);
-      }
-    }
-
-    throw new PluginIOException(
-        "No reader is available for the given group reference: " + readerGroupReference);
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void releaseReader(ReaderSpi readerSpi) {
-    Assert.getInstance().notNull(readerSpi, "reader SPI");
-
-    if (!(readerSpi instanceof StubReader)) {
-      throw new IllegalArgumentException(
-          "Cannot cast 'readerSpi' to StubReader. Actual type: " + readerSpi.getClass().getName());
-    }
-
-    allocatedReaders.remove(readerSpi.getName());
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void onUnregister() {
-    // NO-OP
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void plugPoolReader(String groupReference, String readerName, StubSmartCard card) {
-    Assert.getInstance()
-        .notNull(groupReference, "group reference")
-        .notNull(readerName, "reader name");
-
-    // create new reader
-    stubPluginAdapter.plugReader(readerName, false, card);
-
-    // map reader to groupReference
-    readerToGroup.put(readerName, groupReference);
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void unplugPoolReaders(String groupReference) {
-    Assert.getInstance().notNull(groupReference, "group reference");
-
-    // find the reader in the readerPool
-    Set<String> readerNames = listReadersByGroup(groupReference);
-    for (String readerName : readerNames) {
-      unplugPoolReader(readerName);
-    }
-  }
-
-  /**
-   * {@inheritDoc}
+   * (package-private )constructor
    *
-   * @since 2.0.0
+   * @param name name of the plugin
+   * @param readerConfigurations configurations of the reader to plug initially
+   * @param monitoringCycleDuration duration between two monitoring cycle
+   * @param allocationTimeout maximum time in milliseconds to wait for a reader to be released when
+   *     a group is exhausted, 0 to fail immediately
+   * @param isReaderMetricsEnabled true if the activity of the readers is counted
+   * @since 2.3.0
    */
-  @Override
-  public void unplugPoolReader(String readerName) {
-    Assert.getInstance().notNull(readerName, "reader name");
-
-    // remove reader from pool
-    readerToGroup.remove(readerName);
-
-    // remove reader from allocate list
-    allocatedReaders.remove(readerName);
-
-    // remove reader from plugin
-    stubPluginAdapter.unplugReader(readerName);
+  StubPoolPluginAdapter(
+      String name,
+      Set<StubPoolReaderConfiguration> readerConfigurations,
+      int monitoringCycleDuration,
+      int allocationTimeout,
+      boolean isReaderMetricsEnabled) {
+    super(
+        new StubPluginAdapter(
+            name,
+            readerConfigurations,
+            monitoringCycleDuration,
+            StubCardDetectionMode.POLLING,
+            0,
+            0,
+            isReaderMetricsEnabled),
+        readerConfigurations,
+        allocationTimeout);
+    this.monitoringCycleDuration = monitoringCycleDuration;
   }
 
   /**
@@ -199,7 +80,7 @@ public void unplugPoolReader(String readerName) {
    */
   @Override
   public int getMonitoringCycleDuration() {
-    return stubPluginAdapter.getMonitoringCycleDuration();
+    return monitoringCycleDuration;
   }
 
   /**
@@ -209,7 +90,7 @@ public int getMonitoringCycleDuration() {
    */
   @Override
   public Set<String> searchAvailableReaderNames() {
-    return stubPluginAdapter.searchAvailableReaderNames();
+    return getStubReaders().getReaderNames();
   }
 
   /**
@@ -219,25 +100,6 @@ public Set<String> searchAvailableReaderNames() {
    */
   @Override
   public ReaderSpi searchReader(String readerName) {
-    return stubPluginAdapter.searchReader(readerName);
-  }
-
-  /**
-   * (private) lists all readers that match a group reference
-   *
-   * @param aGroupReference not nullable reference to a group reference
-   * @return collection of reader names
-   */
-  private Set<String> listReadersByGroup(String aGroupReference) {
-    Set<String> readers = new HashSet<>();
-    // find the reader in the readerPool
-    for (Map.Entry<String, String> entry : readerToGroup.entrySet()) {
-      String readerName = entry.getKey();
-      String groupReference = entry.getValue();
-      if (groupReference.equals(aGroupReference)) {
-        readers.add(readerName);
-      }
-    }
-    return readers;
+    return getStubReaders().get(readerName);
   }
 }
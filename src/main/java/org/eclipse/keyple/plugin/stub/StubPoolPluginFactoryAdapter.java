@@ -28,6 +28,9 @@ final class StubPoolPluginFactoryAdapter implements StubPoolPluginFactory, PoolP
 
   private final Set<StubPoolReaderConfiguration> readerConfigurations;
   private final int monitoringCycleDuration;
+  private final int allocationTimeout;
+  private final StubReaderDetectionMode readerDetectionMode;
+  private final boolean isReaderMetricsEnabled;
   private final String pluginName;
 
   /**
@@ -37,15 +40,24 @@ final class StubPoolPluginFactoryAdapter implements StubPoolPluginFactory, PoolP
    * @param pluginName name of the plugin
    * @param readerConfigurations readerConfigurations to be created at init
    * @param monitoringCycleDuration duration of each monitoring cycle
+   * @param allocationTimeout maximum time to wait for a reader when a group is exhausted
+   * @param readerDetectionMode reader detection mode of the plugin
+   * @param isReaderMetricsEnabled true if the activity of the readers is counted
    * @since 2.0.0
    */
   StubPoolPluginFactoryAdapter(
       String pluginName,
       Set<StubPoolReaderConfiguration> readerConfigurations,
-      int monitoringCycleDuration) {
+      int monitoringCycleDuration,
+      int allocationTimeout,
+      StubReaderDetectionMode readerDetectionMode,
+      boolean isReaderMetricsEnabled) {
     this.pluginName = pluginName;
     this.readerConfigurations = readerConfigurations;
     this.monitoringCycleDuration = monitoringCycleDuration;
+    this.allocationTimeout = allocationTimeout;
+    this.readerDetectionMode = readerDetectionMode;
+    this.isReaderMetricsEnabled = isReaderMetricsEnabled;
   }
 
   /**
@@ -85,7 +97,16 @@ public String getPoolPluginName() {
    */
   @Override
   public PoolPluginSpi getPoolPlugin() {
-    return new StubPoolPluginAdapter(pluginName, readerConfigurations, monitoringCycleDuration);
+    if (readerDetectionMode == StubReaderDetectionMode.EVENT_DRIVEN) {
+      return new AutonomousStubPoolPluginAdapter(
+          pluginName, readerConfigurations, allocationTimeout, isReaderMetricsEnabled);
+    }
+    return new StubPoolPluginAdapter(
+        pluginName,
+        readerConfigurations,
+        monitoringCycleDuration,
+        allocationTimeout,
+        isReaderMetricsEnabled);
   }
 
   static class StubPoolReaderConfiguration extends StubReaderConfiguration {
@@ -51,11 +51,16 @@ public static class Builder {
 
     private final Set<StubPoolReaderConfiguration> readerConfigurations;
     private int monitoringCycleDuration;
+    private int allocationTimeout;
+    private StubReaderDetectionMode readerDetectionMode;
+    private boolean isReaderMetricsEnabled;
 
     /** (private) Constructs an empty Builder. */
     private Builder() {
       readerConfigurations = new HashSet<>();
       monitoringCycleDuration = 0;
+      allocationTimeout = 0;
+      readerDetectionMode = StubReaderDetectionMode.POLLING;
     }
 
     /**
@@ -87,6 +92,53 @@ public StubPoolPluginFactoryBuilder.Builder withMonitoringCycleDuration(int dura
       return this;
     }
 
+    /**
+     * Configure the maximum time to wait for a reader to be released when all the readers of the
+     * requested group are allocated. Waiting allocation requests are served in arrival order, the
+     * requests of the group of the released reader before the requests made without group
+     * reference.
+     *
+     * @param timeout in milliseconds, default value : 0 (allocation fails immediately)
+     * @return instance of the builder
+     * @throws IllegalArgumentException If the timeout is negative.
+     * @since 2.3.0
+     */
+    public StubPoolPluginFactoryBuilder.Builder withAllocationTimeout(int timeout) {
+      Assert.getInstance().greaterOrEqual(timeout, 0, "timeout");
+      this.allocationTimeout = timeout;
+      return this;
+    }
+
+    /**
+     * Configure how the readers plugged and unplugged with {@link StubPoolPlugin} are detected by
+     * Keyple core. In {@link StubReaderDetectionMode#EVENT_DRIVEN} mode, the monitoring cycle
+     * duration no longer applies.
+     *
+     * @param readerDetectionMode (not nullable) default value : {@link
+     *     StubReaderDetectionMode#POLLING}
+     * @return instance of the builder
+     * @since 2.3.0
+     */
+    public StubPoolPluginFactoryBuilder.Builder withReaderDetectionMode(
+        StubReaderDetectionMode readerDetectionMode) {
+      Assert.getInstance().notNull(readerDetectionMode, "readerDetectionMode");
+      this.readerDetectionMode = readerDetectionMode;
+      return this;
+    }
+
+    /**
+     * Make the readers of the plugin count their activity, available with {@link
+     * StubReader#getMetrics()}. Disabled by default, so that an APDU exchange does not pay for
+     * counters and clock readings that are not used.
+     *
+     * @return instance of the builder
+     * @since 2.3.0
+     */
+    public StubPoolPluginFactoryBuilder.Builder withReaderMetrics() {
+      this.isReaderMetricsEnabled = true;
+      return this;
+    }
+
     /**
      * Returns an instance of StubPoolPluginFactory created from the fields set on this builder.
      *
@@ -95,7 +147,12 @@ public StubPoolPluginFactoryBuilder.Builder withMonitoringCycleDuration(int dura
      */
     public StubPoolPluginFactory build() {
       return new StubPoolPluginFactoryAdapter(
-          PLUGIN_NAME, readerConfigurations, monitoringCycleDuration);
+          PLUGIN_NAME,
+          readerConfigurations,
+          monitoringCycleDuration,
+          allocationTimeout,
+          readerDetectionMode,
+          isReaderMetricsEnabled);
     }
   }
 }
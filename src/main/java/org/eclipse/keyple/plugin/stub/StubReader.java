@@ -46,4 +46,16 @@ public interface StubReader extends KeypleReaderExtension {
    * @since 2.0.0
    */
   StubSmartCard getSmartcard();
+
+  /**
+   * Gets the activity metrics of the reader: APDU transmissions, card insertions and removals and
+   * physical channel openings, when they are enabled with {@link
+   * StubPluginFactoryBuilder.Builder#withReaderMetrics()} or {@link
+   * StubPoolPluginFactoryBuilder.Builder#withReaderMetrics()}.
+   *
+   * @return A not null live view, which can be polled at any time, or shared empty metrics that
+   *     are never updated if the metrics are disabled.
+   * @since 2.3.0
+   */
+  StubReaderMetrics getMetrics();
 }
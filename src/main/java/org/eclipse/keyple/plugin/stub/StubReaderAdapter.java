@@ -11,40 +11,21 @@
  ************************************************************************************** */
 package org.eclipse.keyple.plugin.stub;
 
-import java.util.HashSet;
-import java.util.Set;
-import org.eclipse.keyple.core.plugin.CardIOException;
-import org.eclipse.keyple.core.plugin.spi.reader.ConfigurableReaderSpi;
-import org.eclipse.keyple.core.plugin.spi.reader.PoolReaderSpi;
-import org.eclipse.keyple.core.plugin.spi.reader.observable.ObservableReaderSpi;
 import org.eclipse.keyple.core.plugin.spi.reader.observable.state.insertion.CardInsertionWaiterNonBlockingSpi;
 import org.eclipse.keyple.core.plugin.spi.reader.observable.state.removal.CardRemovalWaiterNonBlockingSpi;
-import org.eclipse.keyple.core.util.Assert;
-import org.eclipse.keyple.core.util.HexUtil;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * (package-private)<br>
- * The adapter for the StubReader is also an ObservableReaderSpi
+ * The adapter for the StubReader is also an ObservableReaderSpi. The card presence is polled by the
+ * reader monitoring.
  *
  * @since 2.0.0
  */
-final class StubReaderAdapter
-    implements StubReader,
-        ConfigurableReaderSpi,
-        PoolReaderSpi,
-        ObservableReaderSpi,
-        CardInsertionWaiterNonBlockingSpi,
-        CardRemovalWaiterNonBlockingSpi {
+final class StubReaderAdapter extends AbstractStubReaderAdapter
+    implements CardInsertionWaiterNonBlockingSpi, CardRemovalWaiterNonBlockingSpi {
 
-  private static final Logger logger = LoggerFactory.getLogger(StubReaderAdapter.class);
-
-  private final String name;
-  private final Boolean isContactLess;
-  private final Set<String> activatedProtocols;
-
-  private StubSmartCard smartCard;
+  private final int cardInsertionMonitoringSleepDuration;
+  private final int cardRemovalMonitoringSleepDuration;
 
   /**
    * (package-private)<br>
@@ -56,241 +37,43 @@
    * @since 2.0.0
    */
   StubReaderAdapter(String name, Boolean isContactLess, StubSmartCard card) {
-    this.name = name;
-    this.isContactLess = isContactLess;
-    this.activatedProtocols = new HashSet<>();
-    this.smartCard = card;
-  }
-
-  /*
-   * ObservableReaderSpi
-   */
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void onStartDetection() {
-    // NOP
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void onStopDetection() {
-    // NOP
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public String getName() {
-    return name;
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public boolean isProtocolSupported(String readerProtocol) {
-    return true; // do not block any protocol
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void activateProtocol(String readerProtocol) {
-    activatedProtocols.add(readerProtocol);
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void deactivateProtocol(String readerProtocol) {
-    activatedProtocols.remove(readerProtocol);
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public boolean isCurrentProtocol(String readerProtocol) {
-    if (smartCard != null && smartCard.getCardProtocol() != null) {
-      return smartCard.getCardProtocol().equals(readerProtocol);
-    } else {
-      return false;
-    }
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void openPhysicalChannel() {
-    if (smartCard != null) {
-      smartCard.openPhysicalChannel();
-    }
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void closePhysicalChannel() {
-    if (smartCard != null) {
-      smartCard.closePhysicalChannel();
-    }
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public boolean isPhysicalChannelOpen() {
-    return smartCard != null && smartCard.isPhysicalChannelOpen();
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public boolean checkCardPresence() {
-    return smartCard != null;
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public String getPowerOnData() {
-    return HexUtil.toHex(smartCard.getPowerOnData());
+    this(name, isContactLess, card, 0, 0, false);
   }
 
   /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public byte[] transmitApdu(byte[] apduIn) throws CardIOException {
-    if (smartCard == null) {
-      throw new CardIOException("No card is available");
-    }
-    return smartCard.processApdu(apduIn);
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public boolean isContactless() {
-    return isContactLess;
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void onUnregister() {
-    // NO-OP
-  }
-
-  /*
-   * StubReader
-   */
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void insertCard(StubSmartCard smartCard) {
-    Assert.getInstance().notNull(smartCard, "smart card");
-    if (checkCardPresence()) {
-      logger.warn(
-          "[readerExt={}] A card is already inserted. First remove the inserted card before inserting a new one",
-          getName());
-      return;
-    }
-    if (!activatedProtocols.contains(smartCard.getCardProtocol())) {
-      logger.info(
-          "[readerExt={}] Inserted card protocol does not match any activated protocol. Please use 'activateProtocol()' method first [cardProtocol={}]",
-          getName(),
-          smartCard.getCardProtocol());
-      return;
-    }
-    if (logger.isTraceEnabled()) {
-      logger.trace("[readerExt={}] Card inserted [smartCard={}]", getName(), smartCard);
-    }
-    this.smartCard = smartCard;
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @since 2.0.0
-   */
-  @Override
-  public void removeCard() {
-    if (smartCard != null) {
-      if (logger.isTraceEnabled()) {
-        logger.trace("[readerExt={}] Card removed [smartCard={}]", getName(), smartCard);
-      }
-      closePhysicalChannel();
-      this.smartCard = null;
-    }
-  }
-
-  /**
-   * {@inheritDoc}
+   * (package-private)<br>
+   * constructor
    *
-   * @since 2.0.0
+   * @param name name of the reader
+   * @param isContactLess true if contactless
+   * @param card (optional) inserted smart card at creation
+   * @param cardInsertionMonitoringSleepDuration sleep time in milliseconds between two card
+   *     presence checks while waiting for a card insertion
+   * @param cardRemovalMonitoringSleepDuration sleep time in milliseconds between two card presence
+   *     checks while waiting for a card removal
+   * @param isMetricsEnabled true if the reader activity is counted
+   * @since 2.3.0
    */
-  @Override
-  public StubSmartCard getSmartcard() {
-    return smartCard;
+  StubReaderAdapter(
+      String name,
+      Boolean isContactLess,
+      StubSmartCard card,
+      int cardInsertionMonitoringSleepDuration,
+      int cardRemovalMonitoringSleepDuration,
+      boolean isMetricsEnabled) {
+    super(name, isContactLess, card, isMetricsEnabled);
+    this.cardInsertionMonitoringSleepDuration = cardInsertionMonitoringSleepDuration;
+    this.cardRemovalMonitoringSleepDuration = cardRemovalMonitoringSleepDuration;
   }
 
   /**
    * {@inheritDoc}
    *
-   * @since 2.2.0
+   * @since 2.3.0
    */
   @Override
-  public Object getSelectedSmartCard() {
-    return null;
+  void onCardPresenceChanged() {
+    // NOP, the card presence is polled
   }
 
   /**
@@ -300,7 +83,7 @@ public Object getSelectedSmartCard() {
    */
   @Override
   public int getCardInsertionMonitoringSleepDuration() {
-    return 0;
+    return cardInsertionMonitoringSleepDuration;
   }
 
   /**
@@ -310,6 +93,6 @@ public int getCardInsertionMonitoringSleepDuration() {
    */
   @Override
   public int getCardRemovalMonitoringSleepDuration() {
-    return 0;
+    return cardRemovalMonitoringSleepDuration;
   }
 }
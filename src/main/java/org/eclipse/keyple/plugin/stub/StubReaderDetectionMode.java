@@ -0,0 +1,38 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+/**
+ * Defines how the readers plugged and unplugged with {@link StubPlugin} or {@link StubPoolPlugin}
+ * are detected by Keyple core.
+ *
+ * @since 2.3.0
+ */
+public enum StubReaderDetectionMode {
+
+  /**
+   * The plugin monitoring thread periodically compares the available reader names with the known
+   * ones, every monitoring cycle duration.
+   *
+   * @since 2.3.0
+   */
+  POLLING,
+
+  /**
+   * Each plug and unplug operation is pushed to Keyple core as it happens, as a set of connected or
+   * disconnected readers. Reader events are raised without monitoring latency and no monitoring
+   * thread is used.
+   *
+   * @since 2.3.0
+   */
+  EVENT_DRIVEN
+}
@@ -0,0 +1,115 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+/**
+ * Live view of the activity metrics of a {@link StubReader}.
+ *
+ * <p>Values are updated by the reader operations and can be polled at any time.
+ *
+ * @since 2.3.0
+ */
+public interface StubReaderMetrics {
+
+  /**
+   * Number of buckets of the transmission latency histogram.
+   *
+   * @since 2.3.0
+   */
+  int LATENCY_BUCKET_COUNT = 40;
+
+  /**
+   * Gets the number of APDUs transmitted to a card and answered.
+   *
+   * @return A positive long.
+   * @since 2.3.0
+   */
+  long getTransmittedApduCount();
+
+  /**
+   * Gets the number of APDU transmissions that failed, because no card was inserted or because the
+   * card had no response for the APDU.
+   *
+   * @return A positive long.
+   * @since 2.3.0
+   */
+  long getFailedTransmissionCount();
+
+  /**
+   * Gets the cumulated length of the APDUs transmitted to a card and answered.
+   *
+   * @return A number of bytes.
+   * @since 2.3.0
+   */
+  long getCommandByteCount();
+
+  /**
+   * Gets the cumulated length of the responses received from the cards.
+   *
+   * @return A number of bytes.
+   * @since 2.3.0
+   */
+  long getResponseByteCount();
+
+  /**
+   * Gets the cumulated duration of the answered APDU transmissions, including the simulated
+   * duration of the {@link StubTimingModel} of the card if any.
+   *
+   * @return A duration in nanoseconds.
+   * @since 2.3.0
+   */
+  long getTotalTransmissionTimeNanos();
+
+  /**
+   * Gets the histogram of the durations of the answered APDU transmissions, with power of 2
+   * buckets: the bucket {@code i > 0} counts the transmissions whose duration {@code d} in
+   * nanoseconds is such as {@code 2^(i-1) <= d < 2^i}, the bucket 0 those of null duration, and the
+   * last bucket also counts the longer transmissions.
+   *
+   * @return A new array of {@link #LATENCY_BUCKET_COUNT} counts.
+   * @since 2.3.0
+   */
+  long[] getTransmissionLatencyHistogram();
+
+  /**
+   * Gets the number of cards inserted in the reader.
+   *
+   * @return A positive long.
+   * @since 2.3.0
+   */
+  long getCardInsertionCount();
+
+  /**
+   * Gets the number of cards removed from the reader.
+   *
+   * @return A positive long.
+   * @since 2.3.0
+   */
+  long getCardRemovalCount();
+
+  /**
+   * Gets the number of times a physical channel has been opened with a card.
+   *
+   * @return A positive long.
+   * @since 2.3.0
+   */
+  long getPhysicalChannelOpeningCount();
+
+  /**
+   * Gets the cumulated time during which a physical channel was open, including the current
+   * opening if any.
+   *
+   * @return A duration in nanoseconds.
+   * @since 2.3.0
+   */
+  long getPhysicalChannelOpenTimeNanos();
+}
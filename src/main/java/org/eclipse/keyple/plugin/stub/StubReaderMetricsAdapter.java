@@ -0,0 +1,271 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link StubReaderMetrics} based on striped concurrent counters.
+ *
+ * <p>Recording does not allocate once the buckets of the latency histogram have been used, each
+ * bucket being created on its first use to keep the footprint of idle readers low.
+ *
+ * @since 2.3.0
+ */
+final class StubReaderMetricsAdapter implements StubReaderMetrics {
+
+  private static final long CLOSED = Long.MIN_VALUE;
+
+  /**
+   * (package-private)<br>
+   * Empty metrics shared by the readers whose metrics are disabled, never updated.
+   *
+   * @since 2.3.0
+   */
+  static final StubReaderMetricsAdapter NO_METRICS = new StubReaderMetricsAdapter();
+
+  private final LongAdder transmittedApduCount = new LongAdder();
+  private final LongAdder failedTransmissionCount = new LongAdder();
+  private final LongAdder commandByteCount = new LongAdder();
+  private final LongAdder responseByteCount = new LongAdder();
+  private final LongAdder totalTransmissionTimeNanos = new LongAdder();
+  private final AtomicReferenceArray<LongAdder> latencyBuckets =
+      new AtomicReferenceArray<>(LATENCY_BUCKET_COUNT);
+  private final LongAdder cardInsertionCount = new LongAdder();
+  private final LongAdder cardRemovalCount = new LongAdder();
+  private final LongAdder physicalChannelOpeningCount = new LongAdder();
+  private final LongAdder physicalChannelOpenTimeNanos = new LongAdder();
+  // opening time of the current physical channel, CLOSED if none
+  private final AtomicLong physicalChannelOpeningTime = new AtomicLong(CLOSED);
+
+  /**
+   * (package-private)<br>
+   * Records an answered APDU transmission.
+   *
+   * @param commandLength length of the APDU
+   * @param responseLength length of the response
+   * @param durationNanos duration of the transmission, in nanoseconds
+   * @since 2.3.0
+   */
+  void onApduTransmitted(int commandLength, int responseLength, long durationNanos) {
+    transmittedApduCount.increment();
+    commandByteCount.add(commandLength);
+    responseByteCount.add(responseLength);
+    totalTransmissionTimeNanos.add(durationNanos);
+    int bucket = Math.min(64 - Long.numberOfLeadingZeros(durationNanos), LATENCY_BUCKET_COUNT - 1);
+    LongAdder latencyBucket = latencyBuckets.get(bucket);
+    if (latencyBucket == null) {
+      latencyBuckets.compareAndSet(bucket, null, new LongAdder());
+      latencyBucket = latencyBuckets.get(bucket);
+    }
+    latencyBucket.increment();
+  }
+
+  /**
+   * (package-private)<br>
+   * Records a failed APDU transmission.
+   *
+   * @since 2.3.0
+   */
+  void onTransmissionFailed() {
+    failedTransmissionCount.increment();
+  }
+
+  /**
+   * (package-private)<br>
+   * Records a card insertion.
+   *
+   * @since 2.3.0
+   */
+  void onCardInserted() {
+    cardInsertionCount.increment();
+  }
+
+  /**
+   * (package-private)<br>
+   * Records a card removal.
+   *
+   * @since 2.3.0
+   */
+  void onCardRemoved() {
+    cardRemovalCount.increment();
+  }
+
+  /**
+   * (package-private)<br>
+   * Records the opening of a physical channel, ignored if a channel is already open.
+   *
+   * @since 2.3.0
+   */
+  void onPhysicalChannelOpened() {
+    if (physicalChannelOpeningTime.compareAndSet(CLOSED, System.nanoTime())) {
+      physicalChannelOpeningCount.increment();
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Records the closing of the physical channel, ignored if no channel is open.
+   *
+   * @since 2.3.0
+   */
+  void onPhysicalChannelClosed() {
+    long openingTime = physicalChannelOpeningTime.getAndSet(CLOSED);
+    if (openingTime != CLOSED) {
+      physicalChannelOpenTimeNanos.add(System.nanoTime() - openingTime);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getTransmittedApduCount() {
+    return transmittedApduCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getFailedTransmissionCount() {
+    return failedTransmissionCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getCommandByteCount() {
+    return commandByteCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getResponseByteCount() {
+    return responseByteCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getTotalTransmissionTimeNanos() {
+    return totalTransmissionTimeNanos.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long[] getTransmissionLatencyHistogram() {
+    long[] histogram = new long[LATENCY_BUCKET_COUNT];
+    for (int i = 0; i < LATENCY_BUCKET_COUNT; i++) {
+      LongAdder latencyBucket = latencyBuckets.get(i);
+      if (latencyBucket != null) {
+        histogram[i] = latencyBucket.sum();
+      }
+    }
+    return histogram;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getCardInsertionCount() {
+    return cardInsertionCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getCardRemovalCount() {
+    return cardRemovalCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getPhysicalChannelOpeningCount() {
+    return physicalChannelOpeningCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getPhysicalChannelOpenTimeNanos() {
+    long openTime = physicalChannelOpenTimeNanos.sum();
+    long openingTime = physicalChannelOpeningTime.get();
+    if (openingTime != CLOSED) {
+      openTime += System.nanoTime() - openingTime;
+    }
+    return openTime;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public String toString() {
+    return "StubReaderMetrics{"
+        + "transmittedApduCount="
+        + getTransmittedApduCount()
+        + ", failedTransmissionCount="
+        + getFailedTransmissionCount()
+        + ", commandByteCount="
+        + getCommandByteCount()
+        + ", responseByteCount="
+        + getResponseByteCount()
+        + ", totalTransmissionTimeNanos="
+        + getTotalTransmissionTimeNanos()
+        + ", cardInsertionCount="
+        + getCardInsertionCount()
+        + ", cardRemovalCount="
+        + getCardRemovalCount()
+        + ", physicalChannelOpeningCount="
+        + getPhysicalChannelOpeningCount()
+        + ", physicalChannelOpenTimeNanos="
+        + getPhysicalChannelOpenTimeNanos()
+        + '}';
+  }
+}
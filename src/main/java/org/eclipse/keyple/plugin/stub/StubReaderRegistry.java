@@ -0,0 +1,199 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.keyple.core.plugin.AutonomousObservablePluginApi;
+import org.eclipse.keyple.core.plugin.spi.reader.ReaderSpi;
+
+/**
+ * (package-private)<br>
+ * Copy-on-write registry of the readers of a stub plugin.
+ *
+ * <p>Readers are looked up and enumerated without locking from an immutable snapshot, which is
+ * replaced by each plug or unplug operation. The enumerations returned to the callers are immutable
+ * views of the current snapshot and are built at most once per snapshot, so repeated enumerations
+ * between two changes do not create any garbage. Each change increments a version number allowing
+ * the observers to detect that nothing changed without comparing reader sets.
+ *
+ * <p>When an observer is set, each change is also pushed to it as it is published, the readers
+ * replaced by a new reader with the same name being reported as disconnected before the new
+ * readers are reported as connected. Changes are published and pushed under the same lock, so the
+ * observer receives them in the order of the successive snapshots.
+ *
+ * @since 2.3.0
+ */
+final class StubReaderRegistry {
+
+  private final Object lock = new Object();
+  private volatile Snapshot snapshot =
+      new Snapshot(Collections.<String, AbstractStubReaderAdapter>emptyMap(), 0);
+  private volatile AutonomousObservablePluginApi observer;
+
+  /**
+   * (package-private)<br>
+   * Sets the observer to which the next changes are pushed.
+   *
+   * @param observer (nullable) the observer, null to stop pushing the changes
+   * @since 2.3.0
+   */
+  void setObserver(AutonomousObservablePluginApi observer) {
+    synchronized (lock) {
+      this.observer = observer;
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets a reader by its name.
+   *
+   * @param name (non-nullable) name of the reader
+   * @return Null if no reader has this name.
+   * @since 2.3.0
+   */
+  AbstractStubReaderAdapter get(String name) {
+    return snapshot.readers.get(name);
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the names of the registered readers.
+   *
+   * @return A not null immutable set.
+   * @since 2.3.0
+   */
+  Set<String> getReaderNames() {
+    return snapshot.readerNames;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the registered readers.
+   *
+   * @return A not null immutable set.
+   * @since 2.3.0
+   */
+  Set<ReaderSpi> getReaders() {
+    return snapshot.getReaders();
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the version of the registry, incremented by each change.
+   *
+   * @return A positive or zero long.
+   * @since 2.3.0
+   */
+  long getVersion() {
+    return snapshot.version;
+  }
+
+  /**
+   * (package-private)<br>
+   * Registers readers in a single change, replacing the readers with the same names.
+   *
+   * @param readers (non-nullable) the readers by name
+   * @since 2.3.0
+   */
+  void putAll(Map<String, ? extends AbstractStubReaderAdapter> readers) {
+    if (readers.isEmpty()) {
+      return;
+    }
+    synchronized (lock) {
+      Map<String, AbstractStubReaderAdapter> newReaders =
+          new HashMap<>((int) ((snapshot.readers.size() + readers.size()) / 0.75f) + 1);
+      newReaders.putAll(snapshot.readers);
+      newReaders.putAll(readers);
+      Set<String> replacedReaderNames = null;
+      if (observer != null) {
+        for (String name : readers.keySet()) {
+          if (snapshot.readers.containsKey(name)) {
+            if (replacedReaderNames == null) {
+              replacedReaderNames = new HashSet<>();
+            }
+            replacedReaderNames.add(name);
+          }
+        }
+      }
+      snapshot = new Snapshot(newReaders, snapshot.version + 1);
+      if (observer != null) {
+        if (replacedReaderNames != null) {
+          observer.onReaderDisconnected(replacedReaderNames);
+        }
+        observer.onReaderConnected(new HashSet<ReaderSpi>(readers.values()));
+      }
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Unregisters readers in a single change, unknown names being ignored.
+   *
+   * @param names (non-nullable) the names of the readers
+   * @since 2.3.0
+   */
+  void removeAll(Collection<String> names) {
+    synchronized (lock) {
+      Map<String, AbstractStubReaderAdapter> newReaders = null;
+      Set<String> removedReaderNames = null;
+      for (String name : names) {
+        if (snapshot.readers.containsKey(name)) {
+          if (newReaders == null) {
+            newReaders = new HashMap<>(snapshot.readers);
+            removedReaderNames = new HashSet<>();
+          }
+          newReaders.remove(name);
+          removedReaderNames.add(name);
+        }
+      }
+      if (newReaders != null) {
+        snapshot = new Snapshot(newReaders, snapshot.version + 1);
+        if (observer != null) {
+          observer.onReaderDisconnected(removedReaderNames);
+        }
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Immutable state of the registry.
+   */
+  private static final class Snapshot {
+
+    private final Map<String, AbstractStubReaderAdapter> readers;
+    private final Set<String> readerNames;
+    private final long version;
+    // built on first use, the race between two first uses is benign
+    private volatile Set<ReaderSpi> readerSet;
+
+    private Snapshot(Map<String, AbstractStubReaderAdapter> readers, long version) {
+      this.readers = readers;
+      this.readerNames = Collections.unmodifiableSet(readers.keySet());
+      this.version = version;
+    }
+
+    private Set<ReaderSpi> getReaders() {
+      Set<ReaderSpi> readerSet = this.readerSet;
+      if (readerSet == null) {
+        readerSet = Collections.unmodifiableSet(new HashSet<ReaderSpi>(readers.values()));
+        this.readerSet = readerSet;
+      }
+      return readerSet;
+    }
+  }
+}
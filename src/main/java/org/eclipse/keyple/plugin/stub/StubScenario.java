@@ -0,0 +1,346 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.keyple.core.util.Assert;
+import org.eclipse.keyple.core.util.HexUtil;
+
+/**
+ * Declarative load pattern of card insertions, APDU transmissions and card removals on a set of
+ * {@link StubReader}, played by a {@link StubScenarioScheduler}.
+ *
+ * <p>A scenario combines a timeline of events at fixed times and random tap processes, in which the
+ * cards are tapped on a reader at Poisson distributed times, as the cards of the passengers of a
+ * transit gate. A tap inserts the card, transmits the tap commands of the scenario and removes the
+ * card after a dwell time. All the times are expressed in milliseconds from the start of the
+ * scenario.
+ *
+ * <p>A card should be used by a single reader at a time, as its physical channel state follows the
+ * reader in which it is inserted. Instances are immutable and can be played several times.
+ *
+ * @since 2.3.0
+ */
+public final class StubScenario {
+
+  // types of the timeline events
+  static final int INSERTION = 0;
+  static final int REMOVAL = 1;
+  static final int TRANSMISSION = 2;
+  static final int TAP = 3;
+
+  private final List<TimelineEvent> timelineEvents;
+  private final List<PoissonTaps> poissonTaps;
+  private final List<byte[]> tapCommands;
+  private final long duration;
+
+  /**
+   * (private)<br>
+   * Constructor.
+   */
+  private StubScenario(Builder builder) {
+    this.timelineEvents =
+        Collections.unmodifiableList(new ArrayList<TimelineEvent>(builder.timelineEvents));
+    this.poissonTaps =
+        Collections.unmodifiableList(new ArrayList<PoissonTaps>(builder.poissonTaps));
+    this.tapCommands = Collections.unmodifiableList(new ArrayList<byte[]>(builder.tapCommands));
+    this.duration = builder.duration;
+  }
+
+  /**
+   * Creates a builder of scenario.
+   *
+   * @return A not null reference.
+   * @since 2.3.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the events at fixed times.
+   *
+   * @return A not null immutable list.
+   * @since 2.3.0
+   */
+  List<TimelineEvent> getTimelineEvents() {
+    return timelineEvents;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the random tap processes.
+   *
+   * @return A not null immutable list.
+   * @since 2.3.0
+   */
+  List<PoissonTaps> getPoissonTaps() {
+    return poissonTaps;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the commands transmitted after each card insertion of a tap.
+   *
+   * @return A not null immutable list, to be read only.
+   * @since 2.3.0
+   */
+  List<byte[]> getTapCommands() {
+    return tapCommands;
+  }
+
+  /**
+   * (package-private)<br>
+   * Gets the duration of the random tap processes.
+   *
+   * @return The duration in milliseconds, 0 if the taps last until the scheduler is stopped.
+   * @since 2.3.0
+   */
+  long getDuration() {
+    return duration;
+  }
+
+  /**
+   * (private)<br>
+   * Gets the reader adapter behind a {@link StubReader}.
+   */
+  private static AbstractStubReaderAdapter getReaderAdapter(StubReader reader) {
+    Assert.getInstance().notNull(reader, "reader");
+    if (!(reader instanceof AbstractStubReaderAdapter)) {
+      throw new IllegalArgumentException(
+          "Cannot cast 'reader' to a stub reader adapter. Actual type: "
+              + reader.getClass().getName());
+    }
+    return (AbstractStubReaderAdapter) reader;
+  }
+
+  /**
+   * (package-private)<br>
+   * Event of the timeline.
+   *
+   * @since 2.3.0
+   */
+  static final class TimelineEvent {
+
+    final int type;
+    final long time;
+    final AbstractStubReaderAdapter reader;
+    final StubSmartCard card;
+    final byte[] apdu;
+    final long dwellTime;
+
+    private TimelineEvent(
+        int type,
+        long time,
+        AbstractStubReaderAdapter reader,
+        StubSmartCard card,
+        byte[] apdu,
+        long dwellTime) {
+      this.type = type;
+      this.time = time;
+      this.reader = reader;
+      this.card = card;
+      this.apdu = apdu;
+      this.dwellTime = dwellTime;
+    }
+  }
+
+  /**
+   * (package-private)<br>
+   * Random tap process of a card on a reader.
+   *
+   * @since 2.3.0
+   */
+  static final class PoissonTaps {
+
+    final AbstractStubReaderAdapter reader;
+    final StubSmartCard card;
+    final double tapsPerSecond;
+    final long dwellTime;
+
+    private PoissonTaps(
+        AbstractStubReaderAdapter reader,
+        StubSmartCard card,
+        double tapsPerSecond,
+        long dwellTime) {
+      this.reader = reader;
+      this.card = card;
+      this.tapsPerSecond = tapsPerSecond;
+      this.dwellTime = dwellTime;
+    }
+  }
+
+  /**
+   * Builder of {@link StubScenario}.
+   *
+   * @since 2.3.0
+   */
+  public static final class Builder {
+
+    private final List<TimelineEvent> timelineEvents;
+    private final List<PoissonTaps> poissonTaps;
+    private final List<byte[]> tapCommands;
+    private long duration;
+
+    /**
+     * (private)<br>
+     * Constructor.
+     */
+    private Builder() {
+      timelineEvents = new ArrayList<>();
+      poissonTaps = new ArrayList<>();
+      tapCommands = new ArrayList<>();
+    }
+
+    /**
+     * Inserts a card in a reader at the provided time.
+     *
+     * @param time the time in milliseconds (positive or zero)
+     * @param reader (non-nullable) the reader
+     * @param card (non-nullable) the card
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range or null.
+     * @since 2.3.0
+     */
+    public Builder withInsertion(long time, StubReader reader, StubSmartCard card) {
+      Assert.getInstance().greaterOrEqual(time, 0L, "time").notNull(card, "card");
+      timelineEvents.add(
+          new TimelineEvent(INSERTION, time, getReaderAdapter(reader), card, null, 0L));
+      return this;
+    }
+
+    /**
+     * Removes the card of a reader at the provided time.
+     *
+     * @param time the time in milliseconds (positive or zero)
+     * @param reader (non-nullable) the reader
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range or null.
+     * @since 2.3.0
+     */
+    public Builder withRemoval(long time, StubReader reader) {
+      Assert.getInstance().greaterOrEqual(time, 0L, "time");
+      timelineEvents.add(
+          new TimelineEvent(REMOVAL, time, getReaderAdapter(reader), null, null, 0L));
+      return this;
+    }
+
+    /**
+     * Transmits an APDU to the card inserted in a reader at the provided time.
+     *
+     * @param time the time in milliseconds (positive or zero)
+     * @param reader (non-nullable) the reader
+     * @param apdu (non-empty) hexadecimal APDU
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range, null or invalid.
+     * @since 2.3.0
+     */
+    public Builder withTransmission(long time, StubReader reader, String apdu) {
+      Assert.getInstance()
+          .greaterOrEqual(time, 0L, "time")
+          .notEmpty(apdu, "apdu")
+          .isHexString(apdu, "apdu");
+      timelineEvents.add(
+          new TimelineEvent(
+              TRANSMISSION, time, getReaderAdapter(reader), null, HexUtil.toByteArray(apdu), 0L));
+      return this;
+    }
+
+    /**
+     * Taps a card on a reader at the provided time: the card is inserted, the tap commands are
+     * transmitted and the card is removed after the dwell time.
+     *
+     * @param time the time in milliseconds (positive or zero)
+     * @param reader (non-nullable) the reader
+     * @param card (non-nullable) the card
+     * @param dwellTime the time in milliseconds during which the card stays in the reader (positive
+     *     or zero)
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range or null.
+     * @since 2.3.0
+     */
+    public Builder withTap(long time, StubReader reader, StubSmartCard card, long dwellTime) {
+      Assert.getInstance()
+          .greaterOrEqual(time, 0L, "time")
+          .notNull(card, "card")
+          .greaterOrEqual(dwellTime, 0L, "dwellTime");
+      timelineEvents.add(
+          new TimelineEvent(TAP, time, getReaderAdapter(reader), card, null, dwellTime));
+      return this;
+    }
+
+    /**
+     * Taps a card on a reader at random times, following a Poisson process of the provided rate,
+     * from the start of the scenario until the end of its duration. A tap occurring while a card is
+     * still in the reader is skipped.
+     *
+     * @param reader (non-nullable) the reader
+     * @param card (non-nullable) the card
+     * @param tapsPerSecond the mean number of taps per second (strictly positive)
+     * @param dwellTime the time in milliseconds during which the card stays in the reader (positive
+     *     or zero)
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range or null.
+     * @since 2.3.0
+     */
+    public Builder withPoissonTaps(
+        StubReader reader, StubSmartCard card, double tapsPerSecond, long dwellTime) {
+      Assert.getInstance()
+          .notNull(card, "card")
+          .isTrue(tapsPerSecond > 0, "tapsPerSecond > 0")
+          .greaterOrEqual(dwellTime, 0L, "dwellTime");
+      poissonTaps.add(new PoissonTaps(getReaderAdapter(reader), card, tapsPerSecond, dwellTime));
+      return this;
+    }
+
+    /**
+     * Adds a command transmitted to the card after its insertion by each tap, in declaration order.
+     *
+     * @param apdu (non-empty) hexadecimal APDU
+     * @return The builder instance.
+     * @throws IllegalArgumentException If the APDU is null or invalid.
+     * @since 2.3.0
+     */
+    public Builder withTapCommand(String apdu) {
+      Assert.getInstance().notEmpty(apdu, "apdu").isHexString(apdu, "apdu");
+      tapCommands.add(HexUtil.toByteArray(apdu));
+      return this;
+    }
+
+    /**
+     * Sets the duration of the random tap processes.
+     *
+     * @param duration in milliseconds, default value : 0 (taps until the scheduler is stopped)
+     * @return The builder instance.
+     * @throws IllegalArgumentException If the duration is negative.
+     * @since 2.3.0
+     */
+    public Builder withDuration(long duration) {
+      Assert.getInstance().greaterOrEqual(duration, 0L, "duration");
+      this.duration = duration;
+      return this;
+    }
+
+    /**
+     * Builds the scenario.
+     *
+     * @return A not null reference.
+     * @since 2.3.0
+     */
+    public StubScenario build() {
+      return new StubScenario(this);
+    }
+  }
+}
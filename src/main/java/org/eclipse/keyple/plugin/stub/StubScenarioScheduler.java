@@ -0,0 +1,519 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.eclipse.keyple.core.plugin.CardIOException;
+import org.eclipse.keyple.core.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plays {@link StubScenario} load patterns on the {@link StubReader} of the stub plugins.
+ *
+ * <p>All the events of all the played scenarios are executed by a single thread driving a hashed
+ * timer wheel: the time is divided into ticks of a configurable duration, the events are placed in
+ * the wheel slot of their tick and the thread executes the events of one slot at each tick.
+ * Scheduling and executing an event are constant time operations whatever the number of readers
+ * and pending events, so that thousands of readers can be driven at realistic tap rates without a
+ * thread per reader. An event is executed at most one tick late.
+ *
+ * <p>As the events are executed sequentially, the APDUs transmitted to cards having a {@link
+ * StubTimingModel} delay the following events by the simulated exchange durations.
+ *
+ * <p>Methods of this class are thread-safe.
+ *
+ * @since 2.3.0
+ */
+public final class StubScenarioScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(StubScenarioScheduler.class);
+
+  /** Number of slots of the wheel, a power of 2. */
+  private static final int WHEEL_SIZE = 512;
+
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+  private final long tickNanos;
+  private final WheelTask[] wheel;
+  // tasks scheduled from other threads than the worker, transferred to the wheel at each tick
+  private final Queue<WheelTask> pendingTasks;
+  private final AtomicLong executedEventCount;
+  private final AtomicLong skippedEventCount;
+  private Thread worker;
+  private volatile boolean isRunning;
+  // owned by the worker thread
+  private long startTime;
+  private long currentTick;
+
+  /**
+   * (private)<br>
+   * Constructor.
+   */
+  private StubScenarioScheduler(Builder builder) {
+    this.tickNanos = builder.tickDuration * 1000000L;
+    this.wheel = new WheelTask[WHEEL_SIZE];
+    this.pendingTasks = new ConcurrentLinkedQueue<>();
+    this.executedEventCount = new AtomicLong();
+    this.skippedEventCount = new AtomicLong();
+  }
+
+  /**
+   * Creates a builder of scheduler.
+   *
+   * @return A not null reference.
+   * @since 2.3.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Starts the scheduler thread. The scenarios played before the start are executed from now on,
+   * their events being late if the scheduler was started after their time.
+   *
+   * @throws IllegalStateException If the scheduler is already running.
+   * @since 2.3.0
+   */
+  public synchronized void start() {
+    if (isRunning) {
+      throw new IllegalStateException("The scenario scheduler is already running");
+    }
+    isRunning = true;
+    startTime = System.nanoTime();
+    currentTick = 0;
+    worker =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                runWheel();
+              }
+            },
+            "StubScenarioScheduler");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Stops the scheduler thread and discards the pending events, including the random taps still
+   * to come. It does nothing if the scheduler is not running.
+   *
+   * @since 2.3.0
+   */
+  public synchronized void stop() {
+    if (!isRunning) {
+      return;
+    }
+    isRunning = false;
+    LockSupport.unpark(worker);
+    try {
+      worker.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    worker = null;
+    pendingTasks.clear();
+    for (int i = 0; i < WHEEL_SIZE; i++) {
+      wheel[i] = null;
+    }
+  }
+
+  /**
+   * Plays a scenario, whose times are counted from now. Several scenarios can be played at the same
+   * time.
+   *
+   * @param scenario (non-nullable) the scenario
+   * @throws IllegalArgumentException If the scenario is null.
+   * @since 2.3.0
+   */
+  public void play(StubScenario scenario) {
+    Assert.getInstance().notNull(scenario, "scenario");
+    long now = System.nanoTime();
+    byte[][] tapCommands = scenario.getTapCommands().toArray(new byte[0][]);
+    for (StubScenario.TimelineEvent event : scenario.getTimelineEvents()) {
+      WheelTask task;
+      switch (event.type) {
+        case StubScenario.INSERTION:
+          task = new Insertion(event.reader, event.card);
+          break;
+        case StubScenario.REMOVAL:
+          task = new Removal(event.reader);
+          break;
+        case StubScenario.TRANSMISSION:
+          task = new Transmission(event.reader, event.apdu);
+          break;
+        default:
+          task = new Tap(event.reader, event.card, tapCommands, event.dwellTime);
+          break;
+      }
+      task.deadline = now + event.time * 1000000L;
+      pendingTasks.offer(task);
+    }
+    for (StubScenario.PoissonTaps poissonTaps : scenario.getPoissonTaps()) {
+      PoissonArrival task =
+          new PoissonArrival(poissonTaps, tapCommands, scenario.getDuration() * 1000000L, now);
+      pendingTasks.offer(task);
+    }
+  }
+
+  /**
+   * Gets the number of insertions, removals and transmissions executed so far.
+   *
+   * @return A positive or zero long.
+   * @since 2.3.0
+   */
+  public long getExecutedEventCount() {
+    return executedEventCount.get();
+  }
+
+  /**
+   * Gets the number of events which could not be executed so far: insertions in a reader already
+   * containing a card or not supporting the card protocol, removals and transmissions without card,
+   * failed transmissions and skipped random taps.
+   *
+   * @return A positive or zero long.
+   * @since 2.3.0
+   */
+  public long getSkippedEventCount() {
+    return skippedEventCount.get();
+  }
+
+  /**
+   * (private)<br>
+   * Loop of the worker thread, executing the tasks of one slot at each tick.
+   */
+  private void runWheel() {
+    while (isRunning) {
+      long tickTime = startTime + (currentTick + 1) * tickNanos;
+      long remaining;
+      while ((remaining = tickTime - System.nanoTime()) > 0 && isRunning) {
+        LockSupport.parkNanos(remaining);
+      }
+      if (!isRunning) {
+        return;
+      }
+      currentTick++;
+      WheelTask task;
+      while ((task = pendingTasks.poll()) != null) {
+        addTask(task, currentTick);
+      }
+      expireSlot();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Executes the due tasks of the slot of the current tick, the other tasks of the slot waiting
+   * for one more round.
+   */
+  private void expireSlot() {
+    int slot = (int) (currentTick & WHEEL_MASK);
+    WheelTask task = wheel[slot];
+    wheel[slot] = null;
+    while (task != null) {
+      WheelTask next = task.next;
+      task.next = null;
+      if (task.remainingRounds > 0) {
+        task.remainingRounds--;
+        task.next = wheel[slot];
+        wheel[slot] = task;
+      } else {
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          skippedEventCount.incrementAndGet();
+          logger.warn("Scenario event failed: {}", e.getMessage(), e);
+        }
+      }
+      task = next;
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Schedules a task from the worker thread, while the slot of the current tick is being executed.
+   */
+  private void schedule(WheelTask task) {
+    addTask(task, currentTick + 1);
+  }
+
+  /**
+   * (private)<br>
+   * Places a task in the slot of its deadline, or in the slot of the first tick still to be
+   * executed if its deadline is passed.
+   */
+  private void addTask(WheelTask task, long firstTick) {
+    long deadlineTick = (task.deadline - startTime + tickNanos - 1) / tickNanos;
+    long tick = Math.max(deadlineTick, firstTick);
+    task.remainingRounds = (tick - firstTick) / WHEEL_SIZE;
+    int slot = (int) (tick & WHEEL_MASK);
+    task.next = wheel[slot];
+    wheel[slot] = task;
+  }
+
+  /**
+   * (private)<br>
+   * Inserts a card in a reader, counting the outcome.
+   */
+  private boolean insertCard(AbstractStubReaderAdapter reader, StubSmartCard card) {
+    if (reader.getSmartcard() == null) {
+      reader.insertCard(card);
+      if (reader.getSmartcard() == card) {
+        executedEventCount.incrementAndGet();
+        return true;
+      }
+    }
+    skippedEventCount.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * (private)<br>
+   * Removes the card of a reader, counting the outcome.
+   */
+  private void removeCard(AbstractStubReaderAdapter reader) {
+    if (reader.getSmartcard() != null) {
+      reader.removeCard();
+      executedEventCount.incrementAndGet();
+    } else {
+      skippedEventCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Transmits an APDU to the card of a reader, counting the outcome.
+   */
+  private void transmitApdu(AbstractStubReaderAdapter reader, byte[] apdu) {
+    try {
+      reader.transmitApdu(apdu);
+      executedEventCount.incrementAndGet();
+    } catch (CardIOException e) {
+      skippedEventCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Event placed in the wheel, executed by the worker thread.
+   */
+  private abstract static class WheelTask {
+
+    long deadline;
+    long remainingRounds;
+    WheelTask next;
+
+    abstract void run();
+  }
+
+  /**
+   * (private)<br>
+   * Insertion of a card.
+   */
+  private final class Insertion extends WheelTask {
+
+    private final AbstractStubReaderAdapter reader;
+    private final StubSmartCard card;
+
+    private Insertion(AbstractStubReaderAdapter reader, StubSmartCard card) {
+      this.reader = reader;
+      this.card = card;
+    }
+
+    @Override
+    void run() {
+      insertCard(reader, card);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Removal of the card of a reader.
+   */
+  private final class Removal extends WheelTask {
+
+    private final AbstractStubReaderAdapter reader;
+    private boolean isScheduled;
+
+    private Removal(AbstractStubReaderAdapter reader) {
+      this.reader = reader;
+    }
+
+    @Override
+    void run() {
+      isScheduled = false;
+      removeCard(reader);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Transmission of an APDU.
+   */
+  private final class Transmission extends WheelTask {
+
+    private final AbstractStubReaderAdapter reader;
+    private final byte[] apdu;
+
+    private Transmission(AbstractStubReaderAdapter reader, byte[] apdu) {
+      this.reader = reader;
+      this.apdu = apdu;
+    }
+
+    @Override
+    void run() {
+      transmitApdu(reader, apdu);
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Tap of a card: insertion, transmission of the tap commands and removal after the dwell time.
+   */
+  private final class Tap extends WheelTask {
+
+    private final AbstractStubReaderAdapter reader;
+    private final StubSmartCard card;
+    private final byte[][] tapCommands;
+    private final long dwellNanos;
+
+    private Tap(
+        AbstractStubReaderAdapter reader,
+        StubSmartCard card,
+        byte[][] tapCommands,
+        long dwellTime) {
+      this.reader = reader;
+      this.card = card;
+      this.tapCommands = tapCommands;
+      this.dwellNanos = dwellTime * 1000000L;
+    }
+
+    @Override
+    void run() {
+      if (insertCard(reader, card)) {
+        for (byte[] apdu : tapCommands) {
+          transmitApdu(reader, apdu);
+        }
+        Removal removal = new Removal(reader);
+        removal.deadline = System.nanoTime() + dwellNanos;
+        schedule(removal);
+      }
+    }
+  }
+
+  /**
+   * (private)<br>
+   * Next arrival of a Poisson tap process. The same task is rescheduled for each arrival and
+   * reuses a single removal task, so a running process does not allocate.
+   */
+  private final class PoissonArrival extends WheelTask {
+
+    private final AbstractStubReaderAdapter reader;
+    private final StubSmartCard card;
+    private final double meanIntervalNanos;
+    private final long dwellNanos;
+    private final byte[][] tapCommands;
+    private final long endTime;
+    private final boolean hasEndTime;
+    private final Removal removal;
+
+    private PoissonArrival(
+        StubScenario.PoissonTaps poissonTaps, byte[][] tapCommands, long duration, long now) {
+      this.reader = poissonTaps.reader;
+      this.card = poissonTaps.card;
+      this.meanIntervalNanos = 1000000000d / poissonTaps.tapsPerSecond;
+      this.dwellNanos = poissonTaps.dwellTime * 1000000L;
+      this.tapCommands = tapCommands;
+      this.endTime = now + duration;
+      this.hasEndTime = duration > 0;
+      this.removal = new Removal(reader);
+      this.deadline = now + nextInterval();
+    }
+
+    @Override
+    void run() {
+      if (hasEndTime && deadline - endTime >= 0) {
+        return;
+      }
+      if (removal.isScheduled) {
+        // the previous tap is not over
+        skippedEventCount.incrementAndGet();
+      } else if (insertCard(reader, card)) {
+        for (byte[] apdu : tapCommands) {
+          transmitApdu(reader, apdu);
+        }
+        removal.isScheduled = true;
+        removal.deadline = System.nanoTime() + dwellNanos;
+        schedule(removal);
+      }
+      // the arrivals follow the theoretical times, whatever the execution delays
+      deadline += nextInterval();
+      schedule(this);
+    }
+
+    /**
+     * (private)<br>
+     * Draws the exponentially distributed interval until the next arrival.
+     */
+    private long nextInterval() {
+      double random = ThreadLocalRandom.current().nextDouble();
+      return (long) (-Math.log(1.0d - random) * meanIntervalNanos);
+    }
+  }
+
+  /**
+   * Builder of {@link StubScenarioScheduler}.
+   *
+   * @since 2.3.0
+   */
+  public static final class Builder {
+
+    private int tickDuration;
+
+    /**
+     * (private)<br>
+     * Constructor.
+     */
+    private Builder() {
+      tickDuration = 1;
+    }
+
+    /**
+     * Sets the duration of a tick of the timer wheel, which is the time resolution of the events.
+     *
+     * @param tickDuration in milliseconds, default value : 1
+     * @return The builder instance.
+     * @throws IllegalArgumentException If the duration is lower than 1.
+     * @since 2.3.0
+     */
+    public Builder withTickDuration(int tickDuration) {
+      Assert.getInstance().greaterOrEqual(tickDuration, 1, "tickDuration");
+      this.tickDuration = tickDuration;
+      return this;
+    }
+
+    /**
+     * Builds the scheduler, which is not started.
+     *
+     * @return A not null reference.
+     * @since 2.3.0
+     */
+    public StubScenarioScheduler build() {
+      return new StubScenarioScheduler(this);
+    }
+  }
+}
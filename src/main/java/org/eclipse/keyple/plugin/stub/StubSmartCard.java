@@ -11,13 +11,16 @@
  ************************************************************************************** */
 package org.eclipse.keyple.plugin.stub;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 import org.eclipse.keyple.core.plugin.CardIOException;
 import org.eclipse.keyple.core.util.Assert;
 import org.eclipse.keyple.core.util.HexUtil;
 import org.eclipse.keyple.plugin.stub.spi.ApduResponseProviderSpi;
+import org.eclipse.keyple.plugin.stub.spi.RawApduResponseProviderSpi;
 
 /**
  * Simulated smart card that can be inserted into a {@link StubReader}. Use the {@link Builder} to
@@ -28,31 +31,65 @@
 public class StubSmartCard {
 
   private final byte[] powerOnData;
+  // precomputed once, the power-on data is read by the reader on each card selection
+  private final String powerOnDataHex;
   private final String cardProtocol;
-  private boolean isPhysicalChannelOpen;
-  private final Map<String, String> hexCommands;
-  private final ApduResponseProviderSpi apduResponseProvider;
+  // written by the reader, read by the observation thread
+  private volatile boolean isPhysicalChannelOpen;
+  private final CommandHandlerDispatcher commandHandlerDispatcher;
+  private final SimulatedCommandMatcher simulatedCommandMatcher;
+  private final RawApduResponseProviderSpi apduResponseProvider;
+  private final StubTimingModel timingModel;
+  private final boolean isResponseSharingEnabled;
+  private final StubSmartCardMetricsAdapter metrics;
+  private final CommandMissRecorder commandMissRecorder;
+  private final ResponseOverlay responseOverlay;
+  private final ResponseTemplate.CardState responseTemplateState;
 
   /**
    * (private) <br>
    * Create a simulated smart card with mandatory parameters The response APDU can be provided using
-   * <code>apduResponseProvider</code> if it is not null or <code>hexCommands</code> by default.
+   * <code>apduResponseProvider</code> if it is not null or <code>simulatedCommandMatcher</code> by
+   * default.
    *
-   * @param powerOnData (non-nullable) power-on data of the card
+   * @param powerOnData (nullable) power-on data of the card, owned by the card
    * @param cardProtocol (non-nullable) card protocol
-   * @param hexCommands (non-nullable) set of simulated commands
+   * @param commandHandlerDispatcher (nullable) dispatcher of the command handlers, null if none
+   * @param simulatedCommandMatcher (non-nullable) matching engine of the simulated commands
    * @param apduResponseProvider (nullable) an external provider of simulated commands
+   * @param timingModel (nullable) the timing model, null if the card responds instantly
+   * @param isResponseSharingEnabled true if the pre-decoded responses are returned without copy
+   * @param metrics (nullable) the metrics of the card, null if disabled
+   * @param commandMissRecorder (nullable) the recorder of the misses, null if disabled
+   * @param responseOverlay (nullable) the replaced responses of the card, null if none
+   * @param responseTemplateState (nullable) the variables and counters of the response templates,
+   *     null if there is none
    * @since 2.0.0
    */
   private StubSmartCard(
       byte[] powerOnData,
       String cardProtocol,
-      Map<String, String> hexCommands,
-      ApduResponseProviderSpi apduResponseProvider) {
+      CommandHandlerDispatcher commandHandlerDispatcher,
+      SimulatedCommandMatcher simulatedCommandMatcher,
+      RawApduResponseProviderSpi apduResponseProvider,
+      StubTimingModel timingModel,
+      boolean isResponseSharingEnabled,
+      StubSmartCardMetricsAdapter metrics,
+      CommandMissRecorder commandMissRecorder,
+      ResponseOverlay responseOverlay,
+      ResponseTemplate.CardState responseTemplateState) {
     this.powerOnData = powerOnData;
+    this.powerOnDataHex = HexUtil.toHex(powerOnData);
     this.cardProtocol = cardProtocol;
-    this.hexCommands = hexCommands;
+    this.commandHandlerDispatcher = commandHandlerDispatcher;
+    this.simulatedCommandMatcher = simulatedCommandMatcher;
     this.apduResponseProvider = apduResponseProvider;
+    this.timingModel = timingModel;
+    this.isResponseSharingEnabled = isResponseSharingEnabled;
+    this.metrics = metrics;
+    this.commandMissRecorder = commandMissRecorder;
+    this.responseOverlay = responseOverlay;
+    this.responseTemplateState = responseTemplateState;
     isPhysicalChannelOpen = false;
   }
 
@@ -71,6 +108,8 @@ String getCardProtocol() {
    * (package-private) <br>
    * Get the card power-on data
    *
+   * <p>The returned array is the immutable copy owned by the card, it must not be modified.
+   *
    * @return Null if no power-on data are available.
    * @since 2.0.0
    */
@@ -78,6 +117,28 @@ byte[] getPowerOnData() {
     return powerOnData;
   }
 
+  /**
+   * (package-private) <br>
+   * Gets the card power-on data as an hexadecimal string, computed once when the card is built.
+   *
+   * @return A not null String, empty if no power-on data are available.
+   * @since 2.3.0
+   */
+  String getPowerOnDataHex() {
+    return powerOnDataHex;
+  }
+
+  /**
+   * (package-private) <br>
+   * Gets the timing model of the card
+   *
+   * @return Null if the card responds instantly.
+   * @since 2.3.0
+   */
+  StubTimingModel getTimingModel() {
+    return timingModel;
+  }
+
   /**
    * (package-private) <br>
    * Get the status of the physical channel
@@ -123,27 +184,79 @@ byte[] processApdu(byte[] apduIn) throws CardIOException {
       return new byte[0];
     }
 
-    // convert apduIn to hex
-    String hexApdu = HexUtil.toHex(apduIn);
-
     if (apduResponseProvider != null) {
-      String responseFromRequest = apduResponseProvider.getResponseFromRequest(hexApdu);
+      // the provider works on raw bytes, no hex conversion is needed
+      byte[] responseFromRequest = apduResponseProvider.getResponseFromRequest(apduIn);
       if (responseFromRequest != null) {
-        return HexUtil.toByteArray(responseFromRequest);
+        return responseFromRequest;
       }
-    } else if (hexCommands != null) {
-      // return matching hex response if the provided APDU matches the regex
-      Pattern p;
-      for (Map.Entry<String, String> hexCommand : hexCommands.entrySet()) {
-        p = Pattern.compile(hexCommand.getKey());
-        if (p.matcher(hexApdu).matches()) {
-          return HexUtil.toByteArray(hexCommand.getValue());
+    } else {
+      // the handlers registered on the APDU header come first, they only read the header bytes
+      if (commandHandlerDispatcher != null) {
+        byte[] responseFromHandler = commandHandlerDispatcher.dispatch(apduIn);
+        if (responseFromHandler != null) {
+          return responseFromHandler;
         }
       }
+      // return the pre-decoded response if the provided APDU matches a simulated command
+      ResponseTemplate.Groups groups =
+          responseTemplateState != null ? responseTemplateState.newGroups() : null;
+      SimulatedCommand simulatedCommand = simulatedCommandMatcher.match(apduIn, groups);
+      if (simulatedCommand != null) {
+        if (metrics != null) {
+          metrics.onHit(simulatedCommand.getOrdinal());
+        }
+        byte[] response = simulatedCommand.getResponseBytes();
+        if (responseOverlay != null) {
+          byte[] replacedResponse = responseOverlay.getResponse(simulatedCommand.getOrdinal());
+          if (replacedResponse != null) {
+            response = replacedResponse;
+          }
+        }
+        if (response == null) {
+          // rendered on each hit, never shared
+          return simulatedCommand.getResponseTemplate().render(groups, responseTemplateState);
+        }
+        return isResponseSharingEnabled ? response : response.clone();
+      }
     }
 
     // throw a CardIOException if not found
-    throw new CardIOException("No response is available for request: " + hexApdu);
+    if (metrics != null) {
+      metrics.onMiss();
+    }
+    if (commandMissRecorder != null) {
+      commandMissRecorder.record(apduIn);
+    }
+    throw new CardIOException("No response is available for request: " + HexUtil.toHex(apduIn));
+  }
+
+  /**
+   * Gets the APDU processing metrics of the card: hit counts of the simulated commands and number
+   * of APDUs without response, when they are enabled with {@link
+   * SimulatedCommandStep#withMetrics()}.
+   *
+   * @return A not null live view, which can be polled at any time, or shared empty metrics that
+   *     are never updated if the metrics are disabled.
+   * @since 2.3.0
+   */
+  public StubSmartCardMetrics getMetrics() {
+    return metrics != null ? metrics : StubSmartCardMetricsAdapter.NO_METRICS;
+  }
+
+  /**
+   * Gets the last APDUs for which the card had no response, when the miss diagnostics are enabled
+   * with {@link SimulatedCommandStep#withMissDiagnostics(int)}.
+   *
+   * @return A new list of the misses, from the oldest to the most recent, empty if there is none or
+   *     if the diagnostics are disabled.
+   * @since 2.3.0
+   */
+  public List<StubCommandMiss> getRecentMisses() {
+    if (commandMissRecorder == null) {
+      return new ArrayList<>(0);
+    }
+    return commandMissRecorder.getMisses();
   }
 
   /**
@@ -155,14 +268,14 @@ byte[] processApdu(byte[] apduIn) throws CardIOException {
   public String toString() {
     return "StubSmartCard{"
         + "powerOnData="
-        + HexUtil.toHex(powerOnData)
+        + powerOnDataHex
         + ", cardProtocol='"
         + cardProtocol
         + '\''
         + ", isPhysicalChannelOpen="
         + isPhysicalChannelOpen
         + ", hexCommands(#)="
-        + hexCommands.size()
+        + simulatedCommandMatcher.size()
         + '}';
   }
 
@@ -186,11 +299,24 @@ public static PowerOnDataStep builder() {
 
     private byte[] powerOnData;
     private String cardProtocol;
-    private ApduResponseProviderSpi apduResponseProvider;
+    private RawApduResponseProviderSpi apduResponseProvider;
+    private MatchingOrder matchingOrder;
+    private StubTimingModel timingModel;
+    private boolean isResponseSharingEnabled;
+    private int missDiagnosticsCapacity;
+    private boolean isMetricsEnabled;
     private final Map<String, String> hexCommands;
+    private final Map<String, byte[]> variables;
+    private final Map<String, Integer> commandPriorities;
+    private final List<CommandHandlerDispatcher.CommandHandler> commandHandlers;
 
     private Builder() {
-      hexCommands = new HashMap<>();
+      matchingOrder = MatchingOrder.DECLARATION;
+      // keep the declaration order to make the matching deterministic
+      hexCommands = new LinkedHashMap<>();
+      commandPriorities = new HashMap<>();
+      commandHandlers = new ArrayList<>();
+      variables = new HashMap<>();
     }
 
     /**
@@ -200,9 +326,103 @@ private Builder() {
      */
     @Override
     public SimulatedCommandStep withSimulatedCommand(String command, String response) {
+      return withSimulatedCommand(command, response, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public SimulatedCommandStep withSimulatedCommand(
+        String command, String response, int priority) {
       Assert.getInstance().notNull(command, "command").notNull(response, "response");
       // add commands without space
       hexCommands.put(command.trim(), response.trim());
+      commandPriorities.put(command.trim(), priority);
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public SimulatedCommandStep withCommandHandler(
+        int cla, int claMask, int ins, RawApduResponseProviderSpi handler) {
+      commandHandlers.add(CommandHandlerDispatcher.newCommandHandler(cla, claMask, ins, handler));
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public SimulatedCommandStep withCommandHandler(
+        int cla, int claMask, int ins, int p1, int p2, RawApduResponseProviderSpi handler) {
+      commandHandlers.add(
+          CommandHandlerDispatcher.newCommandHandler(cla, claMask, ins, p1, p2, handler));
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public SimulatedCommandStep withMatchingOrder(MatchingOrder matchingOrder) {
+      Assert.getInstance().notNull(matchingOrder, "matchingOrder");
+      this.matchingOrder = matchingOrder;
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public SimulatedCommandStep withSharedResponses() {
+      this.isResponseSharingEnabled = true;
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public SimulatedCommandStep withMissDiagnostics(int capacity) {
+      Assert.getInstance().greaterOrEqual(capacity, 1, "capacity");
+      this.missDiagnosticsCapacity = capacity;
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public SimulatedCommandStep withMetrics() {
+      this.isMetricsEnabled = true;
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public SimulatedCommandStep withVariable(String name, String value) {
+      putVariable(variables, name, value);
       return this;
     }
 
@@ -213,7 +433,47 @@ public SimulatedCommandStep withSimulatedCommand(String command, String response
      */
     @Override
     public StubSmartCard build() {
-      return new StubSmartCard(powerOnData, cardProtocol, hexCommands, apduResponseProvider);
+      ResponseTemplate.Symbols symbols = new ResponseTemplate.Symbols();
+      List<SimulatedCommand> simulatedCommands =
+          SimulatedCommand.createAll(hexCommands, commandPriorities, symbols);
+      String[] commands = SimulatedCommand.getCommands(simulatedCommands);
+      return new StubSmartCard(
+          powerOnData != null ? powerOnData.clone() : null,
+          cardProtocol,
+          commandHandlers.isEmpty() ? null : new CommandHandlerDispatcher(commandHandlers),
+          new SimulatedCommandMatcher(simulatedCommands, matchingOrder),
+          apduResponseProvider,
+          timingModel,
+          isResponseSharingEnabled,
+          isMetricsEnabled ? new StubSmartCardMetricsAdapter(commands) : null,
+          missDiagnosticsCapacity > 0
+              ? new CommandMissRecorder(missDiagnosticsCapacity, commands)
+              : null,
+          null,
+          symbols.createCardState(variables));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public CommandStep withTimingModel(StubTimingModel timingModel) {
+      Assert.getInstance().notNull(timingModel, "timingModel");
+      this.timingModel = timingModel;
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public TemplateStep withTemplate(StubCardTemplate template) {
+      Assert.getInstance().notNull(template, "template");
+      return new TemplateCardBuilder(powerOnData, cardProtocol, timingModel, template);
     }
 
     /**
@@ -246,7 +506,22 @@ public CommandStep withProtocol(String protocol) {
      */
     @Override
     public BuildStep withApduResponseProvider(ApduResponseProviderSpi apduResponseProvider) {
-      this.apduResponseProvider = apduResponseProvider;
+      this.apduResponseProvider =
+          apduResponseProvider != null
+              ? new HexApduResponseProviderAdapter(apduResponseProvider)
+              : null;
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public BuildStep withRawApduResponseProvider(
+        RawApduResponseProviderSpi rawApduResponseProvider) {
+      this.apduResponseProvider = rawApduResponseProvider;
       return this;
     }
   }
@@ -294,12 +569,84 @@ public interface CommandStep {
      * should be hexadecimal.
      *
      * @param command hexadecimal command to respond to (can be a regexp to match multiple apdu)
-     * @param response hexadecimal response
+     * @param response hexadecimal response, which may contain placeholders (see {@link
+     *     SimulatedCommandStep#withVariable(String, String)})
      * @return next step of builder
      * @since 2.0.0
      */
     SimulatedCommandStep withSimulatedCommand(String command, String response);
 
+    /**
+     * Add simulated command/response to the {@link StubSmartCard} to build, with an explicit match
+     * priority. When several commands match the same APDU, the one with the highest priority is
+     * used; commands of equal priority are tried in declaration order.
+     *
+     * @param command hexadecimal command to respond to (can be a regexp to match multiple apdu)
+     * @param response hexadecimal response, which may contain placeholders (see {@link
+     *     SimulatedCommandStep#withVariable(String, String)})
+     * @param priority match priority, 0 for commands added without priority
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    SimulatedCommandStep withSimulatedCommand(String command, String response, int priority);
+
+    /**
+     * Add a handler of the APDUs having the provided CLA and INS bytes, whatever their P1 and P2
+     * bytes. The handlers receive the raw APDU and are tried before the simulated commands, without
+     * any hexadecimal conversion; a handler returning null lets the next handlers and the simulated
+     * commands process the APDU.
+     *
+     * <p>The handlers of an INS registered for specific P1/P2 values are tried before the others,
+     * then the handlers are tried in declaration order.
+     *
+     * @param cla the CLA byte, in range [0..255], compared with the CLA of the APDU under the mask
+     * @param claMask the mask of the CLA bits to compare, in range [0..255] (e.g. 0xFC to ignore
+     *     the logical channel number)
+     * @param ins the INS byte, in range [0..255]
+     * @param handler (not nullable) the handler
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    SimulatedCommandStep withCommandHandler(
+        int cla, int claMask, int ins, RawApduResponseProviderSpi handler);
+
+    /**
+     * Add a handler of the APDUs having the provided CLA, INS, P1 and P2 bytes. See {@link
+     * #withCommandHandler(int, int, int, RawApduResponseProviderSpi)}.
+     *
+     * @param cla the CLA byte, in range [0..255], compared with the CLA of the APDU under the mask
+     * @param claMask the mask of the CLA bits to compare, in range [0..255]
+     * @param ins the INS byte, in range [0..255]
+     * @param p1 the P1 byte, in range [0..255]
+     * @param p2 the P2 byte, in range [0..255]
+     * @param handler (not nullable) the handler
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    SimulatedCommandStep withCommandHandler(
+        int cla, int claMask, int ins, int p1, int p2, RawApduResponseProviderSpi handler);
+
+    /**
+     * Define the timing model applied by the {@link StubReader} when an APDU is transmitted to the
+     * {@link StubSmartCard} to build. By default, the card responds instantly.
+     *
+     * @param timingModel (not nullable) the timing model
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    CommandStep withTimingModel(StubTimingModel timingModel);
+
+    /**
+     * Make the {@link StubSmartCard} to build use the simulated commands and command handlers of a
+     * shared {@link StubCardTemplate}, instead of its own. The responses of some commands of the
+     * template can then be replaced for this card only.
+     *
+     * @param template (not nullable) the card template
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    TemplateStep withTemplate(StubCardTemplate template);
+
     /**
      * Provide simulated command/response to the {@link StubSmartCard} using a custom provider
      * implementing of {@link ApduResponseProviderSpi}.
@@ -311,6 +658,17 @@ public interface CommandStep {
      */
     BuildStep withApduResponseProvider(ApduResponseProviderSpi apduResponseProvider);
 
+    /**
+     * Provide simulated command/response to the {@link StubSmartCard} using a custom provider
+     * implementing {@link RawApduResponseProviderSpi}. APDU requests and responses are exchanged
+     * as raw bytes, without any hexadecimal conversion.
+     *
+     * @param rawApduResponseProvider the byte-oriented provider of APDU responses
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    BuildStep withRawApduResponseProvider(RawApduResponseProviderSpi rawApduResponseProvider);
+
     /**
      * Build the {@link StubSmartCard}
      *
@@ -330,12 +688,139 @@ public interface SimulatedCommandStep {
      * should be hexadecimal.
      *
      * @param command hexadecimal command to respond to (can be a regexp to match multiple apdu)
-     * @param response hexadecimal response
+     * @param response hexadecimal response, which may contain placeholders (see {@link
+     *     SimulatedCommandStep#withVariable(String, String)})
      * @return next step of builder
      * @since 2.1.0
      */
     SimulatedCommandStep withSimulatedCommand(String command, String response);
 
+    /**
+     * Add simulated command/response to the {@link StubSmartCard} to build, with an explicit match
+     * priority. When several commands match the same APDU, the one with the highest priority is
+     * used; commands of equal priority are tried in declaration order.
+     *
+     * @param command hexadecimal command to respond to (can be a regexp to match multiple apdu)
+     * @param response hexadecimal response, which may contain placeholders (see {@link
+     *     SimulatedCommandStep#withVariable(String, String)})
+     * @param priority match priority, 0 for commands added without priority
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    SimulatedCommandStep withSimulatedCommand(String command, String response, int priority);
+
+    /**
+     * Add a handler of the APDUs having the provided CLA and INS bytes, whatever their P1 and P2
+     * bytes. The handlers receive the raw APDU and are tried before the simulated commands, without
+     * any hexadecimal conversion; a handler returning null lets the next handlers and the simulated
+     * commands process the APDU.
+     *
+     * <p>The handlers of an INS registered for specific P1/P2 values are tried before the others,
+     * then the handlers are tried in declaration order.
+     *
+     * @param cla the CLA byte, in range [0..255], compared with the CLA of the APDU under the mask
+     * @param claMask the mask of the CLA bits to compare, in range [0..255] (e.g. 0xFC to ignore
+     *     the logical channel number)
+     * @param ins the INS byte, in range [0..255]
+     * @param handler (not nullable) the handler
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    SimulatedCommandStep withCommandHandler(
+        int cla, int claMask, int ins, RawApduResponseProviderSpi handler);
+
+    /**
+     * Add a handler of the APDUs having the provided CLA, INS, P1 and P2 bytes. See {@link
+     * #withCommandHandler(int, int, int, RawApduResponseProviderSpi)}.
+     *
+     * @param cla the CLA byte, in range [0..255], compared with the CLA of the APDU under the mask
+     * @param claMask the mask of the CLA bits to compare, in range [0..255]
+     * @param ins the INS byte, in range [0..255]
+     * @param p1 the P1 byte, in range [0..255]
+     * @param p2 the P2 byte, in range [0..255]
+     * @param handler (not nullable) the handler
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    SimulatedCommandStep withCommandHandler(
+        int cla, int claMask, int ins, int p1, int p2, RawApduResponseProviderSpi handler);
+
+    /**
+     * Define how the simulated commands of equal priority are ordered when matching an APDU.
+     * Default value: {@link MatchingOrder#DECLARATION}.
+     *
+     * @param matchingOrder (not nullable) the matching order
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    SimulatedCommandStep withMatchingOrder(MatchingOrder matchingOrder);
+
+    /**
+     * Make the {@link StubSmartCard} to build return its simulated responses without copying them.
+     *
+     * <p>Responses are always decoded once when the card is built. By default, each transmitted
+     * APDU receives a fresh copy of the decoded response. When sharing is enabled, the same
+     * immutable array is returned each time the command is matched, so that exchanges with plain
+     * hexadecimal commands do not allocate any memory; the receiver of the response must then not
+     * modify it.
+     *
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    SimulatedCommandStep withSharedResponses();
+
+    /**
+     * Make the {@link StubSmartCard} to build keep the last APDUs for which it had no response,
+     * available with {@link StubSmartCard#getRecentMisses()} to find out which simulated command
+     * almost matched. Disabled by default.
+     *
+     * <p>The misses are kept in a ring buffer of the provided capacity, the oldest one being
+     * replaced when it is full. Only the APDUs without response are recorded, and the nearest
+     * simulated command of each miss is only computed when requested, so the processing of the
+     * matched APDUs is not slowed down.
+     *
+     * @param capacity the maximum number of misses kept (strictly positive)
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    SimulatedCommandStep withMissDiagnostics(int capacity);
+
+    /**
+     * Make the {@link StubSmartCard} to build count its hits and misses, available with {@link
+     * StubSmartCard#getMetrics()}. Disabled by default, so that the processing of an APDU does not
+     * pay for counters that are not read.
+     *
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    SimulatedCommandStep withMetrics();
+
+    /**
+     * Define a variable of the response templates of the {@link StubSmartCard} to build.
+     *
+     * <p>A simulated response may contain placeholders between braces, rendered each time the
+     * command is matched:
+     *
+     * <ul>
+     *   <li>{@code {name}}: the value of the variable {@code name} of the card,
+     *   <li>{@code {$n}}: the bytes captured by the group {@code n} of the command regular
+     *       expression (e.g. {@code "00B2(..)4400"} and {@code "{$1}9000"}),
+     *   <li>{@code {name++:size}}: the value of the counter {@code name} of the card on {@code
+     *       size} bytes (1 to 8), starting from 0 and incremented each time it is rendered,
+     *   <li>{@code {random:size}}: {@code size} random bytes.
+     * </ul>
+     *
+     * Templates are compiled once when the card is built and rendered directly into the response
+     * array. Each variable referenced by a template must be defined.
+     *
+     * @param name the name of the variable, made of letters, digits and underscores
+     * @param value hexadecimal value of the variable
+     * @return next step of builder
+     * @throws IllegalArgumentException If a parameter is null or invalid.
+     * @since 2.3.0
+     */
+    SimulatedCommandStep withVariable(String name, String value);
+
     /**
      * Build the {@link StubSmartCard}
      *
@@ -344,6 +829,215 @@ public interface SimulatedCommandStep {
     StubSmartCard build();
   }
 
+  /**
+   * (private)<br>
+   * Checks and decodes a response template variable.
+   */
+  private static void putVariable(Map<String, byte[]> variables, String name, String value) {
+    Assert.getInstance()
+        .notEmpty(name, "name")
+        .notNull(value, "value")
+        .isHexString(value.trim(), "value");
+    for (int i = 0; i < name.length(); i++) {
+      Assert.getInstance()
+          .isTrue(Character.isLetterOrDigit(name.charAt(i)) || name.charAt(i) == '_', "name");
+    }
+    variables.put(name, HexUtil.toByteArray(value.trim()));
+  }
+
+  /**
+   * Provides methods to configure a {@link StubSmartCard} created from a {@link StubCardTemplate}.
+   *
+   * @since 2.3.0
+   */
+  public interface TemplateStep {
+    /**
+     * Replace, for the {@link StubSmartCard} to build only, the response of a simulated command of
+     * the template, e.g. to return the serial number of the card.
+     *
+     * @param command the command, exactly as declared in the template
+     * @param response hexadecimal response
+     * @return next step of builder
+     * @throws IllegalArgumentException If a parameter is null, if the template has no such command
+     *     or if the response is not hexadecimal.
+     * @since 2.3.0
+     */
+    TemplateStep withResponseOverride(String command, String response);
+
+    /**
+     * Make the {@link StubSmartCard} to build keep its last APDUs without response, see {@link
+     * SimulatedCommandStep#withMissDiagnostics(int)}.
+     *
+     * @param capacity the maximum number of misses kept (strictly positive)
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    TemplateStep withMissDiagnostics(int capacity);
+
+    /**
+     * Make the {@link StubSmartCard} to build count its hits and misses, see {@link
+     * SimulatedCommandStep#withMetrics()}.
+     *
+     * @return next step of builder
+     * @since 2.3.0
+     */
+    TemplateStep withMetrics();
+
+    /**
+     * Define a variable of the response templates of the {@link StubSmartCard} to build, see {@link
+     * SimulatedCommandStep#withVariable(String, String)}. This is the preferred way to give each
+     * card of a template its own values, the templates being shared.
+     *
+     * @param name the name of the variable, made of letters, digits and underscores
+     * @param value hexadecimal value of the variable
+     * @return next step of builder
+     * @throws IllegalArgumentException If a parameter is null or invalid.
+     * @since 2.3.0
+     */
+    TemplateStep withVariable(String name, String value);
+
+    /**
+     * Build the {@link StubSmartCard}
+     *
+     * @return new instance a StubSmartCard
+     * @since 2.3.0
+     */
+    StubSmartCard build();
+  }
+
+  /**
+   * (private)<br>
+   * Builder of the cards created from a template, owning only their per-card data.
+   */
+  private static final class TemplateCardBuilder implements TemplateStep {
+
+    private final byte[] powerOnData;
+    private final String cardProtocol;
+    private final StubTimingModel timingModel;
+    private final StubCardTemplate template;
+    private final Map<Integer, byte[]> responseOverrides;
+    private final Map<String, byte[]> variables;
+    private int missDiagnosticsCapacity;
+    private boolean isMetricsEnabled;
+
+    private TemplateCardBuilder(
+        byte[] powerOnData,
+        String cardProtocol,
+        StubTimingModel timingModel,
+        StubCardTemplate template) {
+      this.powerOnData = powerOnData;
+      this.cardProtocol = cardProtocol;
+      this.timingModel = timingModel;
+      this.template = template;
+      this.responseOverrides = new HashMap<>();
+      this.variables = new HashMap<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public TemplateStep withResponseOverride(String command, String response) {
+      Assert.getInstance().notNull(command, "command").notNull(response, "response");
+      Integer ordinal = template.getOrdinal(command.trim());
+      Assert.getInstance()
+          .isTrue(ordinal != null, "command declared in the template")
+          .isHexString(response.trim(), "response");
+      responseOverrides.put(ordinal, HexUtil.toByteArray(response.trim()));
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public TemplateStep withMissDiagnostics(int capacity) {
+      Assert.getInstance().greaterOrEqual(capacity, 1, "capacity");
+      this.missDiagnosticsCapacity = capacity;
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public TemplateStep withMetrics() {
+      this.isMetricsEnabled = true;
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public TemplateStep withVariable(String name, String value) {
+      putVariable(variables, name, value);
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public StubSmartCard build() {
+      return new StubSmartCard(
+          powerOnData != null ? powerOnData.clone() : null,
+          cardProtocol,
+          template.getCommandHandlerDispatcher(),
+          template.getSimulatedCommandMatcher(),
+          null,
+          timingModel,
+          template.isResponseSharingEnabled(),
+          isMetricsEnabled ? new StubSmartCardMetricsAdapter(template.getCommands()) : null,
+          missDiagnosticsCapacity > 0
+              ? new CommandMissRecorder(missDiagnosticsCapacity, template.getCommands())
+              : null,
+          responseOverrides.isEmpty() ? null : new ResponseOverlay(responseOverrides),
+          template.getSymbols().createCardState(variables));
+    }
+  }
+
+  /**
+   * Ordering of the simulated commands of equal priority when looking for the command matching an
+   * APDU.
+   *
+   * <p>In all cases, a plain hexadecimal command (without any regular expression construct) is
+   * found with a single lookup, and commands with a higher priority are always tried first.
+   *
+   * @since 2.3.0
+   */
+  public enum MatchingOrder {
+    /**
+     * Commands are tried in the order in which they were added to the builder.
+     *
+     * @since 2.3.0
+     */
+    DECLARATION,
+    /**
+     * Regular expression commands that are hit most frequently are tried first, among the commands
+     * sharing the same CLA/INS. Commands with equal hit counts keep their relative order. The
+     * matching result depends only on the sequence of APDUs already processed by the card, so a
+     * replayed session gives the same responses.
+     *
+     * <p>An APDU equal to a plain hexadecimal command is not affected: it is always answered in
+     * priority then declaration order, even by a regular expression tried before the plain
+     * command, and its hits are not counted for the reordering.
+     *
+     * @since 2.3.0
+     */
+    HIT_FREQUENCY
+  }
+
   /**
    * Build step for creating a {@link StubSmartCard} instance.
    *
@@ -0,0 +1,42 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.Map;
+
+/**
+ * Live view of the APDU processing metrics of a {@link StubSmartCard}.
+ *
+ * <p>Values are updated each time the card processes an APDU and can be polled at any time.
+ *
+ * @since 2.3.0
+ */
+public interface StubSmartCardMetrics {
+
+  /**
+   * Gets the number of APDUs answered by each simulated command of the card.
+   *
+   * @return A new map of the hit counts by simulated command, in declaration order, empty if the
+   *     card has no simulated command.
+   * @since 2.3.0
+   */
+  Map<String, Long> getHitCounts();
+
+  /**
+   * Gets the number of APDUs for which the card had no response, each of them having caused a
+   * "No response is available" {@link org.eclipse.keyple.core.plugin.CardIOException}.
+   *
+   * @return A positive long.
+   * @since 2.3.0
+   */
+  long getMissCount();
+}
@@ -0,0 +1,129 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * (package-private)<br>
+ * Implementation of {@link StubSmartCardMetrics} based on a single array of atomic counters,
+ * indexed by simulated command ordinal. The array is created on the first hit, so that the cards of
+ * a {@link StubCardTemplate} which are never used do not hold any, and a used card holds one object
+ * whatever its number of commands.
+ *
+ * @since 2.3.0
+ */
+final class StubSmartCardMetricsAdapter implements StubSmartCardMetrics {
+
+  /**
+   * (package-private)<br>
+   * Empty metrics shared by the cards whose metrics are disabled, never updated.
+   *
+   * @since 2.3.0
+   */
+  static final StubSmartCardMetricsAdapter NO_METRICS =
+      new StubSmartCardMetricsAdapter(new String[0]);
+
+  private final String[] commands;
+  private volatile AtomicLongArray hitCounts;
+  private final LongAdder missCount = new LongAdder();
+
+  /**
+   * (package-private)<br>
+   * Creates the metrics of a card.
+   *
+   * @param commands (non-nullable) the simulated commands as declared, indexed by ordinal, shared
+   * @since 2.3.0
+   */
+  StubSmartCardMetricsAdapter(String[] commands) {
+    this.commands = commands;
+  }
+
+  /**
+   * (package-private)<br>
+   * Records an APDU answered by a simulated command.
+   *
+   * @param ordinal ordinal of the simulated command
+   * @since 2.3.0
+   */
+  void onHit(int ordinal) {
+    AtomicLongArray counts = hitCounts;
+    if (counts == null) {
+      counts = createHitCounts();
+    }
+    counts.getAndIncrement(ordinal);
+  }
+
+  /**
+   * (private)<br>
+   * Creates the counters of the simulated commands, once.
+   */
+  private synchronized AtomicLongArray createHitCounts() {
+    if (hitCounts == null) {
+      hitCounts = new AtomicLongArray(commands.length);
+    }
+    return hitCounts;
+  }
+
+  /**
+   * (package-private)<br>
+   * Records an APDU without response.
+   *
+   * @since 2.3.0
+   */
+  void onMiss() {
+    missCount.increment();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public Map<String, Long> getHitCounts() {
+    Map<String, Long> hits = new LinkedHashMap<>((int) (commands.length / 0.75f) + 1);
+    AtomicLongArray counts = hitCounts;
+    for (int i = 0; i < commands.length; i++) {
+      hits.put(commands[i], counts != null ? counts.get(i) : 0L);
+    }
+    return hits;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 2.3.0
+   */
+  @Override
+  public String toString() {
+    return "StubSmartCardMetrics{"
+        + "hitCounts="
+        + getHitCounts()
+        + ", missCount="
+        + getMissCount()
+        + '}';
+  }
+}
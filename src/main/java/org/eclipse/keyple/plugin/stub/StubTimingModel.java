@@ -0,0 +1,239 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import org.eclipse.keyple.core.util.Assert;
+
+/**
+ * Timing model of a {@link StubSmartCard}, applied by the {@link StubReader} each time an APDU is
+ * transmitted to the card, including when the card has no response for it.
+ *
+ * <p>The duration of an exchange is the sum of a processing latency and of the transfer time of the
+ * command and response. The latency is taken from the first applicable rule:
+ *
+ * <ol>
+ *   <li>the latency of the first command, in declaration order, matching the APDU,
+ *   <li>the latency associated to the INS byte of the APDU,
+ *   <li>the default latency, none if not defined.
+ * </ol>
+ *
+ * The transfer time is computed by the {@link StubTransmission} of the model, none if not defined.
+ *
+ * <p>Instances are immutable and can be shared between cards.
+ *
+ * @since 2.3.0
+ */
+public final class StubTimingModel {
+
+  /** Remaining time below which the timer spins instead of parking the thread. */
+  private static final long SPIN_THRESHOLD_NANOS = 50000L;
+
+  private final StubLatency defaultLatency;
+  private final StubLatency[] insLatencies;
+  private final SimulatedCommandMatcher commandMatcher;
+  private final StubLatency[] commandLatencies;
+  private final StubTransmission transmission;
+
+  /**
+   * (private)<br>
+   * Constructor.
+   */
+  private StubTimingModel(Builder builder) {
+    this.defaultLatency = builder.defaultLatency;
+    this.insLatencies = builder.insLatencies.clone();
+    this.transmission = builder.transmission;
+    if (builder.commandLatencies.isEmpty()) {
+      this.commandMatcher = null;
+      this.commandLatencies = null;
+    } else {
+      List<SimulatedCommand> commands = new ArrayList<>(builder.commandLatencies.size());
+      this.commandLatencies = new StubLatency[builder.commandLatencies.size()];
+      for (Map.Entry<String, StubLatency> entry : builder.commandLatencies.entrySet()) {
+        commandLatencies[commands.size()] = entry.getValue();
+        commands.add(new SimulatedCommand(entry.getKey(), "", 0, commands.size()));
+      }
+      this.commandMatcher =
+          new SimulatedCommandMatcher(commands, StubSmartCard.MatchingOrder.DECLARATION);
+    }
+  }
+
+  /**
+   * Creates a builder of timing model.
+   *
+   * @return A not null reference.
+   * @since 2.3.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * (package-private)<br>
+   * Computes the duration of an exchange.
+   *
+   * @param apduIn (non-nullable) the command
+   * @param responseLength length of the response in bytes, 0 if the card did not respond
+   * @return A positive or zero duration in nanoseconds.
+   * @since 2.3.0
+   */
+  long getExchangeNanos(byte[] apduIn, int responseLength) {
+    StubLatency latency = getLatency(apduIn);
+    long duration = latency != null ? latency.nextNanos() : 0L;
+    if (transmission != null) {
+      duration += transmission.getTransferNanos(apduIn.length, responseLength);
+    }
+    return duration;
+  }
+
+  /**
+   * (private)<br>
+   * Finds the latency applicable to the APDU.
+   */
+  private StubLatency getLatency(byte[] apduIn) {
+    if (commandMatcher != null) {
+      SimulatedCommand command = commandMatcher.match(apduIn);
+      if (command != null) {
+        return commandLatencies[command.getOrdinal()];
+      }
+    }
+    if (apduIn.length > 1) {
+      StubLatency latency = insLatencies[apduIn[1] & 0xFF];
+      if (latency != null) {
+        return latency;
+      }
+    }
+    return defaultLatency;
+  }
+
+  /**
+   * (package-private)<br>
+   * Blocks the current thread until the provided {@link System#nanoTime()} deadline.
+   *
+   * <p>The thread is parked for most of the duration, then spins for the last microseconds to
+   * compensate the coarse granularity of the OS scheduler. The wait ends early if the thread is
+   * interrupted, in which case its interrupted status is kept.
+   *
+   * @param deadlineNanos the deadline
+   * @since 2.3.0
+   */
+  static void waitUntil(long deadlineNanos) {
+    long remaining;
+    while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      if (remaining > SPIN_THRESHOLD_NANOS) {
+        LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+      } else {
+        Thread.yield();
+      }
+    }
+  }
+
+  /**
+   * Builder of {@link StubTimingModel}.
+   *
+   * @since 2.3.0
+   */
+  public static final class Builder {
+
+    private StubLatency defaultLatency;
+    private final StubLatency[] insLatencies;
+    // keep the declaration order, the first matching command wins
+    private final Map<String, StubLatency> commandLatencies;
+    private StubTransmission transmission;
+
+    /**
+     * (private)<br>
+     * Constructor.
+     */
+    private Builder() {
+      insLatencies = new StubLatency[256];
+      commandLatencies = new LinkedHashMap<>();
+    }
+
+    /**
+     * Sets the latency of the APDUs not covered by a more specific rule.
+     *
+     * @param latency (non-nullable) the latency
+     * @return The builder instance.
+     * @throws IllegalArgumentException If the latency is null.
+     * @since 2.3.0
+     */
+    public Builder withDefaultLatency(StubLatency latency) {
+      Assert.getInstance().notNull(latency, "latency");
+      this.defaultLatency = latency;
+      return this;
+    }
+
+    /**
+     * Sets the latency of the APDUs having the provided instruction byte.
+     *
+     * @param ins the INS byte, in range [0..255]
+     * @param latency (non-nullable) the latency
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is out of range or null.
+     * @since 2.3.0
+     */
+    public Builder withInsLatency(int ins, StubLatency latency) {
+      Assert.getInstance().isInRange(ins, 0, 255, "ins").notNull(latency, "latency");
+      insLatencies[ins] = latency;
+      return this;
+    }
+
+    /**
+     * Sets the latency of the APDUs matching the provided command, given in the same form as the
+     * simulated commands of a {@link StubSmartCard} (hexadecimal string or regular expression).
+     * Commands are tried in declaration order.
+     *
+     * @param command (non-nullable) hexadecimal command or regular expression
+     * @param latency (non-nullable) the latency
+     * @return The builder instance.
+     * @throws IllegalArgumentException If a parameter is null.
+     * @since 2.3.0
+     */
+    public Builder withCommandLatency(String command, StubLatency latency) {
+      Assert.getInstance().notNull(command, "command").notNull(latency, "latency");
+      commandLatencies.put(command.trim(), latency);
+      return this;
+    }
+
+    /**
+     * Sets the model of the transfer time of the APDUs.
+     *
+     * @param transmission (non-nullable) the transmission model
+     * @return The builder instance.
+     * @throws IllegalArgumentException If the transmission model is null.
+     * @since 2.3.0
+     */
+    public Builder withTransmission(StubTransmission transmission) {
+      Assert.getInstance().notNull(transmission, "transmission");
+      this.transmission = transmission;
+      return this;
+    }
+
+    /**
+     * Builds the timing model.
+     *
+     * @return A not null reference.
+     * @since 2.3.0
+     */
+    public StubTimingModel build() {
+      return new StubTimingModel(this);
+    }
+  }
+}
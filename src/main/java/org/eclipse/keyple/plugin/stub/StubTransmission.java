@@ -0,0 +1,139 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import org.eclipse.keyple.core.util.Assert;
+
+/**
+ * Model of the transfer time of the APDUs between a {@link StubReader} and a {@link StubSmartCard},
+ * used by a {@link StubTimingModel}.
+ *
+ * <p>The transfer time of a message of {@code n} bytes is computed as follows: the message is split
+ * into frames carrying at most the frame information size, each frame adds its overhead bytes, each
+ * byte takes a fixed number of bit durations, and each additional frame adds an inter-frame delay.
+ * The transfer time of an exchange is the sum of the transfer times of the command and of the
+ * response.
+ *
+ * <p>Instances are immutable and can be shared between cards and threads.
+ *
+ * @since 2.3.0
+ */
+public final class StubTransmission {
+
+  private final int bitRate;
+  private final int bitsPerByte;
+  private final int frameInformationSize;
+  private final int frameOverhead;
+  private final int interFrameBits;
+
+  /**
+   * (private)<br>
+   * Constructor.
+   *
+   * @param bitRate number of bit durations per second
+   * @param bitsPerByte number of bit durations needed to transfer one byte
+   * @param frameInformationSize maximum number of message bytes per frame, 0 if unlimited
+   * @param frameOverhead number of additional bytes per frame
+   * @param interFrameBits number of bit durations between two frames of the same message
+   */
+  private StubTransmission(
+      int bitRate,
+      int bitsPerByte,
+      int frameInformationSize,
+      int frameOverhead,
+      int interFrameBits) {
+    this.bitRate = bitRate;
+    this.bitsPerByte = bitsPerByte;
+    this.frameInformationSize = frameInformationSize;
+    this.frameOverhead = frameOverhead;
+    this.interFrameBits = interFrameBits;
+  }
+
+  /**
+   * Creates a character-oriented transmission at the given baud rate, without framing. Each byte
+   * takes 12 elementary time units (start bit, 8 data bits, parity bit and 2 units of guard time).
+   *
+   * @param baudRate number of elementary time units per second (e.g. 9600)
+   * @return A not null reference.
+   * @throws IllegalArgumentException If the baud rate is not strictly positive.
+   * @since 2.3.0
+   */
+  public static StubTransmission baudRate(int baudRate) {
+    Assert.getInstance().greaterOrEqual(baudRate, 1, "baudRate");
+    return new StubTransmission(baudRate, 12, 0, 0, 0);
+  }
+
+  /**
+   * Creates an ISO 7816-3 T=1 block transmission. Each byte takes 11 elementary time units, each
+   * block carries at most {@code informationFieldSize} bytes plus 4 bytes of prologue and epilogue
+   * (NAD, PCB, LEN and LRC), and each chained block adds an acknowledgement block and the block
+   * guard time (22 units).
+   *
+   * @param baudRate number of elementary time units per second (e.g. 9600)
+   * @param informationFieldSize maximum number of bytes of the information field of a block, in
+   *     range [1..254] (IFSC/IFSD, 32 by default on most cards)
+   * @return A not null reference.
+   * @throws IllegalArgumentException If a parameter is out of range.
+   * @since 2.3.0
+   */
+  public static StubTransmission t1(int baudRate, int informationFieldSize) {
+    Assert.getInstance()
+        .greaterOrEqual(baudRate, 1, "baudRate")
+        .isInRange(informationFieldSize, 1, 254, "informationFieldSize");
+    return new StubTransmission(baudRate, 11, informationFieldSize, 4, 4 * 11 + 22);
+  }
+
+  /**
+   * Creates an ISO 14443-4 frame transmission. Each byte takes 10 bit durations, each frame carries
+   * at most {@code frameSize} bytes including 3 bytes of overhead (PCB and CRC), and each chained
+   * frame adds an acknowledgement frame and a frame delay time of about 10 bit durations.
+   *
+   * @param bitRate number of bits per second (e.g. 106000, 212000, 424000 or 848000)
+   * @param frameSize maximum size of a frame (FSC/FSD), in range [16..256]
+   * @return A not null reference.
+   * @throws IllegalArgumentException If a parameter is out of range.
+   * @since 2.3.0
+   */
+  public static StubTransmission iso14443(int bitRate, int frameSize) {
+    Assert.getInstance()
+        .greaterOrEqual(bitRate, 1, "bitRate")
+        .isInRange(frameSize, 16, 256, "frameSize");
+    return new StubTransmission(bitRate, 10, frameSize - 3, 3, 3 * 10 + 10);
+  }
+
+  /**
+   * (package-private)<br>
+   * Computes the time needed to transfer a command and its response.
+   *
+   * @param commandLength length of the command in bytes
+   * @param responseLength length of the response in bytes
+   * @return A positive or zero duration in nanoseconds.
+   * @since 2.3.0
+   */
+  long getTransferNanos(int commandLength, int responseLength) {
+    long bits = getTransferBits(commandLength) + getTransferBits(responseLength);
+    return bits * 1000000000L / bitRate;
+  }
+
+  /**
+   * (private)<br>
+   * Computes the number of bit durations needed to transfer a message.
+   */
+  private long getTransferBits(int length) {
+    int frameCount =
+        frameInformationSize == 0
+            ? 1
+            : Math.max(1, (length + frameInformationSize - 1) / frameInformationSize);
+    return (long) (length + frameCount * frameOverhead) * bitsPerByte
+        + (long) (frameCount - 1) * interFrameBits;
+  }
+}
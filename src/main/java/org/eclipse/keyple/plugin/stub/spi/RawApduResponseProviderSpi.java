@@ -0,0 +1,34 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub.spi;
+
+import org.eclipse.keyple.plugin.stub.StubSmartCard;
+
+/**
+ * This interface must be used to provide an APDU response according to an APDU request, both
+ * exchanged as raw bytes. It is used by {@link StubSmartCard} to delegate it APDU response
+ * providing to another class without any hexadecimal conversion.
+ *
+ * <p>It is the byte-oriented counterpart of {@link ApduResponseProviderSpi}.
+ *
+ * @since 2.3.0
+ */
+public interface RawApduResponseProviderSpi {
+  /**
+   * Provide APDU responses according to an APDU request.
+   *
+   * @param apduRequest the APDU request bytes (must not be modified)
+   * @return Null if no response is available for the request.
+   * @since 2.3.0
+   */
+  byte[] getResponseFromRequest(byte[] apduRequest);
+}
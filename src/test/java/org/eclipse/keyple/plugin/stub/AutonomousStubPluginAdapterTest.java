@@ -0,0 +1,150 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.keyple.plugin.stub.StubSmartCardTest.buildACard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.keyple.core.plugin.AutonomousObservablePluginApi;
+import org.eclipse.keyple.core.plugin.PluginIOException;
+import org.eclipse.keyple.core.plugin.spi.reader.ReaderSpi;
+import org.eclipse.keyple.plugin.stub.StubPluginFactoryAdapter.StubReaderConfiguration;
+import org.eclipse.keyple.plugin.stub.StubPoolPluginFactoryAdapter.StubPoolReaderConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AutonomousStubPluginAdapterTest {
+
+  private final String NAME = "name";
+  private final String READER_NAME = "readerName";
+  private final String READER_NAME_2 = "readerName2";
+
+  private AutonomousStubPluginAdapter pluginAdapter;
+  private RecordingPluginApi pluginApi;
+
+  @Before
+  public void setUp() {
+    pluginAdapter =
+        new AutonomousStubPluginAdapter(
+            NAME,
+            Collections.singleton(new StubReaderConfiguration(READER_NAME, true, buildACard())),
+            StubCardDetectionMode.POLLING,
+            0,
+            0,
+            false);
+    pluginApi = new RecordingPluginApi();
+    pluginAdapter.connect(pluginApi);
+  }
+
+  @Test
+  public void initial_readers_should_not_be_pushed() {
+    assertThat(pluginAdapter.searchAvailableReaders()).hasSize(1);
+    assertThat(pluginApi.events).isEmpty();
+  }
+
+  @Test
+  public void plugReader_should_push_a_connection_event() {
+    pluginAdapter.plugReader(READER_NAME_2, false, null);
+    assertThat(pluginApi.events).containsExactly("+" + READER_NAME_2);
+    assertThat(pluginApi.connectedReaders)
+        .containsExactly(pluginAdapter.getStubReaders().get(READER_NAME_2));
+  }
+
+  @Test
+  public void unplugReader_should_push_a_disconnection_event() {
+    pluginAdapter.unplugReader(READER_NAME);
+    pluginAdapter.unplugReader(READER_NAME);
+    assertThat(pluginApi.events).containsExactly("-" + READER_NAME);
+    assertThat(pluginAdapter.searchAvailableReaders()).isEmpty();
+  }
+
+  @Test
+  public void plugReader_with_existing_name_should_push_a_disconnection_then_a_connection() {
+    pluginAdapter.plugReader(READER_NAME, false, null);
+    assertThat(pluginApi.events).containsExactly("-" + READER_NAME, "+" + READER_NAME);
+  }
+
+  @Test
+  public void batch_operations_should_push_a_single_event() {
+    Map<String, StubSmartCard> readers = new LinkedHashMap<String, StubSmartCard>();
+    readers.put(READER_NAME_2, null);
+    readers.put("readerName3", null);
+    pluginAdapter.plugReaders(readers, true);
+    assertThat(pluginApi.events).hasSize(1);
+    assertThat(pluginApi.connectedReaders).hasSize(2);
+
+    pluginAdapter.unplugReaders(Arrays.asList(READER_NAME, READER_NAME_2, "unknown"));
+    assertThat(pluginApi.events).hasSize(2);
+    assertThat(pluginApi.disconnectedReaderNames).containsOnly(READER_NAME, READER_NAME_2);
+  }
+
+  @Test
+  public void onUnregister_should_stop_pushing_events() {
+    pluginAdapter.onUnregister();
+    pluginAdapter.plugReader(READER_NAME_2, false, null);
+    pluginAdapter.unplugReader(READER_NAME);
+    assertThat(pluginApi.events).isEmpty();
+    assertThat(pluginAdapter.searchAvailableReaders()).hasSize(1);
+  }
+
+  @Test
+  public void pool_operations_should_push_events() throws PluginIOException {
+    AutonomousStubPoolPluginAdapter poolPluginAdapter =
+        new AutonomousStubPoolPluginAdapter(
+            NAME, new HashSet<StubPoolReaderConfiguration>(), 0, false);
+    poolPluginAdapter.connect(pluginApi);
+    poolPluginAdapter.plugPoolReader("group1", READER_NAME, buildACard());
+    poolPluginAdapter.plugPoolReaders("group2", "SAM-%02d", 10);
+    assertThat(poolPluginAdapter.allocateReader("group1").getName()).isEqualTo(READER_NAME);
+    poolPluginAdapter.unplugPoolReaders("group2");
+    poolPluginAdapter.unplugPoolReader(READER_NAME);
+    assertThat(pluginApi.events).hasSize(4);
+    assertThat(pluginApi.connectedReaders).hasSize(11);
+    assertThat(pluginApi.disconnectedReaderNames).hasSize(11);
+    assertThat(poolPluginAdapter.getReaderGroupReferences()).isEmpty();
+  }
+
+  private static class RecordingPluginApi implements AutonomousObservablePluginApi {
+
+    private final List<String> events = new ArrayList<String>();
+    private final List<ReaderSpi> connectedReaders = new ArrayList<ReaderSpi>();
+    private final List<String> disconnectedReaderNames = new ArrayList<String>();
+
+    @Override
+    public void onReaderConnected(Set<ReaderSpi> readers) {
+      StringBuilder event = new StringBuilder("+");
+      for (ReaderSpi reader : readers) {
+        event.append(reader.getName());
+      }
+      events.add(event.toString());
+      connectedReaders.addAll(readers);
+    }
+
+    @Override
+    public void onReaderDisconnected(Set<String> readerNames) {
+      StringBuilder event = new StringBuilder("-");
+      for (String readerName : readerNames) {
+        event.append(readerName);
+      }
+      events.add(event.toString());
+      disconnectedReaderNames.addAll(readerNames);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.keyple.plugin.stub.StubSmartCardTest.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.eclipse.keyple.core.plugin.TaskCanceledException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventDrivenStubReaderAdapterTest {
+
+  EventDrivenStubReaderAdapter adapter;
+  final String NAME = "name";
+
+  @Before
+  public void setup() {
+    adapter = new EventDrivenStubReaderAdapter(NAME, true, null, false);
+    adapter.activateProtocol(protocol);
+  }
+
+  @Test
+  public void waitForCardInsertion_should_return_when_card_is_inserted() throws Exception {
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread waiter =
+        startWaiter(
+            new Waiter() {
+              @Override
+              public void await() throws TaskCanceledException {
+                adapter.waitForCardInsertion();
+              }
+            },
+            failure);
+    waitUntilParked(waiter);
+    adapter.insertCard(buildACard());
+    waiter.join(5000);
+    assertThat(waiter.isAlive()).isFalse();
+    assertThat(failure.get()).isNull();
+  }
+
+  @Test
+  public void waitForCardRemoval_should_return_when_card_is_removed() throws Exception {
+    adapter.insertCard(buildACard());
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread waiter =
+        startWaiter(
+            new Waiter() {
+              @Override
+              public void await() throws TaskCanceledException {
+                adapter.waitForCardRemoval();
+              }
+            },
+            failure);
+    waitUntilParked(waiter);
+    adapter.removeCard();
+    waiter.join(5000);
+    assertThat(waiter.isAlive()).isFalse();
+    assertThat(failure.get()).isNull();
+  }
+
+  @Test
+  public void stopWaitForCardInsertion_should_cancel_the_wait() throws Exception {
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread waiter =
+        startWaiter(
+            new Waiter() {
+              @Override
+              public void await() throws TaskCanceledException {
+                adapter.waitForCardInsertion();
+              }
+            },
+            failure);
+    waitUntilParked(waiter);
+    adapter.stopWaitForCardInsertion();
+    waiter.join(5000);
+    assertThat(waiter.isAlive()).isFalse();
+    assertThat(failure.get()).isInstanceOf(TaskCanceledException.class);
+  }
+
+  private interface Waiter {
+    void await() throws TaskCanceledException;
+  }
+
+  private static Thread startWaiter(
+      final Waiter waiter, final AtomicReference<Throwable> failure) {
+    Thread thread =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  waiter.await();
+                } catch (Throwable e) {
+                  failure.set(e);
+                }
+              }
+            });
+    thread.start();
+    return thread;
+  }
+
+  private static void waitUntilParked(Thread thread) throws InterruptedException {
+    while (thread.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.eclipse.keyple.core.plugin.CardIOException;
+import org.eclipse.keyple.core.util.HexUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StubApduTraceTest {
+
+  static byte[] powerOnData = HexUtil.toByteArray("3B8880010000000000718100F9");
+  static String protocol = "ISO_14443_4_CARD";
+  static byte[] select = HexUtil.toByteArray("00A404000AA000000291A00000019100");
+  static byte[] selectResponse = HexUtil.toByteArray("6F238409A0000002919000");
+  static byte[] readRecord = HexUtil.toByteArray("00B2014400");
+  static byte[] readRecordResponse = new byte[300];
+
+  File traceFile;
+
+  @Before
+  public void setup() throws IOException {
+    traceFile = File.createTempFile("stub", ".trace");
+    readRecordResponse[298] = (byte) 0x90;
+    StubApduTraceRecorder recorder =
+        StubApduTraceRecorder.create(traceFile, powerOnData, protocol);
+    recorder.record(select, selectResponse);
+    recorder.record(readRecord, readRecordResponse);
+    recorder.record(readRecord, selectResponse);
+    recorder.close();
+  }
+
+  @After
+  public void tearDown() {
+    traceFile.delete();
+  }
+
+  @Test
+  public void open_shouldReadHeaderAndIndexExchanges() throws IOException {
+    StubApduTrace trace = StubApduTrace.open(traceFile);
+    assertThat(trace.getPowerOnData()).isEqualTo(powerOnData);
+    assertThat(trace.getCardProtocol()).isEqualTo(protocol);
+    assertThat(trace.getExchangeCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void createCard_shouldReplayExchangesInOrder() throws Exception {
+    StubSmartCard card = StubApduTrace.open(traceFile).createCard();
+    assertThat(card.getPowerOnData()).isEqualTo(powerOnData);
+    assertThat(card.getCardProtocol()).isEqualTo(protocol);
+    assertThat(card.processApdu(select)).isEqualTo(selectResponse);
+    assertThat(card.processApdu(readRecord)).isEqualTo(readRecordResponse);
+    assertThat(card.processApdu(readRecord)).isEqualTo(selectResponse);
+    try {
+      card.processApdu(readRecord);
+      fail("Expected a CardIOException after the last exchange");
+    } catch (CardIOException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void createCard_shouldCreateIndependentCards() throws Exception {
+    StubApduTrace trace = StubApduTrace.open(traceFile);
+    StubSmartCard card1 = trace.createCard();
+    StubSmartCard card2 = trace.createCard();
+    assertThat(card1.processApdu(select)).isEqualTo(selectResponse);
+    assertThat(card2.processApdu(select)).isEqualTo(selectResponse);
+  }
+
+  @Test(expected = CardIOException.class)
+  public void processApdu_unexpectedCommand_shouldThrowCIOE() throws Exception {
+    StubApduTrace.open(traceFile).createCard().processApdu(readRecord);
+  }
+
+  @Test
+  public void open_truncatedTrace_shouldIgnoreIncompleteExchange() throws IOException {
+    RandomAccessFile file = new RandomAccessFile(traceFile, "rw");
+    file.setLength(file.length() - 1);
+    file.close();
+    assertThat(StubApduTrace.open(traceFile).getExchangeCount()).isEqualTo(2);
+  }
+
+  @Test(expected = IOException.class)
+  public void open_invalidFile_shouldThrowIOE() throws IOException {
+    RandomAccessFile file = new RandomAccessFile(traceFile, "rw");
+    file.write('X');
+    file.close();
+    StubApduTrace.open(traceFile);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void record_afterClose_shouldThrowISE() throws IOException {
+    StubApduTraceRecorder recorder =
+        StubApduTraceRecorder.create(traceFile, powerOnData, protocol);
+    recorder.close();
+    recorder.record(select, selectResponse);
+  }
+}
@@ -0,0 +1,163 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.eclipse.keyple.core.util.HexUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StubCardEngineTest {
+
+  static String aid = "315449432E49434131";
+
+  StubCardEngine engine;
+
+  @Before
+  public void setup() {
+    engine =
+        StubCardEngine.builder()
+            .withDedicatedFile(0x2000, aid)
+            .withLinearFile(0x2001, 0x07, 4, 2)
+            .withRecord(1, "11223344")
+            .withRecord(2, "55")
+            .withCyclicFile(0x2010, 0x08, 2, 3)
+            .withRecord(1, "0001")
+            .withCounterFile(0x2069, 0x19, 2)
+            .withCounter(1, 100)
+            .endDedicatedFile()
+            .withLinearFile(0x0002, 0x01, 1, 1)
+            .build();
+  }
+
+  @Test
+  public void select_byName_shouldReturnFciAndSetCurrentDf() {
+    assertThat(process("00A4040009" + aid + "00"))
+        .isEqualTo("6212820138830220008409" + aid + "9000");
+    assertThat(process("00B2013C00")).isEqualTo("112233449000");
+  }
+
+  @Test
+  public void select_unknownName_shouldReturn6A82() {
+    assertThat(process("00A4040002112200")).isEqualTo("6A82");
+  }
+
+  @Test
+  public void select_byNameWithoutData_shouldReturn6A82() {
+    assertThat(process("00A40400")).isEqualTo("6A82");
+    assertThat(process("00A4040000")).isEqualTo("6A82");
+  }
+
+  @Test
+  public void select_manyFiles_shouldFindEachOfThem() {
+    StubCardEngine.Builder builder = StubCardEngine.builder();
+    for (int i = 0; i < 20; i++) {
+      builder.withDedicatedFile(0x3000 + i, String.format("A000000404%02X", i)).endDedicatedFile();
+      builder.withLinearFile(0x0100 + i, i + 1, 1, 1);
+    }
+    engine = builder.build();
+    for (int i = 0; i < 20; i++) {
+      String name = String.format("A000000404%02X", i);
+      assertThat(process("00A4040006" + name)).endsWith(name + "9000");
+      assertThat(process(String.format("00A4000C02%04X", 0x3000 + i))).isEqualTo("9000");
+      assertThat(process("00A4000C023F00")).isEqualTo("9000");
+      assertThat(process(String.format("00A4020C02%04X", 0x0100 + i))).isEqualTo("9000");
+    }
+  }
+
+  @Test
+  public void select_byPath_shouldSetCurrentEf() {
+    assertThat(process("00A4080C0420002001")).isEqualTo("9000");
+    assertThat(process("00B2020400")).isEqualTo("550000009000");
+  }
+
+  @Test
+  public void select_elementaryFile_shouldReturnFcp() {
+    assertThat(process("00A4000C022000")).isEqualTo("9000");
+    assertThat(process("00A4020002201000"))
+        .isEqualTo("620E82050621000203830220108801409000");
+  }
+
+  @Test
+  public void readRecord_withoutCurrentEf_shouldReturn6986() {
+    assertThat(process("00B2010400")).isEqualTo("6986");
+  }
+
+  @Test
+  public void readRecord_unknownRecord_shouldReturn6A83() {
+    process("00A4040009" + aid);
+    assertThat(process("00B2033C00")).isEqualTo("6A83");
+  }
+
+  @Test
+  public void readRecord_unknownSfi_shouldReturn6A82() {
+    assertThat(process("00B2013C00")).isEqualTo("6A82");
+    assertThat(process("00B2010C00")).isEqualTo("009000");
+  }
+
+  @Test
+  public void updateRecord_shouldReplaceRecordContent() {
+    process("00A4040009" + aid);
+    assertThat(process("00DC013C02AABB")).isEqualTo("9000");
+    assertThat(process("00B2013C00")).isEqualTo("AABB00009000");
+  }
+
+  @Test
+  public void appendRecord_shouldShiftCyclicRecords() {
+    process("00A4040009" + aid);
+    assertThat(process("00E2004002ABCD")).isEqualTo("9000");
+    assertThat(process("00B2014400")).isEqualTo("ABCD9000");
+    assertThat(process("00B2024400")).isEqualTo("00019000");
+    assertThat(process("00E2003802ABCD")).isEqualTo("6981");
+  }
+
+  @Test
+  public void increaseDecrease_shouldUpdateCounter() {
+    process("00A4040009" + aid);
+    assertThat(process("003201C803000010")).isEqualTo("0000749000");
+    assertThat(process("003001C803000074")).isEqualTo("0000009000");
+    assertThat(process("003001C803000001")).isEqualTo("6400");
+    assertThat(process("00B201CC00")).isEqualTo("0000000000009000");
+  }
+
+  @Test
+  public void unknownInstruction_shouldReturn6D00() {
+    assertThat(process("00CA000000")).isEqualTo("6D00");
+  }
+
+  @Test
+  public void engine_shouldDriveStubSmartCard() throws Exception {
+    StubSmartCard card =
+        StubSmartCard.builder()
+            .withPowerOnData(new byte[1])
+            .withProtocol("any")
+            .withRawApduResponseProvider(engine)
+            .build();
+    assertThat(card.processApdu(HexUtil.toByteArray("00A4000C022000")))
+        .isEqualTo(HexUtil.toByteArray("9000"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void builder_duplicateSfi_shouldThrowIAE() {
+    StubCardEngine.builder().withLinearFile(0x0001, 1, 1, 1).withLinearFile(0x0002, 1, 1, 1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void builder_counterOnLinearFile_shouldThrowISE() {
+    StubCardEngine.builder().withLinearFile(0x0001, 1, 1, 1).withCounter(1, 1);
+  }
+
+  private String process(String apdu) {
+    return HexUtil.toHex(engine.getResponseFromRequest(HexUtil.toByteArray(apdu)));
+  }
+}
@@ -0,0 +1,190 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.eclipse.keyple.core.plugin.CardIOException;
+import org.eclipse.keyple.core.util.HexUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StubCardProfileLoaderTest {
+
+  static String profiles =
+      "# test profiles\n"
+          + "[card1]\n"
+          + "powerOnData = 3B8880010000000000718100F9\n"
+          + "protocol = ISO_14443_4_CARD\n"
+          + "00A4040005AABBCCDDEE00 = 6F10 8408315449432E494341A5048702FF00 9000\n"
+          + "00B2.* = 6A83\n"
+          + "00B2014400 = 9000 @5\n"
+          + "\n"
+          + "[card2]\n"
+          + "powerOnData = 3B00\n"
+          + "protocol = ISO_7816_3\n";
+
+  File profileFile;
+  File cacheFile;
+
+  @Before
+  public void setup() throws IOException {
+    profileFile = File.createTempFile("stub", ".profiles");
+    cacheFile = File.createTempFile("stub", ".cache");
+    cacheFile.delete();
+    writeProfiles(profiles);
+  }
+
+  @After
+  public void tearDown() {
+    profileFile.delete();
+    cacheFile.delete();
+  }
+
+  @Test
+  public void readProfiles_shouldReadAllProfiles() throws IOException {
+    List<StubCardProfile> cardProfiles = StubCardProfileLoader.readProfiles(profileFile);
+    assertThat(cardProfiles).hasSize(2);
+    assertThat(cardProfiles.get(0).getName()).isEqualTo("card1");
+    assertThat(cardProfiles.get(0).getPowerOnData())
+        .isEqualTo(HexUtil.toByteArray("3B8880010000000000718100F9"));
+    assertThat(cardProfiles.get(0).getCardProtocol()).isEqualTo("ISO_14443_4_CARD");
+    assertThat(cardProfiles.get(0).getSimulatedCommandCount()).isEqualTo(3);
+    assertThat(cardProfiles.get(1).getName()).isEqualTo("card2");
+    assertThat(cardProfiles.get(1).getSimulatedCommandCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void createCard_shouldRespondToTheSimulatedCommands() throws Exception {
+    StubSmartCard card = StubCardProfileLoader.readProfiles(profileFile).get(0).createCard();
+    assertThat(card.getCardProtocol()).isEqualTo("ISO_14443_4_CARD");
+    assertThat(card.processApdu(HexUtil.toByteArray("00A4040005AABBCCDDEE00")))
+        .isEqualTo(HexUtil.toByteArray("6F108408315449432E494341A5048702FF009000"));
+    // the priority makes the literal command win over the regular expression declared before
+    assertThat(card.processApdu(HexUtil.toByteArray("00B2014400")))
+        .isEqualTo(HexUtil.toByteArray("9000"));
+    assertThat(card.processApdu(HexUtil.toByteArray("00B2024400")))
+        .isEqualTo(HexUtil.toByteArray("6A83"));
+  }
+
+  @Test
+  public void createCard_shouldShareTheCompiledCommandsOfTheProfile() throws Exception {
+    StubCardProfile cardProfile = StubCardProfileLoader.readProfiles(profileFile).get(0);
+    StubSmartCard card1 = cardProfile.createCard();
+    StubCardTemplate template = cardProfile.getTemplate();
+    StubSmartCard card2 = cardProfile.createCard();
+    assertThat(cardProfile.getTemplate()).isSameAs(template);
+    assertThat(card2).isNotSameAs(card1);
+    assertThat(card2.processApdu(HexUtil.toByteArray("00B2024400")))
+        .isEqualTo(HexUtil.toByteArray("6A83"));
+  }
+
+  @Test(expected = CardIOException.class)
+  public void createCard_withoutSimulatedCommand_shouldRejectApdus() throws Exception {
+    StubCardProfileLoader.readProfiles(profileFile)
+        .get(1)
+        .createCard()
+        .processApdu(HexUtil.toByteArray("00B2014400"));
+  }
+
+  @Test
+  public void loadProfiles_shouldCreateThenUseTheCache() throws Exception {
+    List<StubCardProfile> cardProfiles = StubCardProfileLoader.loadProfiles(profileFile, cacheFile);
+    assertThat(cacheFile.isFile()).isTrue();
+    assertThat(cardProfiles).hasSize(2);
+
+    // an unchanged profile file is read from the cache, which is not rewritten
+    cacheFile.setLastModified(100000L);
+    cardProfiles = StubCardProfileLoader.loadProfiles(profileFile, cacheFile);
+    assertThat(cacheFile.lastModified()).isEqualTo(100000L);
+    assertThat(cardProfiles).hasSize(2);
+    assertThat(cardProfiles.get(0).getName()).isEqualTo("card1");
+    assertThat(cardProfiles.get(0).getSimulatedCommandCount()).isEqualTo(3);
+    assertThat(cardProfiles.get(0).createCard().processApdu(HexUtil.toByteArray("00B2014400")))
+        .isEqualTo(HexUtil.toByteArray("9000"));
+    assertThat(cardProfiles.get(1).getPowerOnData()).isEqualTo(HexUtil.toByteArray("3B00"));
+  }
+
+  @Test
+  public void loadProfiles_whenProfileFileChanged_shouldRebuildTheCache() throws IOException {
+    StubCardProfileLoader.loadProfiles(profileFile, cacheFile);
+    writeProfiles(profiles + "[card3]\npowerOnData = 3B01\nprotocol = ISO_7816_3\n");
+    assertThat(StubCardProfileLoader.loadProfiles(profileFile, cacheFile)).hasSize(3);
+    assertThat(StubCardProfileLoader.loadProfiles(profileFile, cacheFile)).hasSize(3);
+  }
+
+  @Test
+  public void loadProfiles_whenContentChangedWithSameSizeAndTime_shouldRebuildTheCache()
+      throws IOException {
+    StubCardProfileLoader.loadProfiles(profileFile, cacheFile);
+    long lastModified = profileFile.lastModified();
+    writeProfiles(profiles.replace("[card1]", "[cardX]"));
+    profileFile.setLastModified(lastModified);
+    List<StubCardProfile> cardProfiles = StubCardProfileLoader.loadProfiles(profileFile, cacheFile);
+    assertThat(cardProfiles.get(0).getName()).isEqualTo("cardX");
+    cardProfiles = StubCardProfileLoader.loadProfiles(profileFile, cacheFile);
+    assertThat(cardProfiles.get(0).getName()).isEqualTo("cardX");
+  }
+
+  @Test
+  public void loadProfiles_withInvalidCache_shouldRebuildTheCache() throws IOException {
+    StubCardProfileLoader.loadProfiles(profileFile, cacheFile);
+    RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+    file.setLength(30);
+    file.close();
+    assertThat(StubCardProfileLoader.loadProfiles(profileFile, cacheFile)).hasSize(2);
+    assertThat(cacheFile.length()).isGreaterThan(30L);
+  }
+
+  @Test(expected = IOException.class)
+  public void readProfiles_withInvalidResponse_shouldThrowIOE() throws IOException {
+    writeProfiles("[card]\npowerOnData = 3B00\nprotocol = ANY\n00B2.* = 6A8\n");
+    StubCardProfileLoader.readProfiles(profileFile);
+  }
+
+  @Test(expected = IOException.class)
+  public void readProfiles_withoutProtocol_shouldThrowIOE() throws IOException {
+    writeProfiles("[card]\npowerOnData = 3B00\n");
+    StubCardProfileLoader.readProfiles(profileFile);
+  }
+
+  @Test(expected = IOException.class)
+  public void readProfiles_withDuplicateName_shouldThrowIOE() throws IOException {
+    writeProfiles(profiles + "[card1]\npowerOnData = 3B00\nprotocol = ANY\n");
+    StubCardProfileLoader.readProfiles(profileFile);
+  }
+
+  @Test(expected = IOException.class)
+  public void readProfiles_withEntryOutsideOfAProfile_shouldThrowIOE() throws IOException {
+    writeProfiles("protocol = ANY\n");
+    StubCardProfileLoader.readProfiles(profileFile);
+  }
+
+  private void writeProfiles(String content) throws IOException {
+    long lastModified = profileFile.lastModified();
+    Writer writer =
+        new OutputStreamWriter(new FileOutputStream(profileFile), StandardCharsets.UTF_8);
+    writer.write(content);
+    writer.close();
+    // make the change visible even on file systems with a coarse modification time
+    profileFile.setLastModified(Math.max(lastModified + 2000, profileFile.lastModified()));
+  }
+}
@@ -0,0 +1,172 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.keyple.plugin.stub.StubSmartCardTest.fixedResponse;
+
+import org.eclipse.keyple.core.plugin.CardIOException;
+import org.eclipse.keyple.core.util.HexUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StubCardTemplateTest {
+
+  static String protocol = "ISO_14443_4_CARD";
+  static String selectApplication = "00A4040005AABBCCDDEE00";
+  static String readSerialNumber = "00B2014400";
+
+  StubCardTemplate template;
+
+  @Before
+  public void setup() {
+    template =
+        StubCardTemplate.builder()
+            .withSimulatedCommand(selectApplication, "6F009000")
+            .withSimulatedCommand(readSerialNumber, "000000009000")
+            .withSimulatedCommand("00B2.*", "6A83")
+            .withCommandHandler(0x00, 0xFC, 0x84, fixedResponse("11223344556677889000"))
+            .build();
+  }
+
+  @Test
+  public void build_shouldCompileTheSimulatedCommands() {
+    assertThat(template.getSimulatedCommandCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void withTemplate_shouldShareTheCommandsAndReplaceTheOverriddenResponses()
+      throws CardIOException {
+    StubSmartCard card1 = buildCard("3B01", "000000019000");
+    StubSmartCard card2 = buildCard("3B02", "000000029000");
+    StubSmartCard card3 =
+        StubSmartCard.builder()
+            .withPowerOnData(HexUtil.toByteArray("3B03"))
+            .withProtocol(protocol)
+            .withTemplate(template)
+            .build();
+
+    assertThat(card1.getPowerOnData()).isEqualTo(HexUtil.toByteArray("3B01"));
+    assertThat(card1.getCardProtocol()).isEqualTo(protocol);
+    assertThat(card1.processApdu(HexUtil.toByteArray(readSerialNumber)))
+        .isEqualTo(HexUtil.toByteArray("000000019000"));
+    assertThat(card2.processApdu(HexUtil.toByteArray(readSerialNumber)))
+        .isEqualTo(HexUtil.toByteArray("000000029000"));
+    assertThat(card3.processApdu(HexUtil.toByteArray(readSerialNumber)))
+        .isEqualTo(HexUtil.toByteArray("000000009000"));
+    for (StubSmartCard card : new StubSmartCard[] {card1, card2, card3}) {
+      assertThat(card.processApdu(HexUtil.toByteArray(selectApplication)))
+          .isEqualTo(HexUtil.toByteArray("6F009000"));
+      assertThat(card.processApdu(HexUtil.toByteArray("00B2024400")))
+          .isEqualTo(HexUtil.toByteArray("6A83"));
+      assertThat(card.processApdu(HexUtil.toByteArray("0184000008")))
+          .isEqualTo(HexUtil.toByteArray("11223344556677889000"));
+    }
+  }
+
+  @Test
+  public void withTemplate_shouldKeepMetricsPerCard() throws CardIOException {
+    StubSmartCard card1 = buildCard("3B01", "000000019000");
+    StubSmartCard card2 = buildCard("3B02", "000000029000");
+    assertThat(card2.getMetrics().getHitCounts()).containsEntry(readSerialNumber, 0L);
+    card1.processApdu(HexUtil.toByteArray(readSerialNumber));
+    card1.processApdu(HexUtil.toByteArray(readSerialNumber));
+    card2.processApdu(HexUtil.toByteArray(selectApplication));
+    assertThat(card1.getMetrics().getHitCounts())
+        .containsEntry(readSerialNumber, 2L)
+        .containsEntry(selectApplication, 0L);
+    assertThat(card2.getMetrics().getHitCounts())
+        .containsEntry(readSerialNumber, 0L)
+        .containsEntry(selectApplication, 1L);
+  }
+
+  @Test
+  public void withTemplate_withMissDiagnostics_shouldRecordTheMisses() {
+    StubSmartCard card =
+        StubSmartCard.builder()
+            .withPowerOnData(HexUtil.toByteArray("3B01"))
+            .withProtocol(protocol)
+            .withTemplate(template)
+            .withMissDiagnostics(1)
+            .build();
+    try {
+      card.processApdu(HexUtil.toByteArray("00A4040005AABBCCDDEF00"));
+    } catch (CardIOException e) {
+      // miss
+    }
+    assertThat(card.getRecentMisses()).hasSize(1);
+    assertThat(card.getRecentMisses().get(0).getNearestCommand()).isEqualTo(selectApplication);
+  }
+
+  @Test
+  public void withSharedResponses_shouldReturnTheSameResponses() throws CardIOException {
+    template =
+        StubCardTemplate.builder()
+            .withSimulatedCommand(readSerialNumber, "000000009000")
+            .withSharedResponses()
+            .build();
+    StubSmartCard card = buildCard("3B01", "000000019000");
+    byte[] response = card.processApdu(HexUtil.toByteArray(readSerialNumber));
+    assertThat(card.processApdu(HexUtil.toByteArray(readSerialNumber))).isSameAs(response);
+  }
+
+  @Test
+  public void withVariable_shouldRenderTheSharedResponseTemplates() throws CardIOException {
+    template =
+        StubCardTemplate.builder()
+            .withSimulatedCommand(readSerialNumber, "{serial}9000")
+            .withSharedResponses()
+            .build();
+    StubSmartCard card1 =
+        StubSmartCard.builder()
+            .withPowerOnData(HexUtil.toByteArray("3B01"))
+            .withProtocol(protocol)
+            .withTemplate(template)
+            .withVariable("serial", "00000001")
+            .build();
+    StubSmartCard card2 =
+        StubSmartCard.builder()
+            .withPowerOnData(HexUtil.toByteArray("3B02"))
+            .withProtocol(protocol)
+            .withTemplate(template)
+            .withVariable("serial", "00000002")
+            .build();
+    assertThat(card1.processApdu(HexUtil.toByteArray(readSerialNumber)))
+        .isEqualTo(HexUtil.toByteArray("000000019000"));
+    assertThat(card2.processApdu(HexUtil.toByteArray(readSerialNumber)))
+        .isEqualTo(HexUtil.toByteArray("000000029000"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void withResponseOverride_withUnknownCommand_shouldThrowIAE() {
+    StubSmartCard.builder()
+        .withPowerOnData(HexUtil.toByteArray("3B01"))
+        .withProtocol(protocol)
+        .withTemplate(template)
+        .withResponseOverride("00B2024400", "9000");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void withCommandHandler_withP1OutOfRange_shouldThrowIAE() {
+    StubCardTemplate.builder().withCommandHandler(0x00, 0xFF, 0xB2, 0x100, 0x00, fixedResponse(""));
+  }
+
+  private StubSmartCard buildCard(String powerOnData, String serialNumberResponse) {
+    return StubSmartCard.builder()
+        .withPowerOnData(HexUtil.toByteArray(powerOnData))
+        .withProtocol(protocol)
+        .withTemplate(template)
+        .withResponseOverride(readSerialNumber, serialNumberResponse)
+        .withMetrics()
+        .build();
+  }
+}
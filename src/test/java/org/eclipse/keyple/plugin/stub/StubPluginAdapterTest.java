@@ -15,7 +15,10 @@
 import static org.eclipse.keyple.plugin.stub.StubPluginFactoryAdapter.*;
 import static org.eclipse.keyple.plugin.stub.StubSmartCardTest.buildACard;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import org.eclipse.keyple.core.plugin.PluginIOException;
 import org.eclipse.keyple.core.plugin.ReaderIOException;
@@ -59,4 +62,68 @@ public void unplugReader_should_remove_reader() throws PluginIOException {
     pluginAdapter.unplugReader(NAME);
     assertThat(pluginAdapter.searchAvailableReaders()).isEmpty();
   }
+
+  @Test
+  public void plugReaders_withNameFormat_should_create_readers() {
+    pluginAdapter.plugReaders("SAM-%05d", 50000, false);
+    assertThat(pluginAdapter.searchAvailableReaderNames()).hasSize(50000);
+    assertThat(pluginAdapter.searchReader("SAM-00000")).isNotNull();
+    assertThat(pluginAdapter.searchReader("SAM-49999").isContactless()).isFalse();
+  }
+
+  @Test
+  public void plugReaders_withCards_should_create_readers_with_cards() throws ReaderIOException {
+    Map<String, StubSmartCard> readers = new LinkedHashMap<>();
+    readers.put("reader1", card);
+    readers.put("reader2", null);
+    pluginAdapter.plugReaders(readers, true);
+    assertThat(pluginAdapter.searchReader("reader1").checkCardPresence()).isTrue();
+    assertThat(pluginAdapter.searchReader("reader2").checkCardPresence()).isFalse();
+  }
+
+  @Test
+  public void plugReaders_withDuplicateNames_should_plug_nothing() {
+    try {
+      pluginAdapter.plugReaders("SAM", 2, false);
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertThat(pluginAdapter.searchAvailableReaderNames()).isEmpty();
+  }
+
+  @Test
+  public void unplugReaders_should_remove_readers() {
+    pluginAdapter.plugReaders("reader%d", 3, true);
+    pluginAdapter.unplugReaders(Arrays.asList("reader0", "reader2", "unknown"));
+    assertThat(pluginAdapter.searchAvailableReaderNames()).containsExactly("reader1");
+  }
+
+  @Test
+  public void searchAvailableReaders_should_return_same_snapshot_until_change() {
+    pluginAdapter.plugReaders("reader%d", 3, true);
+    Set<String> names = pluginAdapter.searchAvailableReaderNames();
+    assertThat(pluginAdapter.searchAvailableReaderNames() == names).isTrue();
+    assertThat(pluginAdapter.searchAvailableReaders() == pluginAdapter.searchAvailableReaders())
+        .isTrue();
+    pluginAdapter.unplugReader("reader1");
+    assertThat(pluginAdapter.searchAvailableReaderNames()).containsOnly("reader0", "reader2");
+    assertThat(names).hasSize(3);
+  }
+
+  @Test
+  public void getReaderChangeCount_should_count_effective_changes() {
+    long changeCount = pluginAdapter.getReaderChangeCount();
+    pluginAdapter.plugReaders("reader%d", 3, true);
+    assertThat(pluginAdapter.getReaderChangeCount()).isEqualTo(changeCount + 1);
+    pluginAdapter.unplugReader("unknown");
+    assertThat(pluginAdapter.getReaderChangeCount()).isEqualTo(changeCount + 1);
+    pluginAdapter.unplugReaders(Arrays.asList("reader0", "reader1"));
+    assertThat(pluginAdapter.getReaderChangeCount()).isEqualTo(changeCount + 2);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void searchAvailableReaderNames_should_be_immutable() {
+    pluginAdapter.plugReader(NAME, true, card);
+    pluginAdapter.searchAvailableReaderNames().clear();
+  }
 }
@@ -17,6 +17,7 @@
 import org.eclipse.keyple.core.common.CommonApiProperties;
 import org.eclipse.keyple.core.plugin.PluginApiProperties;
 import org.eclipse.keyple.core.plugin.PluginIOException;
+import org.eclipse.keyple.core.plugin.spi.ObservablePluginSpi;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -56,4 +57,53 @@ public void init_factory_with_reader_configuration() throws PluginIOException {
     assertThat(reader.getSmartcard()).isEqualTo(card);
     assertThat(reader.isContactless()).isTrue();
   }
+
+  @Test
+  public void init_factory_with_event_driven_card_detection() throws PluginIOException {
+    factory =
+        (StubPluginFactoryAdapter)
+            StubPluginFactoryBuilder.builder()
+                .withStubReader(READER_NAME, true, card)
+                .withCardDetectionMode(StubCardDetectionMode.EVENT_DRIVEN)
+                .build();
+
+    StubPluginAdapter stubPlugin = (StubPluginAdapter) factory.getPlugin();
+    assertThat(stubPlugin.searchReader(READER_NAME))
+        .isInstanceOf(EventDrivenStubReaderAdapter.class);
+  }
+
+  @Test
+  public void init_factory_with_card_monitoring_sleep_durations() throws PluginIOException {
+    factory =
+        (StubPluginFactoryAdapter)
+            StubPluginFactoryBuilder.builder()
+                .withStubReader(READER_NAME, true, card)
+                .withCardMonitoringSleepDurations(10, 20)
+                .build();
+
+    StubPluginAdapter stubPlugin = (StubPluginAdapter) factory.getPlugin();
+    StubReaderAdapter reader = (StubReaderAdapter) stubPlugin.searchReader(READER_NAME);
+    assertThat(reader.getCardInsertionMonitoringSleepDuration()).isEqualTo(10);
+    assertThat(reader.getCardRemovalMonitoringSleepDuration()).isEqualTo(20);
+
+    stubPlugin.plugReader("reader2", true, null, 30, 40);
+    StubReaderAdapter reader2 = (StubReaderAdapter) stubPlugin.searchReader("reader2");
+    assertThat(reader2.getCardInsertionMonitoringSleepDuration()).isEqualTo(30);
+    assertThat(reader2.getCardRemovalMonitoringSleepDuration()).isEqualTo(40);
+  }
+
+  @Test
+  public void init_factory_with_event_driven_reader_detection() throws PluginIOException {
+    factory =
+        (StubPluginFactoryAdapter)
+            StubPluginFactoryBuilder.builder()
+                .withStubReader(READER_NAME, true, card)
+                .withReaderDetectionMode(StubReaderDetectionMode.EVENT_DRIVEN)
+                .build();
+
+    AutonomousStubPluginAdapter stubPlugin = (AutonomousStubPluginAdapter) factory.getPlugin();
+    assertThat(stubPlugin).isNotInstanceOf(ObservablePluginSpi.class);
+    assertThat(stubPlugin.getName()).isEqualTo(StubPluginFactoryBuilder.PLUGIN_NAME);
+    assertThat(stubPlugin.searchAvailableReaders()).hasSize(1);
+  }
 }
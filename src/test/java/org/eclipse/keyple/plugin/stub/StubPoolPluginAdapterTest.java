@@ -12,10 +12,14 @@
 package org.eclipse.keyple.plugin.stub;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.eclipse.keyple.plugin.stub.StubSmartCardTest.buildACard;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.eclipse.keyple.core.plugin.PluginIOException;
 import org.eclipse.keyple.core.plugin.spi.reader.ReaderSpi;
 import org.eclipse.keyple.plugin.stub.StubPoolPluginFactoryAdapter.StubPoolReaderConfiguration;
@@ -86,6 +90,35 @@ public void unplugReaders_should_remove_readers() throws PluginIOException {
     assertThat(pluginPoolAdapter.searchAvailableReaders()).isEmpty();
   }
 
+  @Test
+  public void plugPoolReaders_should_create_allocatable_readers() throws PluginIOException {
+    pluginPoolAdapter.plugPoolReaders(group1, "SAM-%03d", 100);
+    assertThat(pluginPoolAdapter.searchAvailableReaderNames()).hasSize(100);
+    assertThat(pluginPoolAdapter.getReaderGroupReferences()).containsExactly(group1);
+    Set<String> allocatedReaderNames = new HashSet<String>();
+    for (int i = 0; i < 100; i++) {
+      allocatedReaderNames.add(pluginPoolAdapter.allocateReader(group1).getName());
+    }
+    assertThat(allocatedReaderNames).hasSize(100);
+    pluginPoolAdapter.unplugPoolReaders(group1);
+    assertThat(pluginPoolAdapter.searchAvailableReaderNames()).isEmpty();
+    assertThat(pluginPoolAdapter.getReaderGroupReferences()).isEmpty();
+  }
+
+  @Test
+  public void getReaderGroupReferences_should_follow_plugged_readers() throws PluginIOException {
+    pluginPoolAdapter.plugPoolReader(group2, READER_NAME_2, card);
+    pluginPoolAdapter.plugPoolReader(group1, READER_NAME, card);
+    assertThat(pluginPoolAdapter.getReaderGroupReferences()).containsExactly(group1, group2);
+
+    pluginPoolAdapter.plugPoolReader(group2, READER_NAME, card);
+    assertThat(pluginPoolAdapter.getReaderGroupReferences()).containsExactly(group2);
+
+    pluginPoolAdapter.unplugPoolReaders(group2);
+    assertThat(pluginPoolAdapter.getReaderGroupReferences()).isEmpty();
+    assertThat(pluginPoolAdapter.searchAvailableReaders()).isEmpty();
+  }
+
   @Test(expected = PluginIOException.class)
   public void allocate_reader_on_group_when_no_reader_throw_ex() throws PluginIOException {
     allocate_reader_with_group();
@@ -96,4 +129,187 @@ public void allocate_reader_on_group_when_no_reader_throw_ex() throws PluginIOEx
   public void allocate_reader_when_no_reader_throw_ex() throws PluginIOException {
     pluginPoolAdapter.allocateReader(null); // throw ex
   }
+
+  @Test
+  public void release_reader_should_make_it_available_again() throws PluginIOException {
+    allocate_reader_with_group();
+    pluginPoolAdapter.releaseReader(pluginPoolAdapter.searchReader(READER_NAME));
+    ReaderSpi reader = pluginPoolAdapter.allocateReader(group1);
+    assertThat(reader.getName()).isEqualTo(READER_NAME);
+  }
+
+  @Test(expected = PluginIOException.class)
+  public void allocate_unplugged_reader_throw_ex() throws PluginIOException {
+    plugReader_should_create_reader();
+    pluginPoolAdapter.unplugPoolReader(READER_NAME);
+    pluginPoolAdapter.allocateReader(group1); // throw ex
+  }
+
+  @Test
+  public void allocate_and_release_concurrently_should_never_share_a_reader() throws Exception {
+    for (int i = 0; i < 8; i++) {
+      pluginPoolAdapter.plugPoolReader(group1, READER_NAME + i, card);
+    }
+    final Set<String> allocatedReaders = ConcurrentHashMap.newKeySet();
+    final AtomicInteger conflicts = new AtomicInteger();
+    Thread[] threads = new Thread[16];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  for (int i = 0; i < 2000; i++) {
+                    try {
+                      ReaderSpi reader = pluginPoolAdapter.allocateReader(group1);
+                      if (!allocatedReaders.add(reader.getName())) {
+                        conflicts.incrementAndGet();
+                      }
+                      allocatedReaders.remove(reader.getName());
+                      pluginPoolAdapter.releaseReader(reader);
+                    } catch (PluginIOException e) {
+                      // pool exhausted, try again
+                    }
+                  }
+                }
+              });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(conflicts.get()).isEqualTo(0);
+    for (int i = 0; i < 8; i++) {
+      pluginPoolAdapter.allocateReader(group1);
+    }
+  }
+
+  @Test
+  public void allocate_reader_with_timeout_should_wait_for_release_in_fifo_order()
+      throws Exception {
+    pluginPoolAdapter =
+        new StubPoolPluginAdapter(READER_NAME, readerConfigurations, 0, 10000, false);
+    pluginPoolAdapter.plugPoolReader(group1, READER_NAME, card);
+    ReaderSpi reader = pluginPoolAdapter.allocateReader(group1);
+    StubPoolAllocationMetrics metrics = pluginPoolAdapter.getAllocationMetrics(group1);
+
+    final AtomicReference<ReaderSpi> firstWaiterReader = new AtomicReference<ReaderSpi>();
+    Thread firstWaiter = startAllocation(firstWaiterReader);
+    awaitWaitingAllocations(metrics, 1);
+    final AtomicReference<ReaderSpi> secondWaiterReader = new AtomicReference<ReaderSpi>();
+    Thread secondWaiter = startAllocation(secondWaiterReader);
+    awaitWaitingAllocations(metrics, 2);
+
+    pluginPoolAdapter.releaseReader(reader);
+    firstWaiter.join();
+    assertThat(firstWaiterReader.get().getName()).isEqualTo(READER_NAME);
+    assertThat(secondWaiterReader.get()).isNull();
+
+    pluginPoolAdapter.releaseReader(firstWaiterReader.get());
+    secondWaiter.join();
+    assertThat(secondWaiterReader.get().getName()).isEqualTo(READER_NAME);
+    assertThat(metrics.getWaitingAllocationCount()).isEqualTo(0);
+    assertThat(metrics.getMaxWaitingAllocationCount()).isEqualTo(2);
+    assertThat(metrics.getWaitedAllocationCount()).isEqualTo(2L);
+    assertThat(metrics.getTimedOutAllocationCount()).isEqualTo(0L);
+    assertThat(metrics.getMaxWaitTimeNanos()).isGreaterThan(0L);
+  }
+
+  @Test
+  public void allocate_and_release_concurrently_with_timeout_should_never_time_out()
+      throws Exception {
+    // a single reader maximizes the contention between the releases and the allocations
+    pluginPoolAdapter =
+        new StubPoolPluginAdapter(READER_NAME, readerConfigurations, 0, 1000, false);
+    pluginPoolAdapter.plugPoolReader(group1, READER_NAME, card);
+    final AtomicInteger timeouts = new AtomicInteger();
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  for (int i = 0; i < 20000 && timeouts.get() == 0; i++) {
+                    try {
+                      pluginPoolAdapter.releaseReader(pluginPoolAdapter.allocateReader(group1));
+                    } catch (PluginIOException e) {
+                      // a reader is always released within the timeout, the wakeup was lost
+                      timeouts.incrementAndGet();
+                    }
+                  }
+                }
+              });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(timeouts.get()).isEqualTo(0);
+    assertThat(pluginPoolAdapter.getAllocationMetrics(group1).getTimedOutAllocationCount())
+        .isEqualTo(0L);
+  }
+
+  @Test
+  public void allocate_reader_on_unknown_group_should_fail_without_waiting() throws Exception {
+    pluginPoolAdapter =
+        new StubPoolPluginAdapter(READER_NAME, readerConfigurations, 0, 10000, false);
+    pluginPoolAdapter.plugPoolReader(group1, READER_NAME, card);
+    long startTime = System.nanoTime();
+    try {
+      pluginPoolAdapter.allocateReader(group2);
+      fail("PluginIOException expected");
+    } catch (PluginIOException e) {
+      // expected
+    }
+    assertThat(System.nanoTime() - startTime).isLessThan(5000000000L);
+    StubPoolAllocationMetrics metrics = pluginPoolAdapter.getAllocationMetrics(group2);
+    assertThat(metrics.getFailedAllocationCount()).isEqualTo(0L);
+    assertThat(metrics.getWaitedAllocationCount()).isEqualTo(0L);
+    assertThat(pluginPoolAdapter.getAllocationMetrics(null).getFailedAllocationCount())
+        .isEqualTo(1L);
+    assertThat(pluginPoolAdapter.getReaderGroupReferences()).containsExactly(group1);
+  }
+
+  @Test
+  public void allocate_reader_with_timeout_when_no_release_throw_ex() throws PluginIOException {
+    pluginPoolAdapter = new StubPoolPluginAdapter(READER_NAME, readerConfigurations, 0, 50, false);
+    pluginPoolAdapter.plugPoolReader(group1, READER_NAME, card);
+    pluginPoolAdapter.allocateReader(group1);
+    try {
+      pluginPoolAdapter.allocateReader(group1);
+      fail("PluginIOException expected");
+    } catch (PluginIOException e) {
+      // expected
+    }
+    StubPoolAllocationMetrics metrics = pluginPoolAdapter.getAllocationMetrics(group1);
+    assertThat(metrics.getSuccessfulAllocationCount()).isEqualTo(1L);
+    assertThat(metrics.getFailedAllocationCount()).isEqualTo(1L);
+    assertThat(metrics.getTimedOutAllocationCount()).isEqualTo(1L);
+    assertThat(metrics.getTotalWaitTimeNanos()).isGreaterThanOrEqualTo(50000000L);
+  }
+
+  private Thread startAllocation(final AtomicReference<ReaderSpi> allocatedReader) {
+    Thread thread =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  allocatedReader.set(pluginPoolAdapter.allocateReader(group1));
+                } catch (PluginIOException e) {
+                  // timed out, allocatedReader remains null
+                }
+              }
+            });
+    thread.start();
+    return thread;
+  }
+
+  private static void awaitWaitingAllocations(StubPoolAllocationMetrics metrics, int count)
+      throws InterruptedException {
+    while (metrics.getWaitingAllocationCount() < count) {
+      Thread.sleep(1);
+    }
+  }
 }
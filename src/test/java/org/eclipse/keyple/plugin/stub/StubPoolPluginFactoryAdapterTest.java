@@ -17,6 +17,7 @@
 import org.eclipse.keyple.core.common.CommonApiProperties;
 import org.eclipse.keyple.core.plugin.PluginApiProperties;
 import org.eclipse.keyple.core.plugin.PluginIOException;
+import org.eclipse.keyple.core.plugin.spi.ObservablePluginSpi;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -67,4 +68,21 @@ public void init_factory_with_reader_configuration() throws PluginIOException {
     assertThat(reader2.getSmartcard()).isEqualTo(card);
     assertThat(reader2.isContactless()).isFalse();
   }
+
+  @Test
+  public void init_factory_with_event_driven_reader_detection() throws PluginIOException {
+    factory =
+        (StubPoolPluginFactoryAdapter)
+            StubPoolPluginFactoryBuilder.builder()
+                .withStubReader(GROUP, READER_NAME, card)
+                .withReaderDetectionMode(StubReaderDetectionMode.EVENT_DRIVEN)
+                .withAllocationTimeout(10)
+                .build();
+
+    AutonomousStubPoolPluginAdapter stubPlugin =
+        (AutonomousStubPoolPluginAdapter) factory.getPoolPlugin();
+    assertThat(stubPlugin).isNotInstanceOf(ObservablePluginSpi.class);
+    assertThat(stubPlugin.getName()).isEqualTo(StubPoolPluginFactoryBuilder.PLUGIN_NAME);
+    assertThat(stubPlugin.allocateReader(GROUP).getName()).isEqualTo(READER_NAME);
+  }
 }
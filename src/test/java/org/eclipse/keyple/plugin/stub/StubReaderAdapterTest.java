@@ -12,10 +12,15 @@
 package org.eclipse.keyple.plugin.stub;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.eclipse.keyple.plugin.stub.StubSmartCardTest.*;
 
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.keyple.core.plugin.CardIOException;
 import org.eclipse.keyple.core.util.HexUtil;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -83,6 +88,40 @@ public void insert_card_with_inserted_card_does_nothing() {
     assertThat(adapter.getSmartcard()).isEqualTo(card);
   }
 
+  @Test
+  public void concurrent_insertions_should_insert_a_single_card() throws InterruptedException {
+    adapter.activateProtocol(PROTOCOL);
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicInteger insertedCount = new AtomicInteger();
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      final StubSmartCard threadCard = buildCard(PROTOCOL);
+      threads[i] =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  try {
+                    start.await();
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  adapter.insertCard(threadCard);
+                  if (adapter.getSmartcard() == threadCard) {
+                    insertedCount.incrementAndGet();
+                  }
+                }
+              });
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(insertedCount.get()).isEqualTo(1);
+    assertThat(adapter.checkCardPresence()).isTrue();
+  }
+
   @Test
   public void test_open_close_channel() {
     adapter.activateProtocol(PROTOCOL);
@@ -94,6 +133,143 @@ public void test_open_close_channel() {
     assertThat(adapter.isPhysicalChannelOpen()).isFalse();
   }
 
+  @Test
+  public void transmitApdu_withTimingModel_shouldWaitForTheExchangeDuration()
+      throws CardIOException {
+    StubSmartCard slowCard =
+        StubSmartCard.builder()
+            .withPowerOnData(HexUtil.toByteArray("0000"))
+            .withProtocol(PROTOCOL)
+            .withTimingModel(
+                StubTimingModel.builder().withDefaultLatency(StubLatency.fixed(20000)).build())
+            .withSimulatedCommand(commandHex, responseHex)
+            .build();
+    adapter.activateProtocol(PROTOCOL);
+    adapter.insertCard(slowCard);
+    long startTime = System.nanoTime();
+    assertThat(adapter.transmitApdu(HexUtil.toByteArray(commandHex)))
+        .isEqualTo(HexUtil.toByteArray(responseHex));
+    assertThat(System.nanoTime() - startTime).isGreaterThanOrEqualTo(20000000L);
+  }
+
+  @Test
+  public void transmitApdu_withTimingModel_whenNoResponse_shouldWaitBeforeFailing() {
+    StubSmartCard slowCard =
+        StubSmartCard.builder()
+            .withPowerOnData(HexUtil.toByteArray("0000"))
+            .withProtocol(PROTOCOL)
+            .withTimingModel(
+                StubTimingModel.builder().withInsLatency(0xB2, StubLatency.fixed(20000)).build())
+            .withSimulatedCommand(commandHex, responseHex)
+            .build();
+    adapter.activateProtocol(PROTOCOL);
+    adapter.insertCard(slowCard);
+    long startTime = System.nanoTime();
+    try {
+      adapter.transmitApdu(HexUtil.toByteArray("00B2014400"));
+      fail("CardIOException expected");
+    } catch (CardIOException e) {
+      assertThat(System.nanoTime() - startTime).isGreaterThanOrEqualTo(20000000L);
+    }
+  }
+
+  @Test
+  public void transmitApdu_withSharedResponses_shouldNotAllocate() throws CardIOException {
+    java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(
+        threadMXBean instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemoryEnabled());
+    com.sun.management.ThreadMXBean allocationCounter =
+        (com.sun.management.ThreadMXBean) threadMXBean;
+    StubSmartCard staticCard =
+        StubSmartCard.builder()
+            .withPowerOnData(HexUtil.toByteArray("0000"))
+            .withProtocol(PROTOCOL)
+            .withSimulatedCommand("00A4040005AABBCCDDEE00", "6F009000")
+            .withSimulatedCommand(commandHex, responseHex)
+            .withSharedResponses()
+            .build();
+    adapter.activateProtocol(PROTOCOL);
+    adapter.insertCard(staticCard);
+    byte[] apdu = HexUtil.toByteArray(commandHex);
+    byte[] expectedResponse = HexUtil.toByteArray(responseHex);
+    for (int i = 0; i < 10000; i++) {
+      adapter.transmitApdu(apdu);
+    }
+    long threadId = Thread.currentThread().getId();
+    long allocatedBytes = allocationCounter.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 100000; i++) {
+      adapter.transmitApdu(apdu);
+      adapter.getPowerOnData();
+    }
+    allocatedBytes = allocationCounter.getThreadAllocatedBytes(threadId) - allocatedBytes;
+    // a single allocation per exchange would account for at least 1.6 MB
+    assertThat(allocatedBytes).isLessThan(10000L);
+    assertThat(adapter.transmitApdu(apdu)).isEqualTo(expectedResponse);
+  }
+
+  @Test
+  public void transmitApdu_nullApdu_shouldCountAnEmptyCommand() throws Exception {
+    adapter = new StubReaderAdapter(NAME, IS_CONTACT_LESS, null, 0, 0, true);
+    StubReaderMetrics metrics = adapter.getMetrics();
+    adapter.activateProtocol(PROTOCOL);
+    adapter.insertCard(card);
+    adapter.openPhysicalChannel();
+    assertThat(adapter.transmitApdu(null)).isEmpty();
+    assertThat(metrics.getTransmittedApduCount()).isEqualTo(1L);
+    assertThat(metrics.getCommandByteCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void metrics_shouldCountTheReaderActivity() throws Exception {
+    adapter = new StubReaderAdapter(NAME, IS_CONTACT_LESS, null, 0, 0, true);
+    StubReaderMetrics metrics = adapter.getMetrics();
+    try {
+      adapter.transmitApdu(HexUtil.toByteArray(commandHex));
+    } catch (CardIOException e) {
+      // no card
+    }
+    adapter.activateProtocol(PROTOCOL);
+    adapter.insertCard(card);
+    adapter.openPhysicalChannel();
+    Thread.sleep(5);
+    adapter.transmitApdu(HexUtil.toByteArray(commandHex));
+    adapter.transmitApdu(HexUtil.toByteArray(commandHex));
+    try {
+      adapter.transmitApdu(HexUtil.toByteArray("00B2000000"));
+    } catch (CardIOException e) {
+      // no response
+    }
+    adapter.removeCard();
+
+    assertThat(metrics.getTransmittedApduCount()).isEqualTo(2L);
+    assertThat(metrics.getFailedTransmissionCount()).isEqualTo(2L);
+    assertThat(metrics.getCommandByteCount()).isEqualTo(2L * commandHex.length() / 2);
+    assertThat(metrics.getResponseByteCount()).isEqualTo(2L * responseHex.length() / 2);
+    long histogramCount = 0;
+    for (long count : metrics.getTransmissionLatencyHistogram()) {
+      histogramCount += count;
+    }
+    assertThat(histogramCount).isEqualTo(2L);
+    assertThat(metrics.getCardInsertionCount()).isEqualTo(1L);
+    assertThat(metrics.getCardRemovalCount()).isEqualTo(1L);
+    assertThat(metrics.getPhysicalChannelOpeningCount()).isEqualTo(1L);
+    assertThat(metrics.getPhysicalChannelOpenTimeNanos()).isGreaterThanOrEqualTo(5000000L);
+  }
+
+  @Test
+  public void metrics_whenNotEnabled_shouldStayEmpty() throws Exception {
+    adapter.activateProtocol(PROTOCOL);
+    adapter.insertCard(card);
+    adapter.openPhysicalChannel();
+    adapter.transmitApdu(HexUtil.toByteArray(commandHex));
+    adapter.removeCard();
+    StubReaderMetrics metrics = adapter.getMetrics();
+    assertThat(metrics.getTransmittedApduCount()).isEqualTo(0L);
+    assertThat(metrics.getCardInsertionCount()).isEqualTo(0L);
+    assertThat(metrics.getPhysicalChannelOpeningCount()).isEqualTo(0L);
+  }
+
   @Test(expected = CardIOException.class)
   public void op_without_card() throws CardIOException {
     assertThat(adapter.isCurrentProtocol("any")).isFalse();
@@ -0,0 +1,196 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.eclipse.keyple.plugin.stub.StubSmartCardTest.commandHex;
+import static org.eclipse.keyple.plugin.stub.StubSmartCardTest.responseHex;
+
+import org.eclipse.keyple.core.util.HexUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StubScenarioSchedulerTest {
+
+  private final String PROTOCOL = "any";
+  // upper bound of any wait, far above the expected durations
+  private static final long TIMEOUT_NANOS = 10000000000L;
+
+  private StubScenarioScheduler scheduler;
+  private StubReaderAdapter reader;
+
+  @Before
+  public void setUp() {
+    scheduler = StubScenarioScheduler.builder().build();
+    reader = buildReader("reader");
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.stop();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void withTickDuration_whenZero_shouldThrowIAE() {
+    StubScenarioScheduler.builder().withTickDuration(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void withPoissonTaps_whenRateIsZero_shouldThrowIAE() {
+    StubScenario.builder().withPoissonTaps(reader, buildCard(), 0, 10);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void start_whenRunning_shouldThrowISE() {
+    scheduler.start();
+    scheduler.start();
+  }
+
+  @Test
+  public void play_shouldExecuteTheTimelineInTimeOrder() throws InterruptedException {
+    StubSmartCard card = buildCard();
+    scheduler.start();
+    scheduler.play(
+        StubScenario.builder()
+            .withRemoval(60, reader)
+            .withTransmission(40, reader, commandHex)
+            .withInsertion(20, reader, card)
+            .build());
+    awaitEventCount(3);
+    // out of order, the transmission or the removal would have been skipped for lack of card
+    assertThat(scheduler.getSkippedEventCount()).isEqualTo(0L);
+    assertThat(reader.getSmartcard()).isNull();
+  }
+
+  @Test
+  public void play_beforeStart_shouldExecuteTheEventsOnceStarted() throws InterruptedException {
+    scheduler.play(StubScenario.builder().withInsertion(0, reader, buildCard()).build());
+    Thread.sleep(20);
+    assertThat(reader.getSmartcard()).isNull();
+    scheduler.start();
+    awaitEventCount(1);
+    assertThat(reader.getSmartcard()).isNotNull();
+  }
+
+  @Test
+  public void play_withTap_shouldInsertTransmitAndRemove() throws InterruptedException {
+    scheduler.start();
+    scheduler.play(
+        StubScenario.builder()
+            .withTapCommand(commandHex)
+            .withTapCommand(commandHex)
+            .withTap(0, reader, buildCard(), 10)
+            .withTransmission(600, reader, commandHex)
+            .build());
+    awaitEventCount(4);
+    assertThat(reader.getSmartcard()).isNull();
+    // a transmission without card is skipped, after more than one round of the wheel
+    awaitEventCounts(4, 1);
+    assertThat(scheduler.getExecutedEventCount()).isEqualTo(4L);
+  }
+
+  @Test
+  public void play_withInsertionInOccupiedReader_shouldSkipIt() throws InterruptedException {
+    scheduler.start();
+    scheduler.play(
+        StubScenario.builder()
+            .withInsertion(0, reader, buildCard())
+            .withInsertion(10, reader, buildCard())
+            .build());
+    awaitEventCounts(1, 1);
+    assertThat(scheduler.getExecutedEventCount()).isEqualTo(1L);
+    assertThat(scheduler.getSkippedEventCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void play_withPoissonTaps_shouldTapAtTheRequestedRate() throws InterruptedException {
+    StubScenario.Builder builder = StubScenario.builder().withDuration(1000);
+    StubReaderAdapter[] readers = new StubReaderAdapter[20];
+    for (int i = 0; i < readers.length; i++) {
+      readers[i] = buildReader("reader" + i);
+      builder.withPoissonTaps(readers[i], buildCard(), 20, 0);
+    }
+    scheduler.start();
+    long startTime = System.nanoTime();
+    scheduler.play(builder.build());
+    // 20 readers x 20 taps per second during 1 second, each tap being an insertion and a removal
+    awaitEventCount(2 * 300);
+    // the arrivals follow the theoretical times: once the scenario is over the count is final,
+    // however late the wheel runs
+    long eventCount = scheduler.getExecutedEventCount();
+    long stableSince = System.nanoTime();
+    while (System.nanoTime() - startTime < 1000000000L
+        || System.nanoTime() - stableSince < 100000000L) {
+      checkDeadline(startTime);
+      Thread.sleep(1);
+      if (scheduler.getExecutedEventCount() != eventCount) {
+        eventCount = scheduler.getExecutedEventCount();
+        stableSince = System.nanoTime();
+      }
+    }
+    long tapCount = eventCount / 2;
+    assertThat(tapCount).isBetween(300L, 500L);
+    for (StubReaderAdapter stubReader : readers) {
+      assertThat(stubReader.getSmartcard()).isNull();
+    }
+  }
+
+  @Test
+  public void stop_shouldDiscardThePendingEvents() throws InterruptedException {
+    scheduler.start();
+    scheduler.play(StubScenario.builder().withInsertion(50, reader, buildCard()).build());
+    scheduler.stop();
+    Thread.sleep(80);
+    assertThat(reader.getSmartcard()).isNull();
+    assertThat(scheduler.getExecutedEventCount()).isEqualTo(0L);
+  }
+
+  private void awaitEventCount(long count) throws InterruptedException {
+    awaitEventCounts(count, 0);
+  }
+
+  private void awaitEventCounts(long executedCount, long skippedCount)
+      throws InterruptedException {
+    long startTime = System.nanoTime();
+    while (scheduler.getExecutedEventCount() < executedCount
+        || scheduler.getSkippedEventCount() < skippedCount) {
+      checkDeadline(startTime);
+      Thread.sleep(1);
+    }
+  }
+
+  private void checkDeadline(long startTime) {
+    if (System.nanoTime() - startTime > TIMEOUT_NANOS) {
+      fail(
+          "Timeout: executed="
+              + scheduler.getExecutedEventCount()
+              + ", skipped="
+              + scheduler.getSkippedEventCount());
+    }
+  }
+
+  private StubReaderAdapter buildReader(String name) {
+    StubReaderAdapter stubReader = new StubReaderAdapter(name, true, null);
+    stubReader.activateProtocol(PROTOCOL);
+    return stubReader;
+  }
+
+  private StubSmartCard buildCard() {
+    return StubSmartCard.builder()
+        .withPowerOnData(HexUtil.toByteArray("0000"))
+        .withProtocol(PROTOCOL)
+        .withSimulatedCommand(commandHex, responseHex)
+        .build();
+  }
+}
@@ -13,9 +13,11 @@
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.List;
 import org.eclipse.keyple.core.plugin.CardIOException;
 import org.eclipse.keyple.core.util.HexUtil;
 import org.eclipse.keyple.plugin.stub.spi.ApduResponseProviderSpi;
+import org.eclipse.keyple.plugin.stub.spi.RawApduResponseProviderSpi;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -51,6 +53,131 @@ public void sendApdu_apduRegexpExists_sendResponse() throws CardIOException {
     assertThat(apduResponse).isEqualTo(HexUtil.toByteArray(responseHex));
   }
 
+  @Test
+  public void build_shouldOwnPowerOnDataAndPrecomputeHex() {
+    byte[] sourcePowerOnData = HexUtil.toByteArray("3B8880");
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(sourcePowerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand(commandHex, responseHex)
+            .build();
+    sourcePowerOnData[0] = 0;
+    assertThat(card.getPowerOnData()).isEqualTo(HexUtil.toByteArray("3B8880"));
+    assertThat(card.getPowerOnDataHex()).isEqualTo("3B8880");
+    assertThat(card.getPowerOnDataHex() == card.getPowerOnDataHex()).isTrue();
+  }
+
+  @Test
+  public void sendApdu_withSharedResponses_shouldReturnSameArray() throws CardIOException {
+    byte[] apdu = HexUtil.toByteArray(commandHex);
+    assertThat(card.processApdu(apdu) != card.processApdu(apdu)).isTrue();
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand(commandHex, responseHex)
+            .withSharedResponses()
+            .build();
+    assertThat(card.processApdu(apdu) == card.processApdu(apdu)).isTrue();
+    assertThat(card.processApdu(apdu)).isEqualTo(HexUtil.toByteArray(responseHex));
+  }
+
+  @Test
+  public void sendApdu_manyCommands_sendMatchingResponse() throws CardIOException {
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand("00A4040005AABBCCDDEE00", "6F009000")
+            .withSimulatedCommand("00B2.*", "01029000")
+            .withSimulatedCommand("00B3[0-9A-F]{2}.*", "03049000")
+            .withSimulatedCommand("..CA.*", "05069000")
+            .build();
+    assertThat(card.processApdu(HexUtil.toByteArray("00A4040005AABBCCDDEE00")))
+        .isEqualTo(HexUtil.toByteArray("6F009000"));
+    assertThat(card.processApdu(HexUtil.toByteArray("00B2011C00")))
+        .isEqualTo(HexUtil.toByteArray("01029000"));
+    assertThat(card.processApdu(HexUtil.toByteArray("00B3011C00")))
+        .isEqualTo(HexUtil.toByteArray("03049000"));
+    assertThat(card.processApdu(HexUtil.toByteArray("80CA00FF00")))
+        .isEqualTo(HexUtil.toByteArray("05069000"));
+  }
+
+  @Test
+  public void sendApdu_overlappingCommands_firstDeclaredWins() throws CardIOException {
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand("00B2.*", "01")
+            .withSimulatedCommand("00B20104", "02")
+            .withSimulatedCommand(".*", "03")
+            .build();
+    assertThat(card.processApdu(HexUtil.toByteArray("00B20104")))
+        .isEqualTo(HexUtil.toByteArray("01"));
+    assertThat(card.processApdu(HexUtil.toByteArray("00B30104")))
+        .isEqualTo(HexUtil.toByteArray("03"));
+  }
+
+  @Test
+  public void sendApdu_overlappingCommands_highestPriorityWins() throws CardIOException {
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand("00B2.*", "01")
+            .withSimulatedCommand("00B20104", "02", 1)
+            .withSimulatedCommand(".*", "03", 2)
+            .build();
+    assertThat(card.processApdu(HexUtil.toByteArray("00B20104")))
+        .isEqualTo(HexUtil.toByteArray("03"));
+  }
+
+  @Test
+  public void sendApdu_hitFrequencyOrder_mostFrequentCommandWins() throws CardIOException {
+    StubSmartCard.SimulatedCommandStep builder =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand("00B201.*", "01")
+            .withSimulatedCommand("00B2..02.*", "02");
+    StubSmartCard declarationCard = builder.build();
+    card = builder.withMatchingOrder(StubSmartCard.MatchingOrder.HIT_FREQUENCY).build();
+    for (int i = 0; i < 3; i++) {
+      declarationCard.processApdu(HexUtil.toByteArray("00B20202"));
+      card.processApdu(HexUtil.toByteArray("00B20202"));
+    }
+    assertThat(declarationCard.processApdu(HexUtil.toByteArray("00B20102")))
+        .isEqualTo(HexUtil.toByteArray("01"));
+    assertThat(card.processApdu(HexUtil.toByteArray("00B20102")))
+        .isEqualTo(HexUtil.toByteArray("02"));
+  }
+
+  @Test
+  public void sendApdu_hitFrequencyOrder_literalKeepsDeclarationOrder() throws CardIOException {
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand("00B201.*", "01")
+            .withSimulatedCommand("00B20104", "02")
+            .withSimulatedCommand("00B2..04.*", "03")
+            .withMatchingOrder(StubSmartCard.MatchingOrder.HIT_FREQUENCY)
+            .build();
+    card.processApdu(HexUtil.toByteArray("00B20204"));
+    // "00B2..04.*" is now tried first among the regular expressions, but not for the literal
+    assertThat(card.processApdu(HexUtil.toByteArray("00B2010400")))
+        .isEqualTo(HexUtil.toByteArray("03"));
+    for (int i = 0; i < 3; i++) {
+      assertThat(card.processApdu(HexUtil.toByteArray("00B20104")))
+          .isEqualTo(HexUtil.toByteArray("01"));
+    }
+    // the hits resolved by the literal are not counted
+    assertThat(card.processApdu(HexUtil.toByteArray("00B2010400")))
+        .isEqualTo(HexUtil.toByteArray("03"));
+  }
+
   @Test(expected = CardIOException.class)
   public void sendApdu_apduNotExists_sendException() throws CardIOException {
     card.processApdu(HexUtil.toByteArray("excp"));
@@ -74,6 +201,276 @@ public String getResponseFromRequest(String apduRequest) {
     assertThat(apduResponse).isEqualTo(HexUtil.toByteArray(responseHex));
   }
 
+  @Test
+  public void shouldUse_a_rawApduResponseProvider_to_sendResponse() throws CardIOException {
+    final byte[] response = HexUtil.toByteArray("9000");
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withRawApduResponseProvider(
+                new RawApduResponseProviderSpi() {
+                  @Override
+                  public byte[] getResponseFromRequest(byte[] apduRequest) {
+                    return apduRequest[1] == (byte) 0x34 ? response : null;
+                  }
+                })
+            .build();
+    assertThat(card.processApdu(HexUtil.toByteArray(commandHex))).isEqualTo(response);
+  }
+
+  @Test(expected = CardIOException.class)
+  public void rawApduResponseProvider_returnsNull_sendException() throws CardIOException {
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withRawApduResponseProvider(
+                new RawApduResponseProviderSpi() {
+                  @Override
+                  public byte[] getResponseFromRequest(byte[] apduRequest) {
+                    return null;
+                  }
+                })
+            .build();
+    card.processApdu(HexUtil.toByteArray(commandHex));
+  }
+
+  @Test
+  public void commandHandler_shouldBeDispatchedOnTheApduHeader() throws CardIOException {
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand("80B2.*", "6A83")
+            .withCommandHandler(0x00, 0xFC, 0xB2, fixedResponse("01029000"))
+            .withCommandHandler(0x00, 0xFC, 0xB2, 0x01, 0x04, fixedResponse("03049000"))
+            .withCommandHandler(0x00, 0xFC, 0xB4, fixedResponse(null))
+            .withSimulatedCommand("00B4000000", "9000")
+            .build();
+    // the handlers of specific P1/P2 values are tried first
+    assertThat(card.processApdu(HexUtil.toByteArray("00B2010400")))
+        .isEqualTo(HexUtil.toByteArray("03049000"));
+    // the logical channel bits of the CLA are masked
+    assertThat(card.processApdu(HexUtil.toByteArray("03B2020400")))
+        .isEqualTo(HexUtil.toByteArray("01029000"));
+    // other CLA values are left to the simulated commands
+    assertThat(card.processApdu(HexUtil.toByteArray("80B2020400")))
+        .isEqualTo(HexUtil.toByteArray("6A83"));
+    // a handler without response defers to the simulated commands
+    assertThat(card.processApdu(HexUtil.toByteArray("00B4000000")))
+        .isEqualTo(HexUtil.toByteArray("9000"));
+  }
+
+  @Test
+  public void commandHandler_withShortApdu_shouldBeSkipped() throws CardIOException {
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withCommandHandler(0x00, 0xFF, 0xB2, fixedResponse("9000"))
+            .withSimulatedCommand("00B2", "6700")
+            .build();
+    assertThat(card.processApdu(HexUtil.toByteArray("00B2")))
+        .isEqualTo(HexUtil.toByteArray("6700"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void commandHandler_withInvalidIns_shouldThrowIAE() {
+    StubSmartCard.builder()
+        .withPowerOnData(powerOnData)
+        .withProtocol(protocol)
+        .withCommandHandler(0x00, 0xFF, 0x100, fixedResponse("9000"));
+  }
+
+  @Test
+  public void metrics_shouldCountTheHitsAndMisses() {
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand(commandHex, responseHex)
+            .withSimulatedCommand(commandHexRegexp, "9000")
+            .withMetrics()
+            .build();
+    for (String apdu : new String[] {commandHex, commandHex, "12340000", "00B2000000"}) {
+      try {
+        card.processApdu(HexUtil.toByteArray(apdu));
+      } catch (CardIOException e) {
+        // miss
+      }
+    }
+    assertThat(card.getMetrics().getHitCounts())
+        .containsEntry(commandHex, 2L)
+        .containsEntry(commandHexRegexp, 1L);
+    assertThat(card.getMetrics().getMissCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void metrics_whenNotEnabled_shouldStayEmpty() throws CardIOException {
+    card.processApdu(HexUtil.toByteArray(commandHex));
+    try {
+      card.processApdu(HexUtil.toByteArray("00B2000000"));
+    } catch (CardIOException e) {
+      // miss
+    }
+    assertThat(card.getMetrics().getHitCounts()).isEmpty();
+    assertThat(card.getMetrics().getMissCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void getRecentMisses_withoutMissDiagnostics_shouldBeEmpty() {
+    try {
+      card.processApdu(HexUtil.toByteArray("00B2000000"));
+    } catch (CardIOException e) {
+      // miss
+    }
+    assertThat(card.getRecentMisses()).isEmpty();
+  }
+
+  @Test
+  public void getRecentMisses_shouldKeepTheLastMissesWithTheirNearestCommand() {
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand("00A4040005AABBCCDDEE00", "9000")
+            .withSimulatedCommand("00b2014400", "9000")
+            .withMissDiagnostics(2)
+            .build();
+    for (String apdu : new String[] {"0000", "00B2014C00", "00A4040005AABBCCDDFF00"}) {
+      try {
+        card.processApdu(HexUtil.toByteArray(apdu));
+      } catch (CardIOException e) {
+        // miss
+      }
+    }
+    List<StubCommandMiss> misses = card.getRecentMisses();
+    assertThat(misses).hasSize(2);
+    assertThat(misses.get(0).getApdu()).isEqualTo("00B2014C00");
+    assertThat(misses.get(0).getNearestCommand()).isEqualTo("00b2014400");
+    assertThat(misses.get(0).getEditDistance()).isEqualTo(1);
+    assertThat(misses.get(0).getCommonPrefixLength()).isEqualTo(7);
+    assertThat(misses.get(1).getNearestCommand()).isEqualTo("00A4040005AABBCCDDEE00");
+    assertThat(misses.get(1).getEditDistance()).isEqualTo(2);
+    assertThat(misses.get(1).getTimeNanos())
+        .isGreaterThanOrEqualTo(misses.get(0).getTimeNanos());
+  }
+
+  @Test
+  public void getRecentMisses_withoutSimulatedCommand_shouldHaveNoNearestCommand() {
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withCommandHandler(0x00, 0xFF, 0xB2, fixedResponse("9000"))
+            .withMissDiagnostics(4)
+            .build();
+    try {
+      card.processApdu(HexUtil.toByteArray("00B0000000"));
+    } catch (CardIOException e) {
+      // miss
+    }
+    assertThat(card.getRecentMisses()).hasSize(1);
+    assertThat(card.getRecentMisses().get(0).getNearestCommand()).isNull();
+    assertThat(card.getRecentMisses().get(0).getEditDistance()).isEqualTo(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void withMissDiagnostics_withZeroCapacity_shouldThrowIAE() {
+    StubSmartCard.builder()
+        .withPowerOnData(powerOnData)
+        .withProtocol(protocol)
+        .withSimulatedCommand(commandHex, responseHex)
+        .withMissDiagnostics(0);
+  }
+
+  @Test
+  public void processApdu_withResponseTemplate_shouldRenderThePlaceholders() throws Exception {
+    card =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand("00B2(..)(..)00", "{serial} {$2}{$1} {tx++:2} 9000")
+            .withSimulatedCommand("0084000008", "{random:8}9000")
+            .withVariable("serial", "11223344")
+            .build();
+    assertThat(card.processApdu(HexUtil.toByteArray("00B2014400")))
+        .isEqualTo(HexUtil.toByteArray("112233444401" + "0000" + "9000"));
+    assertThat(card.processApdu(HexUtil.toByteArray("00B2024C00")))
+        .isEqualTo(HexUtil.toByteArray("112233444C02" + "0001" + "9000"));
+    byte[] challenge = card.processApdu(HexUtil.toByteArray("0084000008"));
+    assertThat(challenge).hasSize(10);
+    assertThat(challenge[8]).isEqualTo((byte) 0x90);
+  }
+
+  @Test
+  public void processApdu_withGroupOnlyTemplate_shouldRenderTheMatchedGroups() throws Exception {
+    StubSmartCard.SimulatedCommandStep builder =
+        StubSmartCard.builder()
+            .withPowerOnData(powerOnData)
+            .withProtocol(protocol)
+            .withSimulatedCommand("00B2(..)(..)00", "{$2}{$1}9000", 1)
+            .withSimulatedCommand("00B2010400", "01");
+    for (StubSmartCard groupCard :
+        new StubSmartCard[] {
+          builder.build(),
+          builder.withMatchingOrder(StubSmartCard.MatchingOrder.HIT_FREQUENCY).build()
+        }) {
+      // the literal is shadowed by the regular expression of higher priority
+      assertThat(groupCard.processApdu(HexUtil.toByteArray("00B2010400")))
+          .isEqualTo(HexUtil.toByteArray("04019000"));
+      assertThat(groupCard.processApdu(HexUtil.toByteArray("00B2024C00")))
+          .isEqualTo(HexUtil.toByteArray("4C029000"));
+    }
+  }
+
+  @Test
+  public void processApdu_withResponseTemplate_shouldKeepCountersPerCard() throws Exception {
+    StubSmartCard card1 = buildCounterCard();
+    StubSmartCard card2 = buildCounterCard();
+    card1.processApdu(HexUtil.toByteArray("805C000000"));
+    assertThat(card1.processApdu(HexUtil.toByteArray("805C000000")))
+        .isEqualTo(HexUtil.toByteArray("0000019000"));
+    assertThat(card2.processApdu(HexUtil.toByteArray("805C000000")))
+        .isEqualTo(HexUtil.toByteArray("0000009000"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void build_withUndefinedTemplateVariable_shouldThrowISE() {
+    StubSmartCard.builder()
+        .withPowerOnData(powerOnData)
+        .withProtocol(protocol)
+        .withSimulatedCommand(commandHex, "{serial}9000")
+        .build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void build_withGroupOfLiteralCommand_shouldThrowIAE() {
+    StubSmartCard.builder()
+        .withPowerOnData(powerOnData)
+        .withProtocol(protocol)
+        .withSimulatedCommand(commandHex, "{$1}9000")
+        .build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void build_withUnknownPlaceholder_shouldThrowIAE() {
+    StubSmartCard.builder()
+        .withPowerOnData(powerOnData)
+        .withProtocol(protocol)
+        .withSimulatedCommand(commandHex, "{serial:4}9000")
+        .build();
+  }
+
+  private StubSmartCard buildCounterCard() {
+    return StubSmartCard.builder()
+        .withPowerOnData(powerOnData)
+        .withProtocol(protocol)
+        .withSimulatedCommand("805C000000", "{counter++:3}9000")
+        .build();
+  }
+
   @Test
   public void open_close_physical_channel() {
     assertThat(card.isPhysicalChannelOpen()).isFalse();
@@ -90,4 +487,13 @@ static StubSmartCard buildACard() {
         .withSimulatedCommand(commandHex, responseHex)
         .build();
   }
+
+  static RawApduResponseProviderSpi fixedResponse(final String responseHex) {
+    return new RawApduResponseProviderSpi() {
+      @Override
+      public byte[] getResponseFromRequest(byte[] apduRequest) {
+        return responseHex != null ? HexUtil.toByteArray(responseHex) : null;
+      }
+    };
+  }
 }
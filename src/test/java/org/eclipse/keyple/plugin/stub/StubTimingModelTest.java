@@ -0,0 +1,108 @@
+/* **************************************************************************************
+ * Copyright (c) 2026 Calypso Networks Association https://calypsonet.org/
+ *
+ * See the NOTICE file(s) distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License 2.0 which is available at http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ ************************************************************************************** */
+package org.eclipse.keyple.plugin.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.eclipse.keyple.core.util.HexUtil;
+import org.junit.Test;
+
+public class StubTimingModelTest {
+
+  static byte[] readRecord = HexUtil.toByteArray("00B2014400");
+  static byte[] selectFile = HexUtil.toByteArray("00A4020002200000");
+  static byte[] response = HexUtil.toByteArray("9000");
+
+  @Test
+  public void getExchangeNanos_emptyModel_shouldBeZero() {
+    StubTimingModel model = StubTimingModel.builder().build();
+    assertThat(model.getExchangeNanos(readRecord, response.length)).isEqualTo(0L);
+  }
+
+  @Test
+  public void getExchangeNanos_shouldApplyMostSpecificLatency() {
+    StubTimingModel model =
+        StubTimingModel.builder()
+            .withDefaultLatency(StubLatency.fixed(1))
+            .withInsLatency(0xB2, StubLatency.fixed(2))
+            .withCommandLatency("00B20144.*", StubLatency.fixed(3))
+            .build();
+    assertThat(model.getExchangeNanos(readRecord, response.length)).isEqualTo(3000L);
+    assertThat(model.getExchangeNanos(HexUtil.toByteArray("00B2014C00"), response.length))
+        .isEqualTo(2000L);
+    assertThat(model.getExchangeNanos(selectFile, response.length)).isEqualTo(1000L);
+  }
+
+  @Test
+  public void getExchangeNanos_withBaudRate_shouldAddCharacterTransferTime() {
+    StubTimingModel model =
+        StubTimingModel.builder().withTransmission(StubTransmission.baudRate(9600)).build();
+    // (5 + 2) bytes * 12 etu / 9600 etu/s
+    assertThat(model.getExchangeNanos(readRecord, response.length)).isEqualTo(8750000L);
+  }
+
+  @Test
+  public void getExchangeNanos_withT1_shouldAddChainedBlocksTransferTime() {
+    StubTimingModel model =
+        StubTimingModel.builder().withTransmission(StubTransmission.t1(9600, 32)).build();
+    // command: 2 blocks of 40 bytes + 2 * 4 bytes, plus 1 acknowledgement (44) and BGT (22)
+    // response: 1 block of 2 bytes + 4 bytes
+    long bits = (40 + 8) * 11 + 66 + (2 + 4) * 11;
+    assertThat(model.getExchangeNanos(new byte[40], response.length))
+        .isEqualTo(bits * 1000000000L / 9600);
+  }
+
+  @Test
+  public void nextNanos_uniform_shouldStayWithinBounds() {
+    StubLatency latency = StubLatency.uniform(10, 20);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(latency.nextNanos()).isBetween(10000L, 20000L);
+    }
+  }
+
+  @Test
+  public void nextNanos_normal_shouldNotBeNegative() {
+    StubLatency latency = StubLatency.normal(1, 1000);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(latency.nextNanos()).isGreaterThanOrEqualTo(0L);
+    }
+  }
+
+  @Test
+  public void nextNanos_histogram_shouldOnlyReturnRecordedDurations() {
+    StubLatency latency =
+        StubLatency.histogram(new long[] {100, 200, 300, 400}, new long[] {0, 3, 0, 1});
+    boolean[] drawn = new boolean[5];
+    for (int i = 0; i < 1000; i++) {
+      long duration = latency.nextNanos();
+      assertThat(duration).isIn(200000L, 400000L);
+      drawn[(int) (duration / 100000L)] = true;
+    }
+    assertThat(drawn[2]).isTrue();
+    assertThat(drawn[4]).isTrue();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void histogram_withoutCounts_shouldThrowIAE() {
+    StubLatency.histogram(new long[] {100}, new long[] {0});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void uniform_withInvertedBounds_shouldThrowIAE() {
+    StubLatency.uniform(20, 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void withInsLatency_outOfRange_shouldThrowIAE() {
+    StubTimingModel.builder().withInsLatency(256, StubLatency.fixed(1));
+  }
+}